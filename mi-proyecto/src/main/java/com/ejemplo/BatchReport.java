@@ -0,0 +1,137 @@
+package com.ejemplo;
+
+/**
+ * Resumen de un lote de actualizaciones climáticas: cuántos registros se leyeron y
+ * aplicaron, cómo se recalculó cada capa y cuánto tardó el lote desde la ingesta hasta
+ * que las rutas quedaron disponibles para consultas.
+ */
+public class BatchReport {
+    /** La capa no tuvo cambios en el lote. */
+    public static final String UNCHANGED = "sin cambios";
+    /** La capa cambió pero no hay un Floyd registrado para ella. */
+    public static final String NO_SOLVER = "sin solucionador";
+    /** La capa se reparó de forma incremental. */
+    public static final String INCREMENTAL = "incremental";
+    /** La capa se recalculó con Floyd completo. */
+    public static final String FULL = "completo";
+
+    private final int recordsRead;
+    private final int rejectedRecords;
+    private final int distinctUpdates;
+    private final int appliedUpdates;
+    private final String[] layerStrategies;
+    private final long[] layerNanos;
+    private final long parseNanos;
+    private final long applyNanos;
+    private final long totalNanos;
+
+    BatchReport(int recordsRead, int rejectedRecords, int distinctUpdates, int appliedUpdates,
+                String[] layerStrategies, long[] layerNanos, long parseNanos, long applyNanos, long totalNanos) {
+        this.recordsRead = recordsRead;
+        this.rejectedRecords = rejectedRecords;
+        this.distinctUpdates = distinctUpdates;
+        this.appliedUpdates = appliedUpdates;
+        this.layerStrategies = layerStrategies;
+        this.layerNanos = layerNanos;
+        this.parseNanos = parseNanos;
+        this.applyNanos = applyNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * Obtiene el número de registros leídos (incluidos los repetidos y los rechazados).
+     *
+     * @return Registros leídos.
+     */
+    public int getRecordsRead() {
+        return recordsRead;
+    }
+
+    /**
+     * Obtiene el número de registros rechazados por formato o ciudades inexistentes.
+     *
+     * @return Registros rechazados.
+     */
+    public int getRejectedRecords() {
+        return rejectedRecords;
+    }
+
+    /**
+     * Obtiene el número de actualizaciones distintas tras eliminar repetidas.
+     *
+     * @return Actualizaciones distintas.
+     */
+    public int getDistinctUpdates() {
+        return distinctUpdates;
+    }
+
+    /**
+     * Obtiene el número de actualizaciones aplicadas al grafo.
+     *
+     * @return Actualizaciones aplicadas.
+     */
+    public int getAppliedUpdates() {
+        return appliedUpdates;
+    }
+
+    /**
+     * Obtiene cómo se recalculó una capa climática.
+     *
+     * @param weatherCondition Condición climática.
+     * @return {@link #INCREMENTAL}, {@link #FULL}, {@link #NO_SOLVER} o {@link #UNCHANGED}.
+     */
+    public String getStrategy(int weatherCondition) {
+        return layerStrategies[weatherCondition];
+    }
+
+    /**
+     * Obtiene el tiempo de recálculo de una capa climática.
+     *
+     * @param weatherCondition Condición climática.
+     * @return Tiempo en nanosegundos.
+     */
+    public long getRecomputeNanos(int weatherCondition) {
+        return layerNanos[weatherCondition];
+    }
+
+    /**
+     * Obtiene el tiempo de lectura y depuración de los registros.
+     *
+     * @return Tiempo en nanosegundos.
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Obtiene el tiempo de aplicación del lote al grafo.
+     *
+     * @return Tiempo en nanosegundos.
+     */
+    public long getApplyNanos() {
+        return applyNanos;
+    }
+
+    /**
+     * Obtiene el tiempo total desde la ingesta hasta que las rutas están actualizadas.
+     *
+     * @return Tiempo en nanosegundos.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Lote: %d registros, %d rechazados, %d distintos, %d aplicados%n",
+            recordsRead, rejectedRecords, distinctUpdates, appliedUpdates));
+        String[] weatherNames = {"Normal", "Lluvia", "Nieve", "Tormenta"};
+        for (int k = 0; k < layerStrategies.length; k++) {
+            text.append(String.format("  %s: %s (%.2f ms)%n", weatherNames[k], layerStrategies[k], layerNanos[k] / 1e6));
+        }
+        text.append(String.format("  Lectura %.2f ms, aplicación %.2f ms, total %.2f ms",
+            parseNanos / 1e6, applyNanos / 1e6, totalNanos / 1e6));
+        return text.toString();
+    }
+}
@@ -0,0 +1,501 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reducción del grafo antes de resolver todos los pares: las cadenas de ciudades con uno
+ * o dos vecinos (carreteras que atraviesan pueblos con una sola entrada y una sola salida)
+ * se reemplazan por una arista atajo entre las ciudades del núcleo que las delimitan.
+ *
+ * Floyd se ejecuta solo sobre el núcleo. Las distancias de las ciudades contraídas se
+ * obtienen combinando su distancia a los extremos de la cadena (sumas prefijas) con la
+ * distancia entre extremos en el núcleo, y las rutas expanden los atajos a la secuencia
+ * completa de ciudades, por lo que los resultados son exactos. Los ciclos formados solo
+ * por ciudades de grado dos y los componentes sin extremos se quedan en el núcleo.
+ */
+public class ChainContraction {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final Graph graph;
+    private final int weatherCondition;
+    private final int[] chainOf;   // cadena de cada ciudad o -1 si está en el núcleo
+    private final int[] position;  // posición de la ciudad dentro de su cadena
+    private final int[] coreIndex; // índice en el núcleo o -1 si está contraída
+    private final int[] coreCities; // ciudad original de cada índice del núcleo
+    private final Chain[] chains;
+    private final Map<Long, Integer> shortcuts; // arista del núcleo -> cadena * 2 + sentido
+    private final Floyd coreFloyd;
+    private final double[][] coreDistance;
+
+    private ChainContraction(Graph graph, int weatherCondition, int[] chainOf, int[] position,
+                             int[] coreIndex, Chain[] chains, Map<Long, Integer> shortcuts, Floyd coreFloyd) {
+        this.graph = graph;
+        this.weatherCondition = weatherCondition;
+        this.chainOf = chainOf;
+        this.position = position;
+        this.coreIndex = coreIndex;
+        this.coreCities = new int[coreFloyd.getDistanceMatrix().length];
+        for (int v = 0; v < coreIndex.length; v++) {
+            if (coreIndex[v] != -1) {
+                coreCities[coreIndex[v]] = v;
+            }
+        }
+        this.chains = chains;
+        this.shortcuts = shortcuts;
+        this.coreFloyd = coreFloyd;
+        this.coreDistance = coreFloyd.getDistanceMatrix();
+    }
+
+    /**
+     * Contrae las cadenas de una capa climática y resuelve el núcleo con Floyd.
+     *
+     * @param graph El grafo de origen.
+     * @param weatherCondition Condición climática.
+     * @return Grafo reducido listo para consultas.
+     */
+    public static ChainContraction build(Graph graph, int weatherCondition) {
+        SparseGraph sparse = SparseGraph.of(graph, weatherCondition);
+        int n = sparse.numCities;
+
+        // Vecinos sin dirección de las ciudades con grado uno o dos (null si grado mayor)
+        int[][] neighbors = new int[n][];
+        for (int v = 0; v < n; v++) {
+            neighbors[v] = smallNeighborhood(sparse, v);
+        }
+
+        int[] chainOf = new int[n];
+        int[] position = new int[n];
+        Arrays.fill(chainOf, -1);
+        boolean[] visited = new boolean[n];
+        List<Chain> chains = new ArrayList<>();
+        int[] left = new int[n];
+        int[] right = new int[n];
+
+        for (int v = 0; v < n; v++) {
+            if (visited[v] || neighbors[v] == null || neighbors[v].length == 0) {
+                continue;
+            }
+            visited[v] = true;
+            int[] end = new int[2];
+            int leftCount = walk(neighbors, v, neighbors[v][0], left, visited, end, 0);
+            int rightCount = 0;
+            end[1] = -1;
+            if (end[0] != v && neighbors[v].length > 1) {
+                rightCount = walk(neighbors, v, neighbors[v][1], right, visited, end, 1);
+            }
+
+            // Los ciclos y los componentes sin extremos se quedan en el núcleo
+            if (end[0] == v || (end[0] == -1 && end[1] == -1)) {
+                continue;
+            }
+
+            int m = leftCount + 1 + rightCount;
+            int[] nodes = new int[m + 2];
+            nodes[0] = end[0];
+            for (int i = 0; i < leftCount; i++) {
+                nodes[1 + i] = left[leftCount - 1 - i];
+            }
+            nodes[1 + leftCount] = v;
+            for (int i = 0; i < rightCount; i++) {
+                nodes[2 + leftCount + i] = right[i];
+            }
+            nodes[m + 1] = end[1];
+
+            int id = chains.size();
+            for (int p = 1; p <= m; p++) {
+                chainOf[nodes[p]] = id;
+                position[nodes[p]] = p;
+            }
+            chains.add(new Chain(nodes, sparse));
+        }
+
+        // Núcleo: ciudades no contraídas, aristas directas y atajos
+        Graph core = new Graph();
+        int[] coreIndex = new int[n];
+        for (int v = 0; v < n; v++) {
+            coreIndex[v] = -1;
+            if (chainOf[v] == -1) {
+                coreIndex[v] = core.getNumCities();
+                core.addCity(graph.getCityName(v));
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            if (chainOf[u] != -1) {
+                continue;
+            }
+            for (int e = sparse.outOffsets[u]; e < sparse.outOffsets[u + 1]; e++) {
+                int v = sparse.outTarget[e];
+                if (chainOf[v] == -1) {
+                    double w = sparse.outWeight[e];
+                    core.addEdge(graph.getCityName(u), graph.getCityName(v), w, w, w, w);
+                }
+            }
+        }
+
+        Map<Long, Integer> shortcuts = new HashMap<>();
+        for (int c = 0; c < chains.size(); c++) {
+            Chain chain = chains.get(c);
+            int first = chain.nodes[0];
+            int last = chain.nodes[chain.nodes.length - 1];
+            if (first == -1 || last == -1 || first == last) {
+                continue;
+            }
+            int end = chain.nodes.length - 1;
+            addShortcut(core, shortcuts, coreIndex[first], coreIndex[last], chain.forward(0, end), c * 2);
+            addShortcut(core, shortcuts, coreIndex[last], coreIndex[first], chain.backward(end, 0), c * 2 + 1);
+        }
+
+        Floyd coreFloyd = new Floyd(core);
+        coreFloyd.executeFloyd(Graph.NORMAL);
+        return new ChainContraction(graph, weatherCondition, chainOf, position, coreIndex,
+            chains.toArray(new Chain[0]), shortcuts, coreFloyd);
+    }
+
+    /**
+     * Avanza por la cadena desde start en la dirección de first guardando las ciudades de
+     * grado uno o dos. En end[side] deja el extremo del núcleo, -1 si la cadena termina en
+     * una ciudad de grado uno, o start si la cadena es un ciclo.
+     *
+     * @return Número de ciudades recorridas.
+     */
+    private static int walk(int[][] neighbors, int start, int first, int[] out, boolean[] visited,
+                            int[] end, int side) {
+        int count = 0;
+        int previous = start;
+        int current = first;
+        while (current != -1 && current != start && neighbors[current] != null) {
+            visited[current] = true;
+            out[count++] = current;
+            int[] around = neighbors[current];
+            int following = -1;
+            for (int w : around) {
+                if (w != previous) {
+                    following = w;
+                }
+            }
+            previous = current;
+            current = following;
+        }
+        end[side] = current;
+        return count;
+    }
+
+    /**
+     * Obtiene los vecinos distintos (entrada o salida) de una ciudad si son a lo sumo dos.
+     */
+    private static int[] smallNeighborhood(SparseGraph sparse, int v) {
+        int[] found = new int[2];
+        int count = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            int[] offsets = (pass == 0) ? sparse.outOffsets : sparse.inOffsets;
+            int[] nodes = (pass == 0) ? sparse.outTarget : sparse.inSource;
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = nodes[e];
+                if ((count > 0 && found[0] == w) || (count > 1 && found[1] == w)) {
+                    continue;
+                }
+                if (count == 2) {
+                    return null;
+                }
+                found[count++] = w;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private static void addShortcut(Graph core, Map<Long, Integer> shortcuts, int from, int to,
+                                    double weight, int code) {
+        if (weight == INFINITY || weight >= core.getEdgeWeight(from, to, Graph.NORMAL)) {
+            return;
+        }
+        core.addEdge(core.getCityName(from), core.getCityName(to), weight, weight, weight, weight);
+        shortcuts.put(((long) from << 32) | to, code);
+    }
+
+    /**
+     * Obtiene la condición climática de la reducción.
+     *
+     * @return Condición climática.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene el número de ciudades del núcleo resuelto con Floyd.
+     *
+     * @return Tamaño del núcleo.
+     */
+    public int getCoreSize() {
+        return coreDistance.length;
+    }
+
+    /**
+     * Obtiene el número de ciudades contraídas en cadenas.
+     *
+     * @return Ciudades contraídas.
+     */
+    public int getContractedCount() {
+        return chainOf.length - coreDistance.length;
+    }
+
+    /**
+     * Obtiene el número de cadenas contraídas.
+     *
+     * @return Número de cadenas.
+     */
+    public int getChainCount() {
+        return chains.length;
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1 || fromIndex >= chainOf.length || toIndex >= chainOf.length) {
+            return INFINITY;
+        }
+        return getShortestDistance(fromIndex, toIndex);
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @return Distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(int fromIndex, int toIndex) {
+        return solve(fromIndex, toIndex, null);
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ciudades con los atajos expandidos.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Lista de ciudades de la ruta o lista vacía si no existe.
+     */
+    public List<String> getShortestPath(String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1 || fromIndex >= chainOf.length || toIndex >= chainOf.length) {
+            return Collections.emptyList();
+        }
+
+        int[] choice = new int[2];
+        if (solve(fromIndex, toIndex, choice) == INFINITY) {
+            return Collections.emptyList();
+        }
+
+        List<Integer> path = new ArrayList<>();
+        if (fromIndex == toIndex) {
+            path.add(fromIndex);
+        } else if (choice[0] == -1) {
+            // Ruta directa dentro de la misma cadena
+            appendChain(path, chains[chainOf[fromIndex]], position[fromIndex], position[toIndex]);
+        } else {
+            if (chainOf[fromIndex] == -1) {
+                path.add(fromIndex);
+            } else {
+                Chain chain = chains[chainOf[fromIndex]];
+                appendChain(path, chain, position[fromIndex], chain.endPosition(choice[0]));
+            }
+            appendCore(path, endpoint(fromIndex, choice[0]), endpoint(toIndex, choice[1]));
+            if (chainOf[toIndex] != -1) {
+                Chain chain = chains[chainOf[toIndex]];
+                appendChain(path, chain, chain.endPosition(choice[1]), position[toIndex]);
+            }
+        }
+
+        List<String> names = new ArrayList<>(path.size());
+        for (int city : path) {
+            names.add(graph.getCityName(city));
+        }
+        return names;
+    }
+
+    /**
+     * Calcula la distancia más corta. Si choice no es null recibe el lado (0 o 1, ver
+     * {@link #endpoint(int, int)}) por el que se sale del origen y por el que se entra al
+     * destino, o -1 si la mejor ruta no pasa por el núcleo.
+     */
+    private double solve(int s, int t, int[] choice) {
+        if (s == t) {
+            if (choice != null) {
+                choice[0] = -1;
+            }
+            return 0;
+        }
+
+        double best = INFINITY;
+        if (choice != null) {
+            choice[0] = -1;
+        }
+        int cs = chainOf[s];
+        int ct = chainOf[t];
+        if (cs != -1 && cs == ct) {
+            int p = position[s];
+            int q = position[t];
+            best = (p < q) ? chains[cs].forward(p, q) : chains[cs].backward(p, q);
+        }
+
+        for (int a = 0; a < 2; a++) {
+            int exit = endpoint(s, a);
+            if (exit == -1) {
+                continue;
+            }
+            double toExit = (cs == -1) ? 0 : chains[cs].distance(position[s], chains[cs].endPosition(a));
+            if (toExit == INFINITY) {
+                continue;
+            }
+            double[] row = coreDistance[coreIndex[exit]];
+            for (int b = 0; b < 2; b++) {
+                int entry = endpoint(t, b);
+                if (entry == -1) {
+                    continue;
+                }
+                double through = row[coreIndex[entry]];
+                double fromEntry = (ct == -1) ? 0 : chains[ct].distance(chains[ct].endPosition(b), position[t]);
+                if (through == INFINITY || fromEntry == INFINITY) {
+                    continue;
+                }
+                double candidate = toExit + through + fromEntry;
+                if (candidate < best) {
+                    best = candidate;
+                    if (choice != null) {
+                        choice[0] = a;
+                        choice[1] = b;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Obtiene el extremo del núcleo número side (0 o 1) por el que una ciudad accede al
+     * núcleo: la propia ciudad si es del núcleo, o los extremos de su cadena.
+     */
+    private int endpoint(int city, int side) {
+        if (chainOf[city] == -1) {
+            return (side == 0) ? city : -1;
+        }
+        int[] nodes = chains[chainOf[city]].nodes;
+        return (side == 0) ? nodes[0] : nodes[nodes.length - 1];
+    }
+
+    /**
+     * Agrega la ruta del núcleo entre dos ciudades expandiendo los atajos.
+     */
+    private void appendCore(List<Integer> path, int from, int to) {
+        int[] buffer = new int[coreDistance.length];
+        int length = coreFloyd.getShortestPath(coreIndex[from], coreIndex[to], buffer);
+        int previous = -1;
+        for (int i = 0; i < length; i++) {
+            int city = coreCities[buffer[i]];
+            if (previous != -1) {
+                Integer code = shortcuts.get(((long) coreIndex[previous] << 32) | coreIndex[city]);
+                if (code != null) {
+                    Chain chain = chains[code >> 1];
+                    int end = chain.nodes.length - 1;
+                    if ((code & 1) == 0) {
+                        appendChain(path, chain, 0, end);
+                    } else {
+                        appendChain(path, chain, end, 0);
+                    }
+                    path.remove(path.size() - 1); // El extremo se agrega a continuación
+                }
+            }
+            if (path.isEmpty() || path.get(path.size() - 1) != city) {
+                path.add(city);
+            }
+            previous = city;
+        }
+    }
+
+    /**
+     * Agrega las ciudades de una cadena entre dos posiciones (incluidas), sin repetir la
+     * última ciudad ya agregada.
+     */
+    private static void appendChain(List<Integer> path, Chain chain, int from, int to) {
+        int step = (from <= to) ? 1 : -1;
+        for (int p = from; ; p += step) {
+            int city = chain.nodes[p];
+            if (path.isEmpty() || path.get(path.size() - 1) != city) {
+                path.add(city);
+            }
+            if (p == to) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Cadena contraída: extremos del núcleo en las posiciones 0 y m+1 (-1 si no existen)
+     * y sumas prefijas de los pesos en ambos sentidos. Los tramos sin arista se cuentan
+     * aparte para distinguir distancias infinitas.
+     */
+    private static final class Chain {
+        final int[] nodes;
+        final double[] forwardSum;
+        final int[] forwardGaps;
+        final double[] backwardSum;
+        final int[] backwardGaps;
+
+        Chain(int[] nodes, SparseGraph sparse) {
+            this.nodes = nodes;
+            int length = nodes.length;
+            forwardSum = new double[length];
+            forwardGaps = new int[length];
+            backwardSum = new double[length];
+            backwardGaps = new int[length];
+            for (int p = 0; p + 1 < length; p++) {
+                int a = nodes[p];
+                int b = nodes[p + 1];
+                double ahead = (a == -1 || b == -1) ? INFINITY : sparse.weight(a, b);
+                double behind = (a == -1 || b == -1) ? INFINITY : sparse.weight(b, a);
+                forwardSum[p + 1] = forwardSum[p] + (ahead == INFINITY ? 0 : ahead);
+                forwardGaps[p + 1] = forwardGaps[p] + (ahead == INFINITY ? 1 : 0);
+                backwardSum[p + 1] = backwardSum[p] + (behind == INFINITY ? 0 : behind);
+                backwardGaps[p + 1] = backwardGaps[p] + (behind == INFINITY ? 1 : 0);
+            }
+        }
+
+        /**
+         * Distancia de la posición p a la posición q (p < q) avanzando por la cadena.
+         */
+        double forward(int p, int q) {
+            return (forwardGaps[q] != forwardGaps[p]) ? INFINITY : forwardSum[q] - forwardSum[p];
+        }
+
+        /**
+         * Distancia de la posición p a la posición q (p > q) retrocediendo por la cadena.
+         */
+        double backward(int p, int q) {
+            return (backwardGaps[p] != backwardGaps[q]) ? INFINITY : backwardSum[p] - backwardSum[q];
+        }
+
+        double distance(int p, int q) {
+            return (p <= q) ? forward(p, q) : backward(p, q);
+        }
+
+        /**
+         * Posición del extremo del lado indicado (0 o 1).
+         */
+        int endPosition(int side) {
+            return (side == 0) ? 0 : nodes.length - 1;
+        }
+    }
+}
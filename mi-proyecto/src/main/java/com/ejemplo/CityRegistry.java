@@ -0,0 +1,228 @@
+package com.ejemplo;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Diccionario de ciudades con direccionamiento abierto (sondeo lineal).
+ * Asigna a cada nombre un índice consecutivo y lo resuelve sin crear objetos:
+ * los nombres se internan y su hash se guarda precalculado, por lo que una búsqueda
+ * solo compara enteros y, en el caso común, referencias.
+ *
+ * Las consultas no usan bloqueos y pueden hacerse desde cualquier hilo mientras otro
+ * agrega ciudades: el estado se publica como una {@link Snapshot} inmutable a través de un
+ * campo volátil. Las altas (sincronizadas) escriben el nombre y su hash en una posición
+ * libre antes de publicar el nuevo tamaño, y al crecer crean arreglos nuevos, así que un
+ * lector siempre ve arreglos coherentes con el tamaño que leyó; las entradas de la tabla
+ * con índices fuera de ese tamaño se ignoran.
+ */
+public class CityRegistry {
+    private static final int MIN_TABLE_SIZE = 16;
+
+    private volatile Snapshot state;
+    private final List<String> namesView;
+
+    /**
+     * Estado publicado del diccionario. Los arreglos pueden compartirse con estados
+     * posteriores, que solo escriben en posiciones que este estado no usa.
+     */
+    private static final class Snapshot {
+        final String[] names;  // [índice] -> nombre internado
+        final int[] hashes;    // [índice] -> hash precalculado
+        final int[] table;     // [ranura] -> índice + 1 (0 = vacía)
+        final int mask;
+        final int size;
+
+        Snapshot(String[] names, int[] hashes, int[] table, int size) {
+            this.names = names;
+            this.hashes = hashes;
+            this.table = table;
+            this.mask = table.length - 1;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Constructor que crea un diccionario vacío.
+     */
+    public CityRegistry() {
+        this(MIN_TABLE_SIZE / 2);
+    }
+
+    /**
+     * Constructor que reserva espacio para un número esperado de ciudades.
+     *
+     * @param expectedCities Número esperado de ciudades.
+     */
+    public CityRegistry(int expectedCities) {
+        int capacity = Math.max(expectedCities, 1);
+        this.state = new Snapshot(new String[capacity], new int[capacity], new int[tableSizeFor(capacity)], 0);
+        this.namesView = new NamesView();
+    }
+
+    /**
+     * Obtiene el índice de una ciudad.
+     *
+     * @param name Nombre de la ciudad.
+     * @return Índice de la ciudad o -1 si no existe.
+     */
+    public int indexOf(String name) {
+        return (name == null) ? -1 : indexOf(state, name);
+    }
+
+    private static int indexOf(Snapshot current, String name) {
+        int hash = spread(name.hashCode());
+        int[] table = current.table;
+        int slot = hash & current.mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int index = entry - 1;
+            // Una entrada agregada después de leer el estado puede verse en la tabla: se salta
+            if (index < current.size && current.hashes[index] == hash
+                    && (current.names[index] == name || current.names[index].equals(name))) {
+                return index;
+            }
+            slot = (slot + 1) & current.mask;
+        }
+    }
+
+    /**
+     * Agrega una ciudad si no existe.
+     *
+     * @param name Nombre de la ciudad.
+     * @return Índice de la ciudad (nuevo o existente).
+     * @throws IllegalArgumentException si el nombre es null.
+     */
+    public synchronized int add(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("El nombre de la ciudad no puede ser null");
+        }
+        Snapshot current = state;
+        int existing = indexOf(current, name);
+        if (existing != -1) {
+            return existing;
+        }
+
+        String[] names = current.names;
+        int[] hashes = current.hashes;
+        int[] table = current.table;
+        int size = current.size;
+        if (size == names.length) {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        if ((size + 1) * 2 > table.length) {
+            table = rehash(hashes, size, table.length * 2);
+        }
+
+        int hash = spread(name.hashCode());
+        names[size] = name.intern();
+        hashes[size] = hash;
+        insert(table, size, hash);
+        state = new Snapshot(names, hashes, table, size + 1);
+        return size;
+    }
+
+    /**
+     * Obtiene el nombre de la ciudad por índice.
+     *
+     * @param index Índice de la ciudad.
+     * @return Nombre de la ciudad o null si el índice es inválido.
+     */
+    public String nameOf(int index) {
+        Snapshot current = state;
+        return (index >= 0 && index < current.size) ? current.names[index] : null;
+    }
+
+    /**
+     * Obtiene el número de ciudades registradas.
+     *
+     * @return Número de ciudades.
+     */
+    public int size() {
+        return state.size;
+    }
+
+    /**
+     * Obtiene una vista de solo lectura de los nombres, sin copiarlos.
+     * La vista refleja las ciudades que se agreguen después.
+     *
+     * @return Lista de solo lectura con los nombres en orden de índice.
+     */
+    public List<String> names() {
+        return namesView;
+    }
+
+    /**
+     * Construye una tabla nueva del tamaño indicado usando los hashes guardados.
+     */
+    private static int[] rehash(int[] hashes, int size, int newTableSize) {
+        int[] table = new int[newTableSize];
+        for (int i = 0; i < size; i++) {
+            insert(table, i, hashes[i]);
+        }
+        return table;
+    }
+
+    private static void insert(int[] table, int index, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    /**
+     * Mezcla los bits altos del hash para reducir colisiones en la tabla.
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Calcula un tamaño de tabla potencia de dos con factor de carga máximo de 0.5.
+     */
+    private static int tableSizeFor(int capacity) {
+        int size = MIN_TABLE_SIZE;
+        while (size < capacity * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * Vista de solo lectura sobre el arreglo de nombres.
+     */
+    private final class NamesView extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            Snapshot current = state;
+            if (index < 0 || index >= current.size) {
+                throw new IndexOutOfBoundsException("Índice: " + index + ", tamaño: " + current.size);
+            }
+            return current.names[index];
+        }
+
+        @Override
+        public int size() {
+            return state.size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return (o instanceof String) && CityRegistry.this.indexOf((String) o) != -1;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return (o instanceof String) ? CityRegistry.this.indexOf((String) o) : -1;
+        }
+    }
+}
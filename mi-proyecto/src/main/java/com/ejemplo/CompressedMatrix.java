@@ -0,0 +1,354 @@
+package com.ejemplo;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Copia comprimida e inmutable de las matrices de distancias y siguientes nodos de Floyd.
+ *
+ * Cada fila se codifica por separado:
+ * <ul>
+ *   <li>Distancias: cada valor finito se cuantiza a una escala fija 10^e de la fila, se
+ *       guarda el mínimo como base y cada valor como varint de ((q - base + 1) · 2 | parche),
+ *       con 0 para infinito. Las sumas de datos con decimales rara vez son exactas (0.1 + 0.2
+ *       no es 0.3), así que un valor que no se recupera exactamente lleva un parche: la
+ *       diferencia en ulps respecto al valor cuantizado, que suele caber en un byte. Se
+ *       elige la escala (o la fila en crudo) que ocupa menos, y la compresión nunca pierde
+ *       precisión.</li>
+ *   <li>Siguientes nodos: solo toman como valor los vecinos de la fila, así que se guarda la
+ *       tabla de saltos distintos y cada entrada como índice en esa tabla, empaquetado con
+ *       los bits justos.</li>
+ * </ul>
+ * Las filas se decodifican al acceder a ellas y las últimas se conservan en una pequeña
+ * caché LRU.
+ */
+class CompressedMatrix {
+    private static final double INFINITY = Double.MAX_VALUE;
+    private static final int SCALED = 0;
+    private static final int RAW = 1;
+    private static final int MAX_SCALE_EXPONENT = 6;
+    private static final double EXACT_LIMIT = 1L << 53;
+
+    private final int numCities;
+    private final byte[][] rows;
+    private final Map<Integer, DecodedRow> cache;
+    private final long compressedBytes;
+
+    /**
+     * Fila decodificada.
+     */
+    static final class DecodedRow {
+        final double[] distance;
+        final int[] next;
+
+        DecodedRow(double[] distance, int[] next) {
+            this.distance = distance;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Comprime las matrices de una solución.
+     *
+     * @param distance Matriz de distancias.
+     * @param next Matriz de siguientes nodos.
+     * @param cacheRows Número de filas decodificadas que se conservan.
+     */
+    CompressedMatrix(double[][] distance, int[][] next, int cacheRows) {
+        this.numCities = distance.length;
+        this.rows = new byte[numCities][];
+        long bytes = 0;
+        RowWriter writer = new RowWriter(64);
+        for (int i = 0; i < numCities; i++) {
+            writer.size = 0;
+            encodeDistances(distance[i], writer);
+            encodeNext(next[i], writer);
+            rows[i] = Arrays.copyOf(writer.buffer, writer.size);
+            bytes += rows[i].length;
+        }
+        this.compressedBytes = bytes;
+        this.cache = new LinkedHashMap<Integer, DecodedRow>(cacheRows * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, DecodedRow> eldest) {
+                return size() > cacheRows;
+            }
+        };
+    }
+
+    private static void encodeDistances(double[] row, RowWriter writer) {
+        int exponent = -1;
+        long best = (long) row.length * Long.BYTES; // Tamaño en crudo
+        for (int e = 0; e <= MAX_SCALE_EXPONENT; e++) {
+            long size = scaledSize(row, e);
+            if (size < best) {
+                best = size;
+                exponent = e;
+            }
+        }
+        if (exponent < 0) {
+            writer.writeByte(RAW);
+            for (double value : row) {
+                writer.writeLong(Double.doubleToRawLongBits(value));
+            }
+            return;
+        }
+
+        double scale = Math.pow(10, exponent);
+        long base = base(row, scale);
+        writer.writeByte(SCALED);
+        writer.writeByte(exponent);
+        writer.writeVarLong((base << 1) ^ (base >> 63)); // zigzag
+        for (double value : row) {
+            if (value == INFINITY) {
+                writer.writeVarLong(0);
+                continue;
+            }
+            long q = Math.round(value * scale);
+            long patch = ulpDifference(value, q / scale);
+            writer.writeVarLong((q - base + 1) << 1 | (patch != 0 ? 1 : 0));
+            if (patch != 0) {
+                writer.writeVarLong((patch << 1) ^ (patch >> 63));
+            }
+        }
+    }
+
+    /**
+     * Calcula cuántos bytes ocuparía una fila cuantizada con la escala 10^e.
+     *
+     * @return Tamaño en bytes o {@link Long#MAX_VALUE} si algún valor no se puede cuantizar.
+     */
+    private static long scaledSize(double[] row, int exponent) {
+        double scale = Math.pow(10, exponent);
+        for (double value : row) {
+            if (value != INFINITY && !(Math.abs(value * scale) < EXACT_LIMIT)) {
+                return Long.MAX_VALUE; // Demasiado grande o NaN
+            }
+        }
+        long base = base(row, scale);
+        long size = 2 + varLongSize((base << 1) ^ (base >> 63));
+        for (double value : row) {
+            if (value == INFINITY) {
+                size++;
+                continue;
+            }
+            long q = Math.round(value * scale);
+            long patch = ulpDifference(value, q / scale);
+            size += varLongSize((q - base + 1) << 1);
+            if (patch != 0) {
+                size += varLongSize((patch << 1) ^ (patch >> 63));
+            }
+        }
+        return size;
+    }
+
+    private static long base(double[] row, double scale) {
+        long base = Long.MAX_VALUE;
+        for (double value : row) {
+            if (value != INFINITY) {
+                base = Math.min(base, Math.round(value * scale));
+            }
+        }
+        return (base == Long.MAX_VALUE) ? 0 : base;
+    }
+
+    /**
+     * Diferencia en ulps entre un valor y su aproximación cuantizada (0 si es exacta).
+     */
+    private static long ulpDifference(double value, double approximation) {
+        return Double.doubleToRawLongBits(value) - Double.doubleToRawLongBits(approximation);
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void encodeNext(int[] row, RowWriter writer) {
+        int[] hops = new int[8];
+        int distinct = 0;
+        int[] index = new int[row.length];
+        for (int j = 0; j < row.length; j++) {
+            int position = -1;
+            for (int h = 0; h < distinct; h++) {
+                if (hops[h] == row[j]) {
+                    position = h;
+                    break;
+                }
+            }
+            if (position == -1) {
+                if (distinct == hops.length) {
+                    hops = Arrays.copyOf(hops, distinct * 2);
+                }
+                position = distinct;
+                hops[distinct++] = row[j];
+            }
+            index[j] = position;
+        }
+
+        writer.writeVarLong(distinct);
+        for (int h = 0; h < distinct; h++) {
+            writer.writeVarLong(hops[h] + 1L);
+        }
+        int width = bitWidth(distinct);
+        long bits = 0;
+        int pending = 0;
+        for (int j = 0; j < row.length; j++) {
+            bits |= (long) index[j] << pending;
+            pending += width;
+            while (pending >= 8) {
+                writer.writeByte((int) bits);
+                bits >>>= 8;
+                pending -= 8;
+            }
+        }
+        if (pending > 0) {
+            writer.writeByte((int) bits);
+        }
+    }
+
+    private static int bitWidth(int distinct) {
+        return (distinct <= 1) ? 0 : 32 - Integer.numberOfLeadingZeros(distinct - 1);
+    }
+
+    /**
+     * Obtiene una fila decodificada (de la caché si está).
+     *
+     * @param i Índice de la fila.
+     * @return Fila decodificada; no debe modificarse.
+     */
+    synchronized DecodedRow row(int i) {
+        DecodedRow decoded = cache.get(i);
+        if (decoded == null) {
+            decoded = decode(i);
+            cache.put(i, decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * Decodifica una fila sin pasar por la caché.
+     */
+    DecodedRow decode(int i) {
+        byte[] data = rows[i];
+        int[] position = {0};
+        double[] distance = new double[numCities];
+        int mode = data[position[0]++];
+        if (mode == RAW) {
+            for (int j = 0; j < numCities; j++) {
+                long bits = 0;
+                for (int b = 0; b < 8; b++) {
+                    bits |= (data[position[0]++] & 0xFFL) << (8 * b);
+                }
+                distance[j] = Double.longBitsToDouble(bits);
+            }
+        } else {
+            double scale = Math.pow(10, data[position[0]++]);
+            long zigzag = readVarLong(data, position);
+            long base = (zigzag >>> 1) ^ -(zigzag & 1);
+            for (int j = 0; j < numCities; j++) {
+                long code = readVarLong(data, position);
+                if (code == 0) {
+                    distance[j] = INFINITY;
+                    continue;
+                }
+                double value = (base + (code >>> 1) - 1) / scale;
+                if ((code & 1) != 0) {
+                    long encoded = readVarLong(data, position);
+                    long patch = (encoded >>> 1) ^ -(encoded & 1);
+                    value = Double.longBitsToDouble(Double.doubleToRawLongBits(value) + patch);
+                }
+                distance[j] = value;
+            }
+        }
+
+        int distinct = (int) readVarLong(data, position);
+        int[] hops = new int[distinct];
+        for (int h = 0; h < distinct; h++) {
+            hops[h] = (int) readVarLong(data, position) - 1;
+        }
+        int width = bitWidth(distinct);
+        int[] next = new int[numCities];
+        long bits = 0;
+        int available = 0;
+        int mask = (1 << width) - 1;
+        for (int j = 0; j < numCities; j++) {
+            while (available < width) {
+                bits |= (data[position[0]++] & 0xFFL) << available;
+                available += 8;
+            }
+            next[j] = hops[(int) (bits & mask)];
+            bits >>>= width;
+            available -= width;
+        }
+        return new DecodedRow(distance, next);
+    }
+
+    private static long readVarLong(byte[] data, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    /**
+     * Obtiene el número de filas.
+     *
+     * @return Número de ciudades.
+     */
+    int size() {
+        return numCities;
+    }
+
+    /**
+     * Obtiene el tamaño de los datos comprimidos.
+     *
+     * @return Bytes de las filas codificadas.
+     */
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Búfer de escritura de una fila.
+     */
+    private static final class RowWriter {
+        byte[] buffer;
+        int size;
+
+        RowWriter(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            for (int b = 0; b < 8; b++) {
+                writeByte((int) (value >>> (8 * b)));
+            }
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+    }
+}
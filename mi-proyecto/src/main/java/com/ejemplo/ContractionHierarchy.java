@@ -0,0 +1,744 @@
+package com.ejemplo;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Índice de jerarquías de contracción (CH) para consultas puntuales de rutas más cortas
+ * en redes grandes, donde una matriz n×n no es viable.
+ *
+ * Los nodos se contraen en orden de importancia agregando atajos que preservan las
+ * distancias; una consulta es una búsqueda bidireccional que solo sube en la jerarquía,
+ * por lo que explora una fracción mínima del grafo. La memoria es proporcional al número
+ * de aristas más atajos.
+ *
+ * La contracción trabaja sobre una copia dispersa (CSR) de las aristas. Como {@link Graph}
+ * guarda sus capas como matrices, obtener esa copia desde el grafo recorre n² celdas una
+ * vez; quien ya tiene la copia dispersa puede pasarla directamente y evitar ese recorrido.
+ */
+public class ContractionHierarchy {
+    private static final double INFINITY = Double.MAX_VALUE;
+    private static final int FILE_MAGIC = 0x43483031; // "CH01"
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final Graph graph;
+    private final int weatherCondition;
+    private final int numCities;
+    private final int[] rank;
+
+    // Aristas hacia nodos de mayor rango, agrupadas por origen (formato CSR)
+    private final int[] upOffsets;
+    private final int[] upTarget;
+    private final double[] upWeight;
+    private final int[] upMiddle;
+
+    // Aristas desde nodos de mayor rango, agrupadas por destino (formato CSR)
+    private final int[] downOffsets;
+    private final int[] downSource;
+    private final double[] downWeight;
+    private final int[] downMiddle;
+
+    private final ThreadLocal<QueryState> queryState;
+
+    private ContractionHierarchy(Graph graph, int weatherCondition, int[] rank,
+                                 int[] upOffsets, int[] upTarget, double[] upWeight, int[] upMiddle,
+                                 int[] downOffsets, int[] downSource, double[] downWeight, int[] downMiddle) {
+        this.graph = graph;
+        this.weatherCondition = weatherCondition;
+        this.numCities = rank.length;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTarget = upTarget;
+        this.upWeight = upWeight;
+        this.upMiddle = upMiddle;
+        this.downOffsets = downOffsets;
+        this.downSource = downSource;
+        this.downWeight = downWeight;
+        this.downMiddle = downMiddle;
+        this.queryState = ThreadLocal.withInitial(() -> new QueryState(numCities));
+    }
+
+    /**
+     * Construye el índice para una condición climática.
+     *
+     * @param graph El grafo de origen.
+     * @param weatherCondition Condición climática.
+     * @return Índice construido.
+     */
+    public static ContractionHierarchy build(Graph graph, int weatherCondition) {
+        return build(graph, weatherCondition, SparseGraph.of(graph, weatherCondition));
+    }
+
+    /**
+     * Construye el índice a partir de una copia dispersa ya obtenida de la capa, sin
+     * recorrer la matriz del grafo.
+     *
+     * @param graph El grafo de origen (para los nombres de las ciudades).
+     * @param weatherCondition Condición climática de la copia.
+     * @param edges Aristas de la capa en formato CSR.
+     * @return Índice construido.
+     */
+    static ContractionHierarchy build(Graph graph, int weatherCondition, SparseGraph edges) {
+        return new Builder(graph, weatherCondition, edges).build();
+    }
+
+    /**
+     * Reconstruye el índice en segundo plano (por ejemplo, después de editar el grafo).
+     * Las aristas se copian en el hilo que llama, de modo que el grafo puede seguir
+     * modificándose mientras la contracción se ejecuta.
+     *
+     * @param graph El grafo de origen.
+     * @param weatherCondition Condición climática.
+     * @param executor Ejecutor donde correrá la contracción.
+     * @return Futuro que se completa con el nuevo índice.
+     */
+    public static CompletableFuture<ContractionHierarchy> buildAsync(Graph graph, int weatherCondition,
+                                                                     Executor executor) {
+        Builder builder = new Builder(graph, weatherCondition, SparseGraph.of(graph, weatherCondition));
+        return CompletableFuture.supplyAsync(builder::build, executor);
+    }
+
+    /**
+     * Obtiene la condición climática del índice.
+     *
+     * @return Condición climática.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene el número total de aristas del índice (originales más atajos).
+     *
+     * @return Número de aristas almacenadas.
+     */
+    public int getEdgeCount() {
+        return upTarget.length + downSource.length;
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return La distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1 || fromIndex >= numCities || toIndex >= numCities) {
+            return INFINITY;
+        }
+        return getShortestDistance(fromIndex, toIndex);
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @return La distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(int fromIndex, int toIndex) {
+        QueryState state = queryState.get();
+        search(state, fromIndex, toIndex);
+        return state.best;
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ciudades, desempaquetando los atajos.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Lista de nombres de ciudades que forman la ruta (vacía si no existe).
+     */
+    public List<String> getShortestPath(String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1 || fromIndex >= numCities || toIndex >= numCities) {
+            return Collections.emptyList();
+        }
+
+        QueryState state = queryState.get();
+        search(state, fromIndex, toIndex);
+        if (state.meeting == -1) {
+            return Collections.emptyList();
+        }
+
+        List<String> path = new ArrayList<>();
+        path.add(graph.getCityName(fromIndex));
+
+        // Tramo de subida: se recorre desde el encuentro hacia el origen y se invierte
+        int[] chain = new int[16];
+        int count = 0;
+        for (int node = state.meeting; node != fromIndex; node = state.forwardParent[node]) {
+            if (count == chain.length) {
+                chain = Arrays.copyOf(chain, count * 2);
+            }
+            chain[count++] = node;
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            int node = chain[i];
+            unpack(state.forwardParent[node], node, upMiddle[state.forwardEdge[node]], path);
+        }
+
+        // Tramo de bajada desde el nodo de encuentro hasta el destino
+        for (int node = state.meeting; node != toIndex; node = state.backwardParent[node]) {
+            int edge = state.backwardEdge[node];
+            unpack(node, state.backwardParent[node], downMiddle[edge], path);
+        }
+
+        return path;
+    }
+
+    /**
+     * Búsqueda bidireccional hacia arriba en la jerarquía.
+     */
+    private void search(QueryState state, int source, int target) {
+        state.reset();
+        state.best = (source == target) ? 0 : INFINITY;
+        state.meeting = (source == target) ? source : -1;
+        if (source == target) {
+            return;
+        }
+
+        state.visitForward(source, 0, -1, -1);
+        state.visitBackward(target, 0, -1, -1);
+
+        NodeHeap forward = state.forwardHeap;
+        NodeHeap backward = state.backwardHeap;
+        while (!forward.isEmpty() || !backward.isEmpty()) {
+            double minForward = forward.isEmpty() ? INFINITY : forward.peekKey();
+            double minBackward = backward.isEmpty() ? INFINITY : backward.peekKey();
+            if (Math.min(minForward, minBackward) >= state.best) {
+                break;
+            }
+
+            if (minForward <= minBackward) {
+                int node = forward.pop();
+                if (minForward > state.forwardDistance[node]) {
+                    continue;
+                }
+                if (state.backwardStamp[node] == state.stamp) {
+                    double total = minForward + state.backwardDistance[node];
+                    if (total < state.best) {
+                        state.best = total;
+                        state.meeting = node;
+                    }
+                }
+                for (int e = upOffsets[node]; e < upOffsets[node + 1]; e++) {
+                    state.relaxForward(upTarget[e], minForward + upWeight[e], node, e);
+                }
+            } else {
+                int node = backward.pop();
+                if (minBackward > state.backwardDistance[node]) {
+                    continue;
+                }
+                if (state.forwardStamp[node] == state.stamp) {
+                    double total = minBackward + state.forwardDistance[node];
+                    if (total < state.best) {
+                        state.best = total;
+                        state.meeting = node;
+                    }
+                }
+                for (int e = downOffsets[node]; e < downOffsets[node + 1]; e++) {
+                    state.relaxBackward(downSource[e], minBackward + downWeight[e], node, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Desempaqueta recursivamente (con pila explícita) la arista from→to agregando
+     * a la ruta todas las ciudades después de from.
+     */
+    private void unpack(int from, int to, int middle, List<String> path) {
+        int[] stack = new int[48];
+        int size = 0;
+        stack[size++] = from;
+        stack[size++] = to;
+        stack[size++] = middle;
+
+        while (size > 0) {
+            int mid = stack[--size];
+            int b = stack[--size];
+            int a = stack[--size];
+            if (mid == -1) {
+                path.add(graph.getCityName(b));
+                continue;
+            }
+            if (size + 6 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            // El nodo intermedio tiene menor rango: a→mid está en su lista de bajada
+            // y mid→b en su lista de subida. Se apila primero la segunda mitad.
+            stack[size++] = mid;
+            stack[size++] = b;
+            stack[size++] = middleOfUpEdge(mid, b);
+            stack[size++] = a;
+            stack[size++] = mid;
+            stack[size++] = middleOfDownEdge(a, mid);
+        }
+    }
+
+    private int middleOfUpEdge(int from, int to) {
+        for (int e = upOffsets[from]; e < upOffsets[from + 1]; e++) {
+            if (upTarget[e] == to) {
+                return upMiddle[e];
+            }
+        }
+        throw new IllegalStateException("Índice CH inconsistente: falta la arista " + from + "->" + to);
+    }
+
+    private int middleOfDownEdge(int from, int to) {
+        for (int e = downOffsets[to]; e < downOffsets[to + 1]; e++) {
+            if (downSource[e] == from) {
+                return downMiddle[e];
+            }
+        }
+        throw new IllegalStateException("Índice CH inconsistente: falta la arista " + from + "->" + to);
+    }
+
+    /**
+     * Escribe el índice en formato binario. Las aristas se guardan por índice, así que
+     * también se guardan los nombres de las ciudades en orden para validar la lectura.
+     *
+     * @param out Flujo de salida.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(weatherCondition);
+        out.writeInt(numCities);
+        for (int i = 0; i < numCities; i++) {
+            out.writeUTF(graph.getCityName(i));
+        }
+        for (int value : rank) {
+            out.writeInt(value);
+        }
+        writeEdges(out, upOffsets, upTarget, upWeight, upMiddle);
+        writeEdges(out, downOffsets, downSource, downWeight, downMiddle);
+    }
+
+    /**
+     * Lee un índice escrito con {@link #writeTo(DataOutputStream)}.
+     *
+     * @param in Flujo de entrada.
+     * @param graph Grafo cuyas ciudades corresponden al índice.
+     * @return Índice leído.
+     * @throws IOException Si el archivo es inválido o no corresponde al grafo (otro número
+     *         de ciudades u otro orden, por ejemplo tras releer el grafo desde su archivo).
+     */
+    static ContractionHierarchy readFrom(DataInputStream in, Graph graph) throws IOException {
+        if (in.readInt() != FILE_MAGIC) {
+            throw new IOException("El archivo no contiene un índice de jerarquías de contracción.");
+        }
+        int weatherCondition = in.readInt();
+        int n = in.readInt();
+        if (n != graph.getNumCities()) {
+            throw new IOException("El índice tiene " + n + " ciudades pero el grafo tiene "
+                + graph.getNumCities() + ".");
+        }
+        for (int i = 0; i < n; i++) {
+            String name = in.readUTF();
+            if (!name.equals(graph.getCityName(i))) {
+                throw new IOException("La ciudad " + i + " del índice es " + name + " pero en el grafo es "
+                    + graph.getCityName(i) + "; hay que reconstruir el índice.");
+            }
+        }
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[i] = in.readInt();
+        }
+
+        int[] upOffsets = readInts(in, n + 1);
+        int upCount = upOffsets[n];
+        int[] upTarget = readInts(in, upCount);
+        double[] upWeight = readDoubles(in, upCount);
+        int[] upMiddle = readInts(in, upCount);
+
+        int[] downOffsets = readInts(in, n + 1);
+        int downCount = downOffsets[n];
+        int[] downSource = readInts(in, downCount);
+        double[] downWeight = readDoubles(in, downCount);
+        int[] downMiddle = readInts(in, downCount);
+
+        return new ContractionHierarchy(graph, weatherCondition, rank,
+            upOffsets, upTarget, upWeight, upMiddle, downOffsets, downSource, downWeight, downMiddle);
+    }
+
+    private static void writeEdges(DataOutputStream out, int[] offsets, int[] nodes,
+                                   double[] weights, int[] middles) throws IOException {
+        for (int value : offsets) {
+            out.writeInt(value);
+        }
+        for (int value : nodes) {
+            out.writeInt(value);
+        }
+        for (double value : weights) {
+            out.writeDouble(value);
+        }
+        for (int value : middles) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static double[] readDoubles(DataInputStream in, int count) throws IOException {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    /**
+     * Estado de una consulta, reutilizado por hilo; los arreglos se invalidan con un sello.
+     */
+    private static final class QueryState {
+        final double[] forwardDistance;
+        final double[] backwardDistance;
+        final int[] forwardStamp;
+        final int[] backwardStamp;
+        final int[] forwardParent;
+        final int[] forwardEdge;
+        final int[] backwardParent;
+        final int[] backwardEdge;
+        final NodeHeap forwardHeap;
+        final NodeHeap backwardHeap;
+        int stamp;
+        double best;
+        int meeting;
+
+        QueryState(int n) {
+            forwardDistance = new double[n];
+            backwardDistance = new double[n];
+            forwardStamp = new int[n];
+            backwardStamp = new int[n];
+            forwardParent = new int[n];
+            forwardEdge = new int[n];
+            backwardParent = new int[n];
+            backwardEdge = new int[n];
+            forwardHeap = new NodeHeap(64);
+            backwardHeap = new NodeHeap(64);
+        }
+
+        void reset() {
+            stamp++;
+            forwardHeap.clear();
+            backwardHeap.clear();
+        }
+
+        void visitForward(int node, double dist, int parent, int edge) {
+            forwardStamp[node] = stamp;
+            forwardDistance[node] = dist;
+            forwardParent[node] = parent;
+            forwardEdge[node] = edge;
+            forwardHeap.push(node, dist);
+        }
+
+        void visitBackward(int node, double dist, int parent, int edge) {
+            backwardStamp[node] = stamp;
+            backwardDistance[node] = dist;
+            backwardParent[node] = parent;
+            backwardEdge[node] = edge;
+            backwardHeap.push(node, dist);
+        }
+
+        void relaxForward(int node, double dist, int parent, int edge) {
+            if (forwardStamp[node] != stamp || dist < forwardDistance[node]) {
+                visitForward(node, dist, parent, edge);
+            }
+        }
+
+        void relaxBackward(int node, double dist, int parent, int edge) {
+            if (backwardStamp[node] != stamp || dist < backwardDistance[node]) {
+                visitBackward(node, dist, parent, edge);
+            }
+        }
+    }
+
+    /**
+     * Lista dinámica de aristas de un nodo durante la contracción.
+     */
+    private static final class EdgeList {
+        int[] nodes = new int[4];
+        double[] weights = new double[4];
+        int[] middles = new int[4];
+        int size;
+
+        int find(int node) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Agrega la arista o la reemplaza si la nueva es más corta.
+         */
+        void put(int node, double weight, int middle) {
+            int existing = find(node);
+            if (existing != -1) {
+                if (weight < weights[existing]) {
+                    weights[existing] = weight;
+                    middles[existing] = middle;
+                }
+                return;
+            }
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+                middles = Arrays.copyOf(middles, size * 2);
+            }
+            nodes[size] = node;
+            weights[size] = weight;
+            middles[size] = middle;
+            size++;
+        }
+    }
+
+    /**
+     * Construye la jerarquía a partir de una copia de las aristas del grafo.
+     */
+    private static final class Builder {
+        private final Graph graph;
+        private final int weatherCondition;
+        private final int n;
+        private final EdgeList[] out;
+        private final EdgeList[] in;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbors;
+
+        // Búsqueda de testigos
+        private final double[] witnessDistance;
+        private final int[] witnessStamp;
+        private final NodeHeap witnessHeap;
+        private int stamp;
+
+        // Aristas finales de cada nodo hacia/desde nodos de mayor rango
+        private final EdgeList[] up;
+        private final EdgeList[] down;
+
+        Builder(Graph graph, int weatherCondition, SparseGraph edges) {
+            this.graph = graph;
+            this.weatherCondition = weatherCondition;
+            this.n = edges.numCities;
+            this.out = new EdgeList[n];
+            this.in = new EdgeList[n];
+            this.up = new EdgeList[n];
+            this.down = new EdgeList[n];
+            for (int i = 0; i < n; i++) {
+                out[i] = new EdgeList();
+                in[i] = new EdgeList();
+            }
+            for (int i = 0; i < n; i++) {
+                for (int e = edges.outOffsets[i]; e < edges.outOffsets[i + 1]; e++) {
+                    int j = edges.outTarget[e];
+                    out[i].put(j, edges.outWeight[e], -1);
+                    in[j].put(i, edges.outWeight[e], -1);
+                }
+            }
+            this.contracted = new boolean[n];
+            this.contractedNeighbors = new int[n];
+            this.witnessDistance = new double[n];
+            this.witnessStamp = new int[n];
+            this.witnessHeap = new NodeHeap(64);
+        }
+
+        ContractionHierarchy build() {
+            int[] rank = new int[n];
+            PriorityQueue<long[]> queue = new PriorityQueue<>(Math.max(n, 1),
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            for (int v = 0; v < n; v++) {
+                queue.add(new long[] {priority(v), v});
+            }
+
+            int order = 0;
+            while (!queue.isEmpty()) {
+                long[] entry = queue.poll();
+                int v = (int) entry[1];
+
+                // Actualización perezosa: si la prioridad empeoró, se vuelve a encolar
+                long current = priority(v);
+                if (!queue.isEmpty() && current > queue.peek()[0]) {
+                    entry[0] = current;
+                    queue.add(entry);
+                    continue;
+                }
+
+                contract(v);
+                rank[v] = order++;
+            }
+
+            return toIndex(rank);
+        }
+
+        private long priority(int v) {
+            int degree = 0;
+            for (int i = 0; i < out[v].size; i++) {
+                if (!contracted[out[v].nodes[i]]) {
+                    degree++;
+                }
+            }
+            for (int i = 0; i < in[v].size; i++) {
+                if (!contracted[in[v].nodes[i]]) {
+                    degree++;
+                }
+            }
+            return (long) shortcuts(v, false) - degree + contractedNeighbors[v];
+        }
+
+        private void contract(int v) {
+            shortcuts(v, true);
+
+            up[v] = new EdgeList();
+            down[v] = new EdgeList();
+            for (int i = 0; i < out[v].size; i++) {
+                int w = out[v].nodes[i];
+                if (!contracted[w]) {
+                    up[v].put(w, out[v].weights[i], out[v].middles[i]);
+                    contractedNeighbors[w]++;
+                }
+            }
+            for (int i = 0; i < in[v].size; i++) {
+                int u = in[v].nodes[i];
+                if (!contracted[u]) {
+                    down[v].put(u, in[v].weights[i], in[v].middles[i]);
+                    contractedNeighbors[u]++;
+                }
+            }
+            contracted[v] = true;
+            out[v] = null;
+            in[v] = null;
+        }
+
+        /**
+         * Cuenta (y opcionalmente agrega) los atajos necesarios para contraer v.
+         */
+        private int shortcuts(int v, boolean apply) {
+            EdgeList incoming = in[v];
+            EdgeList outgoing = out[v];
+            int count = 0;
+
+            double maxOut = 0;
+            for (int j = 0; j < outgoing.size; j++) {
+                if (!contracted[outgoing.nodes[j]]) {
+                    maxOut = Math.max(maxOut, outgoing.weights[j]);
+                }
+            }
+
+            for (int i = 0; i < incoming.size; i++) {
+                int u = incoming.nodes[i];
+                if (contracted[u]) {
+                    continue;
+                }
+                double toV = incoming.weights[i];
+                witnessSearch(u, v, toV + maxOut);
+
+                for (int j = 0; j < outgoing.size; j++) {
+                    int w = outgoing.nodes[j];
+                    if (contracted[w] || w == u) {
+                        continue;
+                    }
+                    double via = toV + outgoing.weights[j];
+                    double witness = (witnessStamp[w] == stamp) ? witnessDistance[w] : INFINITY;
+                    if (witness > via) {
+                        count++;
+                        if (apply) {
+                            out[u].put(w, via, v);
+                            in[w].put(u, via, v);
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Dijkstra limitado desde u que ignora el nodo v y los nodos ya contraídos.
+         */
+        private void witnessSearch(int source, int excluded, double limit) {
+            stamp++;
+            witnessHeap.clear();
+            witnessStamp[source] = stamp;
+            witnessDistance[source] = 0;
+            witnessHeap.push(source, 0);
+            int settled = 0;
+
+            while (!witnessHeap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                double dist = witnessHeap.peekKey();
+                int node = witnessHeap.pop();
+                if (dist > witnessDistance[node]) {
+                    continue;
+                }
+                if (dist > limit) {
+                    break;
+                }
+                settled++;
+
+                EdgeList edges = out[node];
+                for (int i = 0; i < edges.size; i++) {
+                    int next = edges.nodes[i];
+                    if (next == excluded || contracted[next]) {
+                        continue;
+                    }
+                    double candidate = dist + edges.weights[i];
+                    if (witnessStamp[next] != stamp || candidate < witnessDistance[next]) {
+                        witnessStamp[next] = stamp;
+                        witnessDistance[next] = candidate;
+                        witnessHeap.push(next, candidate);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Compacta las listas finales en arreglos CSR.
+         */
+        private ContractionHierarchy toIndex(int[] rank) {
+            int[] upOffsets = new int[n + 1];
+            int[] downOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                upOffsets[v + 1] = upOffsets[v] + up[v].size;
+                downOffsets[v + 1] = downOffsets[v] + down[v].size;
+            }
+
+            int[] upTarget = new int[upOffsets[n]];
+            double[] upWeight = new double[upOffsets[n]];
+            int[] upMiddle = new int[upOffsets[n]];
+            int[] downSource = new int[downOffsets[n]];
+            double[] downWeight = new double[downOffsets[n]];
+            int[] downMiddle = new int[downOffsets[n]];
+
+            for (int v = 0; v < n; v++) {
+                System.arraycopy(up[v].nodes, 0, upTarget, upOffsets[v], up[v].size);
+                System.arraycopy(up[v].weights, 0, upWeight, upOffsets[v], up[v].size);
+                System.arraycopy(up[v].middles, 0, upMiddle, upOffsets[v], up[v].size);
+                System.arraycopy(down[v].nodes, 0, downSource, downOffsets[v], down[v].size);
+                System.arraycopy(down[v].weights, 0, downWeight, downOffsets[v], down[v].size);
+                System.arraycopy(down[v].middles, 0, downMiddle, downOffsets[v], down[v].size);
+            }
+
+            return new ContractionHierarchy(graph, weatherCondition, rank,
+                upOffsets, upTarget, upWeight, upMiddle, downOffsets, downSource, downWeight, downMiddle);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Clasificación de las conexiones más críticas de la red: para cada arista se mide cuánto
+ * empeorarían las distancias entre todos los pares si se cerrara.
+ *
+ * En lugar de ejecutar Floyd una vez por arista, se usan los árboles de rutas más cortas
+ * de la matriz next: una arista u→v que no es el siguiente salto de u hacia ningún destino
+ * no forma parte de esos árboles y cerrarla no cambia ninguna distancia, así que se descarta
+ * sin evaluarla. Las demás se evalúan en paralelo con {@link ScenarioEvaluator}, que solo
+ * recalcula las filas que usaban la arista.
+ */
+public class CriticalityAnalysis {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final Graph graph;
+    private final ScenarioEvaluator evaluator;
+    private int evaluatedEdges;
+    private int skippedEdges;
+
+    /**
+     * Constructor que toma como base la solución actual de Floyd. Se copia, así que volver
+     * a ejecutar Floyd no cambia el análisis.
+     *
+     * @param graph El grafo analizado.
+     * @param floyd Floyd ya ejecutado sobre el grafo para la condición climática deseada.
+     * @throws IllegalStateException si Floyd no se ha ejecutado.
+     */
+    public CriticalityAnalysis(Graph graph, Floyd floyd) {
+        this.graph = graph;
+        this.evaluator = new ScenarioEvaluator(graph, floyd);
+    }
+
+    /**
+     * Crea el análisis para una condición climática ejecutando Floyd sobre ella.
+     *
+     * @param graph El grafo analizado.
+     * @param weatherCondition Condición climática.
+     * @return Análisis listo para clasificar las conexiones.
+     */
+    public static CriticalityAnalysis forWeatherCondition(Graph graph, int weatherCondition) {
+        Floyd floyd = new Floyd(graph);
+        floyd.executeFloyd(weatherCondition);
+        return new CriticalityAnalysis(graph, floyd);
+    }
+
+    /**
+     * Clasifica las conexiones por impacto total (pares desconectados y suma de aumentos).
+     *
+     * @return Conexiones ordenadas de mayor a menor impacto.
+     */
+    public List<EdgeImpact> rankEdges() {
+        return rankEdges(EdgeImpact.BY_TOTAL_INCREASE);
+    }
+
+    /**
+     * Clasifica las conexiones según el orden indicado. Solo se incluyen las conexiones
+     * cuyo cierre cambia alguna distancia.
+     *
+     * @param order Orden de la clasificación (por ejemplo {@link EdgeImpact#BY_MAX_INCREASE}).
+     * @return Conexiones ordenadas de mayor a menor impacto.
+     */
+    public List<EdgeImpact> rankEdges(Comparator<EdgeImpact> order) {
+        int[][] next = evaluator.getBaseNext();
+        SparseGraph base = evaluator.getBaseGraph();
+        int n = base.numCities;
+
+        // Aristas que aparecen en algún árbol de rutas más cortas
+        List<int[]> candidates = new ArrayList<>();
+        boolean[] used = new boolean[n];
+        int total = 0;
+        for (int u = 0; u < n; u++) {
+            int[] row = next[u];
+            for (int j = 0; j < n; j++) {
+                if (row[j] >= 0) {
+                    used[row[j]] = true;
+                }
+            }
+            for (int p = base.outOffsets[u]; p < base.outOffsets[u + 1]; p++) {
+                int v = base.outTarget[p];
+                total++;
+                if (used[v]) {
+                    candidates.add(new int[] {u, v});
+                    used[v] = false;
+                }
+            }
+            for (int j = 0; j < n; j++) {
+                if (row[j] >= 0) {
+                    used[row[j]] = false;
+                }
+            }
+        }
+        evaluatedEdges = candidates.size();
+        skippedEdges = total - candidates.size();
+
+        List<EdgeImpact> ranking = IntStream.range(0, candidates.size())
+            .parallel()
+            .mapToObj(c -> evaluate(candidates.get(c)[0], candidates.get(c)[1]))
+            .filter(impact -> impact.getImpactedPairCount() > 0)
+            .collect(Collectors.toCollection(ArrayList::new));
+        ranking.sort(order);
+        return ranking;
+    }
+
+    /**
+     * Evalúa el cierre de una arista.
+     */
+    private EdgeImpact evaluate(int u, int v) {
+        ScenarioResult result = evaluator.evaluate(new int[] {u}, new int[] {v}, new double[] {INFINITY}, 1);
+        return new EdgeImpact(graph.getCityName(u), graph.getCityName(v),
+            evaluator.getBaseGraph().weight(u, v),
+            result.getImpactedPairCount(), result.getDisconnectedPairCount(),
+            result.getTotalIncrease(), result.getMaxIncrease());
+    }
+
+    /**
+     * Obtiene el número de conexiones evaluadas en la última clasificación.
+     *
+     * @return Conexiones evaluadas.
+     */
+    public int getEvaluatedEdgeCount() {
+        return evaluatedEdges;
+    }
+
+    /**
+     * Obtiene el número de conexiones descartadas por no estar en ninguna ruta más corta.
+     *
+     * @return Conexiones descartadas.
+     */
+    public int getSkippedEdgeCount() {
+        return skippedEdges;
+    }
+
+    /**
+     * Muestra en consola las conexiones más críticas.
+     *
+     * @param ranking Clasificación obtenida con {@link #rankEdges()}.
+     * @param limit Número máximo de conexiones a mostrar.
+     */
+    public static void displayReport(List<EdgeImpact> ranking, int limit) {
+        System.out.println("\nConexiones más críticas:");
+        if (ranking.isEmpty()) {
+            System.out.println("Ningún cierre individual cambia las distancias.");
+            return;
+        }
+        for (int i = 0; i < Math.min(limit, ranking.size()); i++) {
+            System.out.println((i + 1) + ". " + ranking.get(i));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ejemplo;
+
+/**
+ * Resultado de una consulta aproximada de distancia con sus cotas garantizadas.
+ * La distancia real siempre está en el intervalo [cota inferior, estimación].
+ *
+ * Una estimación infinita puede significar dos cosas: que se demostró que no existe ruta
+ * ({@link #isUnreachable()}) o que ningún punto de referencia permitió acotarla, en cuyo
+ * caso puede existir una ruta de cualquier longitud mayor o igual a la cota inferior.
+ */
+public class DistanceEstimate {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final double estimate;
+    private final double lowerBound;
+    private final boolean unreachable;
+
+    /**
+     * Constructor que crea una estimación con sus cotas.
+     *
+     * @param estimate Cota superior (longitud de una ruta real) o infinito si no se conoce
+     *        ninguna ruta.
+     * @param lowerBound Cota inferior de la distancia real.
+     */
+    public DistanceEstimate(double estimate, double lowerBound) {
+        this(estimate, lowerBound, false);
+    }
+
+    private DistanceEstimate(double estimate, double lowerBound, boolean unreachable) {
+        this.estimate = estimate;
+        this.lowerBound = lowerBound;
+        this.unreachable = unreachable;
+    }
+
+    /**
+     * Crea el resultado de un par para el que se demostró que no existe ruta.
+     *
+     * @return Estimación con ambas cotas infinitas.
+     */
+    public static DistanceEstimate unreachable() {
+        return new DistanceEstimate(INFINITY, INFINITY, true);
+    }
+
+    /**
+     * Obtiene la distancia estimada (cota superior alcanzable por una ruta real).
+     *
+     * @return Distancia estimada, o infinito si no existe ruta o no se conoce ninguna
+     *         (ver {@link #isUnreachable()}).
+     */
+    public double getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Obtiene la cota inferior de la distancia real.
+     *
+     * @return Cota inferior.
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Obtiene el factor de estiramiento máximo garantizado (estimación / cota inferior).
+     *
+     * @return Factor de estiramiento, 1 si la estimación es exacta o infinito si no está acotado.
+     */
+    public double getStretchBound() {
+        if (estimate == lowerBound) {
+            return 1.0;
+        }
+        if (lowerBound <= 0 || estimate == INFINITY) {
+            return INFINITY;
+        }
+        return estimate / lowerBound;
+    }
+
+    /**
+     * Indica si se demostró que no existe ruta entre las ciudades.
+     *
+     * @return true si el destino no es alcanzable; false si existe ruta o no se sabe.
+     */
+    public boolean isUnreachable() {
+        return unreachable;
+    }
+
+    /**
+     * Indica si la estimación coincide con la distancia real.
+     *
+     * @return true si las cotas coinciden y existe ruta; false para pares sin ruta.
+     */
+    public boolean isExact() {
+        return !unreachable && estimate == lowerBound;
+    }
+
+    @Override
+    public String toString() {
+        if (unreachable) {
+            return "sin ruta";
+        }
+        if (estimate == INFINITY) {
+            return String.format("desconocida [>= %.1f]", lowerBound);
+        }
+        return String.format("%.1f [>= %.1f]", estimate, lowerBound);
+    }
+}
@@ -0,0 +1,246 @@
+package com.ejemplo;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Oráculo aproximado de distancias basado en puntos de referencia (landmarks).
+ *
+ * Para L puntos de referencia se guardan las distancias desde y hacia cada uno, lo que
+ * ocupa O(L·n) en lugar de O(n²). Cada consulta cuesta O(L) y devuelve una estimación
+ * (la mejor ruta que pasa por algún punto de referencia) junto con una cota inferior
+ * obtenida por la desigualdad triangular, de modo que el estiramiento de cada respuesta
+ * queda certificado. Más puntos de referencia dan cotas más ajustadas a cambio de memoria.
+ *
+ * Sin más parámetros no se garantiza ningún estiramiento: la cota inferior suele ser 0
+ * (por ejemplo, si el origen y el destino están a la misma distancia de todos los puntos)
+ * y entonces {@link DistanceEstimate#getStretchBound()} es infinito. Con un estiramiento
+ * máximo (1.5 a 3 es lo habitual) las consultas cuyo estiramiento certificado lo supera
+ * se resuelven con una búsqueda exacta sobre la copia dispersa del grafo, O(m) en memoria;
+ * un objetivo más holgado hace menos búsquedas y uno más estricto más.
+ */
+public class DistanceOracle {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final Graph graph;
+    private final int weatherCondition;
+    private final int[] landmarks;
+    private final double[][] fromLandmark; // [punto][ciudad] distancia punto→ciudad
+    private final double[][] toLandmark;   // [punto][ciudad] distancia ciudad→punto
+    private final double maxStretch;
+    private final SparseGraph sparse;      // Solo si hay estiramiento máximo
+    private final ThreadLocal<double[]> distances;
+    private final ThreadLocal<NodeHeap> heaps;
+    private final AtomicLong exactQueries = new AtomicLong();
+
+    private DistanceOracle(Graph graph, int weatherCondition, int[] landmarks,
+                           double[][] fromLandmark, double[][] toLandmark,
+                           double maxStretch, SparseGraph sparse) {
+        this.graph = graph;
+        this.weatherCondition = weatherCondition;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+        this.maxStretch = maxStretch;
+        this.sparse = maxStretch == INFINITY ? null : sparse;
+        final int n = sparse.numCities;
+        this.distances = ThreadLocal.withInitial(() -> new double[n]);
+        this.heaps = ThreadLocal.withInitial(() -> new NodeHeap(64));
+    }
+
+    /**
+     * Construye el oráculo eligiendo los puntos de referencia por el método del punto
+     * más lejano, que reparte los puntos por toda la red (incluidas regiones desconectadas).
+     *
+     * @param graph El grafo de origen.
+     * @param weatherCondition Condición climática.
+     * @param landmarkCount Número de puntos de referencia (controla memoria frente a precisión).
+     * @return Oráculo construido, sin estiramiento garantizado.
+     */
+    public static DistanceOracle build(Graph graph, int weatherCondition, int landmarkCount) {
+        return build(graph, weatherCondition, landmarkCount, INFINITY);
+    }
+
+    /**
+     * Construye el oráculo con un estiramiento máximo garantizado para cada respuesta.
+     *
+     * @param graph El grafo de origen.
+     * @param weatherCondition Condición climática.
+     * @param landmarkCount Número de puntos de referencia (controla memoria frente a precisión).
+     * @param maxStretch Estiramiento máximo (estimación / cota inferior) aceptado sin búsqueda
+     *        exacta, mayor o igual a 1; infinito para no garantizar ninguno.
+     * @return Oráculo construido.
+     * @throws IllegalArgumentException si el estiramiento es menor que 1.
+     */
+    public static DistanceOracle build(Graph graph, int weatherCondition, int landmarkCount,
+                                       double maxStretch) {
+        if (!(maxStretch >= 1.0)) {
+            throw new IllegalArgumentException("El estiramiento máximo debe ser al menos 1: " + maxStretch);
+        }
+        SparseGraph sparse = SparseGraph.of(graph, weatherCondition);
+        int n = sparse.numCities;
+        int count = Math.max(0, Math.min(landmarkCount, n));
+
+        int[] landmarks = new int[count];
+        double[][] fromLandmark = new double[count][n];
+        double[][] toLandmark = new double[count][n];
+        double[] closest = new double[n];
+        Arrays.fill(closest, INFINITY);
+        NodeHeap heap = new NodeHeap(64);
+
+        // El primer punto es la ciudad con más conexiones
+        int candidate = 0;
+        for (int i = 1; i < n; i++) {
+            if (degree(sparse, i) > degree(sparse, candidate)) {
+                candidate = i;
+            }
+        }
+
+        for (int l = 0; l < count; l++) {
+            landmarks[l] = candidate;
+            sparse.shortestPaths(candidate, false, fromLandmark[l], null, heap);
+            sparse.shortestPaths(candidate, true, toLandmark[l], null, heap);
+
+            // Siguiente punto: la ciudad más alejada de todos los puntos elegidos
+            double farthest = -1;
+            int next = -1;
+            for (int i = 0; i < n; i++) {
+                double d = Math.min(fromLandmark[l][i], toLandmark[l][i]);
+                closest[i] = Math.min(closest[i], d);
+                if (closest[i] > farthest && closest[i] > 0) {
+                    farthest = closest[i];
+                    next = i;
+                }
+            }
+            if (next == -1) {
+                landmarks = Arrays.copyOf(landmarks, l + 1);
+                fromLandmark = Arrays.copyOf(fromLandmark, l + 1);
+                toLandmark = Arrays.copyOf(toLandmark, l + 1);
+                break;
+            }
+            candidate = next;
+        }
+
+        return new DistanceOracle(graph, weatherCondition, landmarks, fromLandmark, toLandmark,
+            maxStretch, sparse);
+    }
+
+    private static int degree(SparseGraph sparse, int node) {
+        return sparse.outOffsets[node + 1] - sparse.outOffsets[node]
+            + sparse.inOffsets[node + 1] - sparse.inOffsets[node];
+    }
+
+    /**
+     * Obtiene la condición climática del oráculo.
+     *
+     * @return Condición climática.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene el número de puntos de referencia usados.
+     *
+     * @return Número de puntos de referencia.
+     */
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Obtiene el estiramiento máximo garantizado.
+     *
+     * @return Estiramiento máximo, o infinito si no se garantiza ninguno.
+     */
+    public double getMaxStretch() {
+        return maxStretch;
+    }
+
+    /**
+     * Obtiene cuántas consultas superaron el estiramiento máximo y se resolvieron con una
+     * búsqueda exacta. Sirve para ajustar el número de puntos y el estiramiento.
+     *
+     * @return Número de búsquedas exactas realizadas.
+     */
+    public long getExactQueryCount() {
+        return exactQueries.get();
+    }
+
+    /**
+     * Estima la distancia entre dos ciudades con cotas garantizadas.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Estimación con cota inferior; sin ruta si alguna ciudad no existe.
+     */
+    public DistanceEstimate estimateDistance(String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1) {
+            return DistanceEstimate.unreachable();
+        }
+        return estimateDistance(fromIndex, toIndex);
+    }
+
+    /**
+     * Estima la distancia entre dos ciudades dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @return Estimación con cota inferior. Es "sin ruta" solo si algún punto de referencia
+     *         lo demuestra; si ninguno acota el par la estimación es infinita pero puede
+     *         existir ruta. Con estiramiento máximo, su estiramiento nunca lo supera.
+     */
+    public DistanceEstimate estimateDistance(int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return new DistanceEstimate(0, 0);
+        }
+
+        double upper = INFINITY;
+        double lower = 0;
+        for (int l = 0; l < landmarks.length; l++) {
+            double fromU = fromLandmark[l][fromIndex];
+            double fromV = fromLandmark[l][toIndex];
+            double toU = toLandmark[l][fromIndex];
+            double toV = toLandmark[l][toIndex];
+
+            if (toU != INFINITY && fromV != INFINITY) {
+                upper = Math.min(upper, toU + fromV);
+            }
+
+            // d(l,v) <= d(l,u) + d(u,v)  y  d(u,l) <= d(u,v) + d(v,l)
+            if (fromU != INFINITY) {
+                if (fromV == INFINITY) {
+                    return DistanceEstimate.unreachable(); // v no es alcanzable desde u
+                }
+                lower = Math.max(lower, fromV - fromU);
+            }
+            if (toV != INFINITY) {
+                if (toU == INFINITY) {
+                    return DistanceEstimate.unreachable();
+                }
+                lower = Math.max(lower, toU - toV);
+            }
+        }
+
+        if (lower > upper) {
+            lower = upper; // Protección ante redondeo
+        }
+        DistanceEstimate estimate = new DistanceEstimate(upper, lower);
+        if (sparse != null && estimate.getStretchBound() > maxStretch) {
+            return exactDistance(fromIndex, toIndex);
+        }
+        return estimate;
+    }
+
+    private DistanceEstimate exactDistance(int fromIndex, int toIndex) {
+        exactQueries.incrementAndGet();
+        double[] dist = distances.get();
+        sparse.shortestPaths(fromIndex, false, dist, null, heaps.get());
+        if (dist[toIndex] == INFINITY) {
+            return DistanceEstimate.unreachable();
+        }
+        return new DistanceEstimate(dist[toIndex], dist[toIndex]);
+    }
+}
@@ -0,0 +1,411 @@
+package com.ejemplo;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Algoritmo de Floyd repartido por bloques de filas entre varios procesos trabajadores
+ * ({@link FloydWorker}) de la misma máquina, para grafos cuyas matrices no caben en el
+ * heap de una sola JVM.
+ *
+ * Las matrices de distancias y siguientes nodos viven en un archivo compartido que cada
+ * trabajador mapea solo en su bloque, así que ocupan la caché de páginas y no el heap. En
+ * cada fase k el coordinador da la orden a todos los trabajadores, cada uno lee la fila
+ * pivote k del archivo (la difusión) y relaja su bloque en paralelo con los demás, y el
+ * coordinador espera a todos antes de la fase siguiente (la barrera). Las órdenes y
+ * respuestas viajan por la entrada y salida estándar de cada proceso. Las consultas se
+ * envían al trabajador dueño de la fila de origen.
+ *
+ * El coordinador tampoco guarda matrices: las filas iniciales se escriben desde una copia
+ * dispersa de la capa, tomada con el grafo bloqueado, o directamente desde el archivo de
+ * aristas ({@link #fromEdgeFile(String, int)}) sin construir nunca el grafo denso. Cada
+ * respuesta de un trabajador se espera como máximo {@link #getTimeoutMillis()}; un
+ * trabajador colgado produce una IOException en lugar de bloquear al coordinador.
+ */
+public class DistributedFloyd implements Closeable {
+    private static final double INFINITY = Double.MAX_VALUE;
+    private static final String WORKER_CLASS = "com.ejemplo.FloydWorker";
+    private static final long DEFAULT_TIMEOUT_MILLIS = 60000;
+    private static final String END_OF_STREAM = "\u0000fin"; // Marca del cierre de la salida de un trabajador
+
+    private final CityRegistry cities;
+    private final IntFunction<SparseGraph> layers; // Copia dispersa de cada capa
+    private final int numCities;
+    private final File file;
+    private final int[] blockStart; // El trabajador w es dueño de las filas [blockStart[w], blockStart[w + 1])
+    private final Process[] workers;
+    private final PrintWriter[] commands;
+    private final List<BlockingQueue<String>> replies;
+    private volatile long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private int weatherCondition;
+
+    /**
+     * Constructor que crea el archivo compartido y lanza los procesos trabajadores.
+     *
+     * @param graph El grafo sobre el cual se ejecutará el algoritmo.
+     * @param workerCount Número de procesos trabajadores.
+     * @throws IOException Si no se puede crear el archivo o lanzar algún trabajador.
+     * @throws IllegalArgumentException si el número de trabajadores no es válido o algún
+     *         bloque excede lo que un proceso puede mapear.
+     */
+    public DistributedFloyd(Graph graph, int workerCount) throws IOException {
+        this(copyCities(graph), weatherCondition -> SparseGraph.of(graph, weatherCondition), workerCount);
+    }
+
+    /**
+     * Crea el cálculo a partir de un archivo de aristas (el formato de
+     * {@link FileHandler#readGraphFromFile(String)}), sin construir el grafo denso: solo se
+     * guardan las ciudades y una copia dispersa de cada capa.
+     *
+     * @param filename Archivo de aristas.
+     * @param workerCount Número de procesos trabajadores.
+     * @return Cálculo listo para ejecutar.
+     * @throws IOException Si no se puede leer el archivo o lanzar algún trabajador.
+     * @throws IllegalArgumentException si el número de trabajadores no es válido.
+     */
+    public static DistributedFloyd fromEdgeFile(String filename, int workerCount) throws IOException {
+        GraphBuilder builder = FileHandler.readEdges(filename, false);
+        SparseGraph[] sparse = new SparseGraph[Graph.NUM_WEATHER_CONDITIONS];
+        for (int k = 0; k < sparse.length; k++) {
+            sparse[k] = builder.buildSparse(k);
+        }
+        return new DistributedFloyd(builder.getCities(), weatherCondition -> sparse[weatherCondition], workerCount);
+    }
+
+    private static CityRegistry copyCities(Graph graph) {
+        List<String> names = graph.getCities();
+        CityRegistry copy = new CityRegistry(names.size());
+        for (String name : names) {
+            copy.add(name);
+        }
+        return copy;
+    }
+
+    private DistributedFloyd(CityRegistry cities, IntFunction<SparseGraph> layers, int workerCount) throws IOException {
+        int n = cities.size();
+        if (workerCount < 1 || workerCount > Math.max(n, 1)) {
+            throw new IllegalArgumentException("Número de trabajadores inválido: " + workerCount);
+        }
+        this.cities = cities;
+        this.layers = layers;
+        this.numCities = n;
+        this.weatherCondition = -1;
+        this.blockStart = new int[workerCount + 1];
+        for (int w = 0; w <= workerCount; w++) {
+            blockStart[w] = (int) ((long) n * w / workerCount);
+        }
+        long largestBlock = (long) (n + workerCount - 1) / workerCount * n * Double.BYTES;
+        if (largestBlock > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cada bloque debe ocupar menos de 2 GB; use más trabajadores");
+        }
+
+        this.file = File.createTempFile("floyd", ".mat");
+        file.deleteOnExit();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            channel.write(ByteBuffer.allocate(1), nextOffset(n) + (long) n * n * Integer.BYTES - 1);
+        }
+
+        this.workers = new Process[workerCount];
+        this.commands = new PrintWriter[workerCount];
+        this.replies = new ArrayList<>(workerCount);
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        try {
+            for (int w = 0; w < workerCount; w++) {
+                ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    WORKER_CLASS, file.getPath(), String.valueOf(n),
+                    String.valueOf(blockStart[w]), String.valueOf(blockStart[w + 1]));
+                builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+                workers[w] = builder.start();
+                commands[w] = new PrintWriter(new OutputStreamWriter(workers[w].getOutputStream(), "UTF-8"));
+                replies.add(startReader(w, new BufferedReader(
+                    new InputStreamReader(workers[w].getInputStream(), "UTF-8"))));
+            }
+            for (int w = 0; w < workerCount; w++) {
+                expect(w, "listo");
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lee en un hilo aparte las respuestas de un trabajador, para poder esperarlas con un
+     * tiempo máximo.
+     */
+    private static BlockingQueue<String> startReader(int worker, BufferedReader reader) {
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+        Thread thread = new Thread(() -> {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    queue.add(line);
+                }
+            } catch (IOException e) {
+                // El proceso terminó; se avisa igual que con el final de la salida
+            }
+            queue.add(END_OF_STREAM);
+        }, "floyd-worker-" + worker);
+        thread.setDaemon(true);
+        thread.start();
+        return queue;
+    }
+
+    /**
+     * Posición de la matriz de siguientes nodos dentro del archivo compartido.
+     */
+    static long nextOffset(int n) {
+        return (long) n * n * Double.BYTES;
+    }
+
+    /**
+     * Ejecuta el algoritmo de Floyd para una condición climática específica.
+     *
+     * @param weatherCondition Condición climática para la cual se calcularán las rutas.
+     * @throws IOException Si falla el archivo compartido o algún trabajador.
+     */
+    public void executeFloyd(int weatherCondition) throws IOException {
+        this.weatherCondition = -1;
+        initializeMatrices(weatherCondition);
+        for (int k = 0; k < numCities; k++) {
+            for (int w = 0; w < workers.length; w++) {
+                commands[w].println("fase " + k);
+                commands[w].flush();
+            }
+            for (int w = 0; w < workers.length; w++) {
+                expect(w, "ok");
+            }
+        }
+        this.weatherCondition = weatherCondition;
+    }
+
+    /**
+     * Escribe las matrices iniciales en el archivo fila por fila desde la copia dispersa de
+     * la capa, sin copiar ninguna matriz al heap. Las ciudades agregadas al grafo después
+     * de crear el cálculo se ignoran.
+     */
+    private void initializeMatrices(int weatherCondition) throws IOException {
+        int n = numCities;
+        SparseGraph sparse = layers.apply(weatherCondition);
+        double[] distance = new double[n];
+        int[] next = new int[n];
+        ByteBuffer distanceRow = ByteBuffer.allocateDirect(n * Double.BYTES).order(ByteOrder.nativeOrder());
+        ByteBuffer nextRow = ByteBuffer.allocateDirect(n * Integer.BYTES).order(ByteOrder.nativeOrder());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            for (int i = 0; i < n; i++) {
+                Arrays.fill(distance, INFINITY);
+                Arrays.fill(next, -1);
+                distance[i] = 0;
+                for (int e = sparse.outOffsets[i]; e < sparse.outOffsets[i + 1]; e++) {
+                    int j = sparse.outTarget[e];
+                    if (j < n) {
+                        distance[j] = sparse.outWeight[e];
+                        next[j] = j;
+                    }
+                }
+                distanceRow.clear();
+                nextRow.clear();
+                distanceRow.asDoubleBuffer().put(distance);
+                nextRow.asIntBuffer().put(next);
+                distanceRow.position(distanceRow.capacity());
+                nextRow.position(nextRow.capacity());
+                distanceRow.flip();
+                nextRow.flip();
+                writeFully(channel, distanceRow, (long) i * n * Double.BYTES);
+                writeFully(channel, nextRow, nextOffset(n) + (long) i * n * Integer.BYTES);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Obtiene la condición climática para la cual se resolvieron las matrices.
+     *
+     * @return Condición climática o -1 si el algoritmo aún no se ha ejecutado.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene el tiempo máximo de espera de cada respuesta de un trabajador.
+     *
+     * @return Tiempo máximo en milisegundos.
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Cambia el tiempo máximo de espera de cada respuesta de un trabajador.
+     *
+     * @param timeoutMillis Tiempo máximo en milisegundos (mayor que cero).
+     * @throws IllegalArgumentException si el tiempo no es positivo.
+     */
+    public void setTimeoutMillis(long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("El tiempo máximo debe ser positivo: " + timeoutMillis);
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Obtiene el número de procesos trabajadores.
+     *
+     * @return Número de trabajadores.
+     */
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Obtiene el trabajador dueño de una fila.
+     *
+     * @param row Índice de la ciudad de origen.
+     * @return Número de trabajador.
+     */
+    public int getOwner(int row) {
+        int w = (int) ((long) row * workers.length / Math.max(numCities, 1));
+        while (row >= blockStart[w + 1]) {
+            w++;
+        }
+        while (row < blockStart[w]) {
+            w--;
+        }
+        return w;
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades, consultando al dueño de la fila.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return La distancia más corta o infinito si no existe ruta.
+     * @throws IOException Si falla la comunicación con el trabajador.
+     */
+    public double getShortestDistance(String fromCity, String toCity) throws IOException {
+        int fromIndex = cities.indexOf(fromCity);
+        int toIndex = cities.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1 || fromIndex >= numCities || toIndex >= numCities) {
+            return INFINITY;
+        }
+        return Double.parseDouble(ask(getOwner(fromIndex), "d " + fromIndex + " " + toIndex));
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ciudades. Cada salto se consulta al dueño de la
+     * fila del nodo actual.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Lista de nombres de ciudades que forman la ruta más corta (vacía si no existe).
+     * @throws IOException Si falla la comunicación con algún trabajador.
+     */
+    public List<String> getShortestPath(String fromCity, String toCity) throws IOException {
+        if (getShortestDistance(fromCity, toCity) == INFINITY) {
+            return Collections.emptyList();
+        }
+        int current = cities.indexOf(fromCity);
+        int toIndex = cities.indexOf(toCity);
+        List<String> path = new ArrayList<>();
+        path.add(cities.nameOf(current));
+        while (current != toIndex) {
+            current = Integer.parseInt(ask(getOwner(current), "n " + current + " " + toIndex));
+            if (current == -1 || path.size() > numCities) {
+                return Collections.emptyList();
+            }
+            path.add(cities.nameOf(current));
+        }
+        return path;
+    }
+
+    private String ask(int worker, String command) throws IOException {
+        commands[worker].println(command);
+        commands[worker].flush();
+        String reply = receive(worker);
+        if (reply == null || reply.startsWith("error")) {
+            throw new IOException("El trabajador " + worker + " no respondió a '" + command + "': " + reply);
+        }
+        return reply;
+    }
+
+    /**
+     * Espera una respuesta concreta de un trabajador.
+     *
+     * @throws IOException si la respuesta es otra, el trabajador terminó o no respondió a tiempo.
+     */
+    void expect(int worker, String expected) throws IOException {
+        String reply = receive(worker);
+        if (!expected.equals(reply)) {
+            throw new IOException("El trabajador " + worker + " respondió '" + reply + "' en lugar de '" + expected + "'");
+        }
+    }
+
+    /**
+     * Espera la siguiente respuesta de un trabajador.
+     *
+     * @return La respuesta o null si el trabajador terminó.
+     * @throws IOException si no responde dentro del tiempo máximo.
+     */
+    private String receive(int worker) throws IOException {
+        String reply;
+        try {
+            reply = replies.get(worker).poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Se interrumpió la espera del trabajador " + worker);
+        }
+        if (reply == null) {
+            throw new IOException("El trabajador " + worker + " no respondió en " + timeoutMillis + " ms");
+        }
+        return reply == END_OF_STREAM ? null : reply;
+    }
+
+    /**
+     * Detiene los trabajadores y elimina el archivo compartido.
+     */
+    @Override
+    public void close() {
+        for (int w = 0; w < workers.length; w++) {
+            if (workers[w] == null) {
+                continue;
+            }
+            commands[w].println("fin");
+            commands[w].flush();
+            try {
+                if (!workers[w].waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    workers[w].destroyForcibly(); // No atendió la orden de terminar
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                workers[w].destroyForcibly();
+            }
+            workers[w] = null;
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,124 @@
+package com.ejemplo;
+
+import java.util.Comparator;
+
+/**
+ * Impacto de cerrar una conexión: cuántos pares origen-destino pierden su ruta y cuánto
+ * aumentan las distancias de los que siguen conectados.
+ */
+public class EdgeImpact {
+    /**
+     * Orden por impacto total: primero los pares desconectados y después la suma de aumentos.
+     */
+    public static final Comparator<EdgeImpact> BY_TOTAL_INCREASE =
+        Comparator.comparingLong(EdgeImpact::getDisconnectedPairCount)
+            .thenComparingDouble(EdgeImpact::getTotalIncrease)
+            .reversed();
+
+    /**
+     * Orden por peor caso: primero los pares desconectados y después el mayor aumento.
+     */
+    public static final Comparator<EdgeImpact> BY_MAX_INCREASE =
+        Comparator.comparingLong(EdgeImpact::getDisconnectedPairCount)
+            .thenComparingDouble(EdgeImpact::getMaxIncrease)
+            .reversed();
+
+    private final String fromCity;
+    private final String toCity;
+    private final double travelTime;
+    private final long impactedPairs;
+    private final long disconnectedPairs;
+    private final double totalIncrease;
+    private final double maxIncrease;
+
+    /**
+     * Constructor que crea el impacto de una conexión.
+     *
+     * @param fromCity Ciudad de origen de la conexión.
+     * @param toCity Ciudad destino de la conexión.
+     * @param travelTime Tiempo de viaje de la conexión.
+     * @param impactedPairs Pares cuya distancia cambia al cerrarla.
+     * @param disconnectedPairs Pares que quedan sin ruta.
+     * @param totalIncrease Suma de aumentos de los pares que siguen conectados.
+     * @param maxIncrease Mayor aumento entre los pares que siguen conectados.
+     */
+    public EdgeImpact(String fromCity, String toCity, double travelTime, long impactedPairs,
+                      long disconnectedPairs, double totalIncrease, double maxIncrease) {
+        this.fromCity = fromCity;
+        this.toCity = toCity;
+        this.travelTime = travelTime;
+        this.impactedPairs = impactedPairs;
+        this.disconnectedPairs = disconnectedPairs;
+        this.totalIncrease = totalIncrease;
+        this.maxIncrease = maxIncrease;
+    }
+
+    /**
+     * Obtiene la ciudad de origen de la conexión.
+     *
+     * @return Ciudad de origen.
+     */
+    public String getFromCity() {
+        return fromCity;
+    }
+
+    /**
+     * Obtiene la ciudad destino de la conexión.
+     *
+     * @return Ciudad destino.
+     */
+    public String getToCity() {
+        return toCity;
+    }
+
+    /**
+     * Obtiene el tiempo de viaje de la conexión.
+     *
+     * @return Tiempo de viaje.
+     */
+    public double getTravelTime() {
+        return travelTime;
+    }
+
+    /**
+     * Obtiene el número de pares cuya distancia cambia al cerrar la conexión.
+     *
+     * @return Pares afectados.
+     */
+    public long getImpactedPairCount() {
+        return impactedPairs;
+    }
+
+    /**
+     * Obtiene el número de pares que quedan sin ruta al cerrar la conexión.
+     *
+     * @return Pares desconectados.
+     */
+    public long getDisconnectedPairCount() {
+        return disconnectedPairs;
+    }
+
+    /**
+     * Obtiene la suma de aumentos de distancia de los pares que siguen conectados.
+     *
+     * @return Aumento total.
+     */
+    public double getTotalIncrease() {
+        return totalIncrease;
+    }
+
+    /**
+     * Obtiene el mayor aumento de distancia entre los pares que siguen conectados.
+     *
+     * @return Aumento máximo.
+     */
+    public double getMaxIncrease() {
+        return maxIncrease;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s -> %s (%.1f): %d pares afectados, %d sin ruta, +%.1f total, +%.1f máximo",
+            fromCity, toCity, travelTime, impactedPairs, disconnectedPairs, totalIncrease, maxIncrease);
+    }
+}
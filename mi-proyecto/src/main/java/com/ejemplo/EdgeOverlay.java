@@ -0,0 +1,144 @@
+package com.ejemplo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Escenario hipotético sobre una capa climática del grafo: un conjunto de cierres de
+ * aristas o cambios de tiempo de viaje que se evalúan sin modificar el grafo real.
+ * Las ciudades inexistentes se ignoran, igual que en {@link Graph#removeEdge(String, String)}.
+ * Si el grafo es no dirigido cada cambio aplica a ambos sentidos, como en el grafo real.
+ */
+public class EdgeOverlay {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final Graph graph;
+    private final int weatherCondition;
+    private final Map<Long, Double> changes; // (origen << 32 | destino) -> nuevo peso
+
+    /**
+     * Constructor que crea un escenario vacío.
+     *
+     * @param graph El grafo base (no se modifica).
+     * @param weatherCondition Condición climática a la que aplica el escenario.
+     */
+    public EdgeOverlay(Graph graph, int weatherCondition) {
+        this.graph = graph;
+        this.weatherCondition = weatherCondition;
+        this.changes = new LinkedHashMap<>();
+    }
+
+    /**
+     * Crea una copia independiente del escenario.
+     *
+     * @return Nuevo escenario con los mismos cambios.
+     */
+    public EdgeOverlay copy() {
+        EdgeOverlay copy = new EdgeOverlay(graph, weatherCondition);
+        copy.changes.putAll(changes);
+        return copy;
+    }
+
+    /**
+     * Cierra hipotéticamente la conexión entre dos ciudades.
+     *
+     * @param from Ciudad de origen.
+     * @param to Ciudad destino.
+     * @return Este escenario, para encadenar cambios.
+     */
+    public EdgeOverlay closeEdge(String from, String to) {
+        return setEdgeWeight(from, to, INFINITY);
+    }
+
+    /**
+     * Cambia hipotéticamente el tiempo de viaje entre dos ciudades
+     * (crea la conexión si no existía).
+     *
+     * @param from Ciudad de origen.
+     * @param to Ciudad destino.
+     * @param time Nuevo tiempo de viaje.
+     * @return Este escenario, para encadenar cambios.
+     */
+    public EdgeOverlay setEdgeWeight(String from, String to, double time) {
+        int fromIndex = graph.indexOf(from);
+        int toIndex = graph.indexOf(to);
+        if (fromIndex != -1 && toIndex != -1 && fromIndex != toIndex) {
+            setEdgeWeight(fromIndex, toIndex, time);
+        }
+        return this;
+    }
+
+    /**
+     * Cambia hipotéticamente el tiempo de viaje entre dos ciudades dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @param time Nuevo tiempo de viaje (infinito para cerrar la conexión).
+     * @return Este escenario, para encadenar cambios.
+     */
+    public EdgeOverlay setEdgeWeight(int fromIndex, int toIndex, double time) {
+        changes.put(key(fromIndex, toIndex), time);
+        if (graph.isUndirected()) {
+            changes.put(key(toIndex, fromIndex), time);
+        }
+        return this;
+    }
+
+    /**
+     * Obtiene el peso de una arista en el escenario (el cambio o, si no hay, el del grafo).
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @return Peso de la arista en el escenario.
+     */
+    public double getEdgeWeight(int fromIndex, int toIndex) {
+        Double changed = changes.get(key(fromIndex, toIndex));
+        return (changed != null) ? changed : graph.getEdgeWeight(fromIndex, toIndex, weatherCondition);
+    }
+
+    /**
+     * Obtiene la condición climática del escenario.
+     *
+     * @return Condición climática.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene el número de aristas modificadas (en un grafo no dirigido cada conexión
+     * cuenta una vez por sentido).
+     *
+     * @return Número de cambios.
+     */
+    public int getChangeCount() {
+        return changes.size();
+    }
+
+    /**
+     * Obtiene el grafo base del escenario.
+     *
+     * @return Grafo base.
+     */
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Copia los cambios en arreglos paralelos.
+     */
+    void exportChanges(int[] from, int[] to, double[] weight) {
+        int c = 0;
+        for (Map.Entry<Long, Double> entry : changes.entrySet()) {
+            long key = entry.getKey();
+            from[c] = (int) (key >>> 32);
+            to[c] = (int) key;
+            weight[c] = entry.getValue();
+            c++;
+        }
+    }
+
+    private static long key(int fromIndex, int toIndex) {
+        return ((long) fromIndex << 32) | (toIndex & 0xFFFFFFFFL);
+    }
+}
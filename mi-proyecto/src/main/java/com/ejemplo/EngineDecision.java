@@ -0,0 +1,171 @@
+package com.ejemplo;
+
+/**
+ * Registro de una decisión de {@link RouteEngine}: los datos con los que se estimó el costo
+ * de cada estrategia, la estrategia elegida y cuánto tardó en realidad, para poder auditar
+ * y ajustar el modelo de costo.
+ */
+public class EngineDecision {
+    private final int weatherCondition;
+    private final long graphVersion;
+    private final int numCities;
+    private final int edgeCount;
+    private final int pendingEdits;
+    private final double expectedQueries;
+    private final boolean allPairsRequired;
+    private final double[] estimatedCosts;
+    private final String strategy;
+    private final long elapsedNanos;
+    private final boolean published;
+
+    EngineDecision(int weatherCondition, long graphVersion, int numCities, int edgeCount, int pendingEdits,
+                   double expectedQueries, boolean allPairsRequired, double[] estimatedCosts,
+                   String strategy, long elapsedNanos, boolean published) {
+        this.weatherCondition = weatherCondition;
+        this.graphVersion = graphVersion;
+        this.numCities = numCities;
+        this.edgeCount = edgeCount;
+        this.pendingEdits = pendingEdits;
+        this.expectedQueries = expectedQueries;
+        this.allPairsRequired = allPairsRequired;
+        this.estimatedCosts = estimatedCosts;
+        this.strategy = strategy;
+        this.elapsedNanos = elapsedNanos;
+        this.published = published;
+    }
+
+    /**
+     * Obtiene la condición climática de la capa decidida.
+     *
+     * @return Condición climática.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene la versión del grafo al momento de la decisión.
+     *
+     * @return Versión del grafo.
+     */
+    public long getGraphVersion() {
+        return graphVersion;
+    }
+
+    /**
+     * Obtiene el número de ciudades considerado.
+     *
+     * @return Número de ciudades.
+     */
+    public int getNumCities() {
+        return numCities;
+    }
+
+    /**
+     * Obtiene el número de aristas de la capa considerado.
+     *
+     * @return Número de aristas.
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Obtiene el número de aristas modificadas desde la solución anterior.
+     *
+     * @return Ediciones pendientes.
+     */
+    public int getPendingEdits() {
+        return pendingEdits;
+    }
+
+    /**
+     * Obtiene el número de consultas puntuales esperadas hasta la siguiente decisión.
+     *
+     * @return Consultas esperadas.
+     */
+    public double getExpectedQueries() {
+        return expectedQueries;
+    }
+
+    /**
+     * Indica si se necesitaba una solución de todos los pares (por ejemplo, para el centro).
+     *
+     * @return true si las estrategias bajo demanda no eran aplicables.
+     */
+    public boolean isAllPairsRequired() {
+        return allPairsRequired;
+    }
+
+    /**
+     * Obtiene el costo estimado de una estrategia.
+     *
+     * @param strategy Una de las estrategias de {@link RouteEngine}.
+     * @return Costo estimado (operaciones) o infinito si no era aplicable.
+     */
+    public double getEstimatedCost(String strategy) {
+        for (int s = 0; s < RouteEngine.STRATEGIES.length; s++) {
+            if (RouteEngine.STRATEGIES[s].equals(strategy)) {
+                return estimatedCosts[s];
+            }
+        }
+        return Double.MAX_VALUE;
+    }
+
+    /**
+     * Obtiene la estrategia elegida.
+     *
+     * @return Estrategia de menor costo estimado.
+     */
+    public String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Obtiene el tiempo real de la estrategia elegida.
+     *
+     * @return Tiempo en nanosegundos.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Crea una copia de la decisión con su resultado.
+     *
+     * @param elapsedNanos Tiempo real de la estrategia.
+     * @param published Si la solución pasó a ser la vigente.
+     * @return Decisión completa.
+     */
+    EngineDecision completed(long elapsedNanos, boolean published) {
+        return new EngineDecision(weatherCondition, graphVersion, numCities, edgeCount, pendingEdits,
+            expectedQueries, allPairsRequired, estimatedCosts, strategy, elapsedNanos, published);
+    }
+
+    /**
+     * Indica si la solución calculada pasó a ser la vigente de la capa. Se descarta si el
+     * grafo cambió mientras se calculaba fuera del bloqueo (la consulta que la pidió sí la usa).
+     *
+     * @return true si la solución se publicó.
+     */
+    public boolean isPublished() {
+        return published;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("v%d clima %d: n=%d m=%d ediciones=%d consultas=%.0f%s -> %s (%.2f ms)",
+            graphVersion, weatherCondition, numCities, edgeCount, pendingEdits, expectedQueries,
+            allPairsRequired ? " todos-los-pares" : "", strategy, elapsedNanos / 1e6));
+        text.append(published ? " [" : " descartada [");
+        for (int s = 0; s < RouteEngine.STRATEGIES.length; s++) {
+            if (s > 0) {
+                text.append(", ");
+            }
+            text.append(RouteEngine.STRATEGIES[s]).append('=');
+            text.append(estimatedCosts[s] == Double.MAX_VALUE ? "-" : String.format("%.3g", estimatedCosts[s]));
+        }
+        return text.append(']').toString();
+    }
+}
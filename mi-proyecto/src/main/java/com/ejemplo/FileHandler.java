@@ -1,6 +1,14 @@
 package com.ejemplo;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -10,6 +18,8 @@ import java.io.PrintWriter;
  * Maneja las operaciones de archivos para la lectura y escritura de datos del grafo.
  */
 public class FileHandler {
+    private static final int AVERAGE_LINE_LENGTH = 24;
+    private static final int MAX_PRESIZED_EDGES = 1 << 22;
     
     /**
      * Lee los datos del grafo desde un archivo.
@@ -20,7 +30,36 @@ public class FileHandler {
      * @throws IOException Si ocurre un error al leer el archivo.
      */
     public static Graph readGraphFromFile(String filename) throws IOException {
-        Graph graph = new Graph();
+        return readGraphFromFile(filename, false);
+    }
+    
+    /**
+     * Lee los datos del grafo desde un archivo, como grafo dirigido o no dirigido.
+     * En un grafo no dirigido cada línea define la conexión en ambos sentidos; si un par
+     * aparece en los dos sentidos se conserva la última línea.
+     * 
+     * @param filename Nombre del archivo desde donde se leerán los datos.
+     * @param undirected true para leer el archivo como grafo no dirigido.
+     * @return Un objeto Graph con los datos cargados.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     */
+    public static Graph readGraphFromFile(String filename, boolean undirected) throws IOException {
+        return readEdges(filename, undirected).build();
+    }
+    
+    /**
+     * Lee las ciudades y aristas de un archivo sin construir el grafo, para quien solo
+     * necesita las aristas (por ejemplo, copias dispersas de cada capa).
+     * 
+     * @param filename Nombre del archivo desde donde se leerán los datos.
+     * @param undirected true para leer el archivo como grafo no dirigido.
+     * @return Constructor con las ciudades y aristas del archivo.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     */
+    static GraphBuilder readEdges(String filename, boolean undirected) throws IOException {
+        // Estimación del número de líneas para reservar espacio de una vez
+        long estimatedEdges = new File(filename).length() / AVERAGE_LINE_LENGTH;
+        GraphBuilder builder = new GraphBuilder(16, (int) Math.min(estimatedEdges + 1, MAX_PRESIZED_EDGES), undirected);
         
         try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
             String line;
@@ -38,6 +77,12 @@ public class FileHandler {
                 try {
                     String[] parts = line.split("\\s+");
                     
+                    // Una línea con solo un nombre es una ciudad sin conexiones
+                    if (parts.length == 1) {
+                        builder.addCity(parts[0]);
+                        continue;
+                    }
+                    
                     if (parts.length != 6) {
                         System.err.println("Advertencia: Línea " + lineNumber + 
                             " tiene formato incorrecto. Se esperaban 6 valores, se encontraron " + parts.length);
@@ -51,7 +96,7 @@ public class FileHandler {
                     double snowTime = Double.parseDouble(parts[4]);
                     double stormTime = Double.parseDouble(parts[5]);
                     
-                    graph.addEdge(city1, city2, normalTime, rainTime, snowTime, stormTime);
+                    builder.addEdge(city1, city2, normalTime, rainTime, snowTime, stormTime);
                     
                 } catch (NumberFormatException e) {
                     System.err.println("Advertencia: Línea " + lineNumber + 
@@ -60,7 +105,7 @@ public class FileHandler {
             }
         }
         
-        return graph;
+        return builder;
     }
     
     /**
@@ -95,23 +140,88 @@ public class FileHandler {
      * @throws IOException Si ocurre un error al escribir el archivo.
      */
     public static void saveGraphToFile(Graph graph, String filename) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            for (String city1 : graph.getCities()) {
-                for (String city2 : graph.getCities()) {
-                    if (!city1.equals(city2) && graph.hasEdge(city1, city2, Graph.NORMAL)) {
-                        double normalTime = graph.getEdgeWeight(city1, city2, Graph.NORMAL);
-                        double rainTime = graph.getEdgeWeight(city1, city2, Graph.RAIN);
-                        double snowTime = graph.getEdgeWeight(city1, city2, Graph.SNOW);
-                        double stormTime = graph.getEdgeWeight(city1, city2, Graph.STORM);
-                        
-                        writer.printf("%s %s %.1f %.1f %.1f %.1f%n", 
-                            city1, city2, normalTime, rainTime, snowTime, stormTime);
+        writeGraph(graph, filename);
+        System.out.println("Grafo guardado en '" + filename + "' exitosamente.");
+    }
+    
+    /**
+     * Escribe las aristas del grafo en el formato de lectura. Los tiempos se escriben con
+     * toda su precisión para que el archivo pueda servir de instantánea exacta del grafo.
+     * En un grafo no dirigido cada conexión se escribe una sola vez. Las ciudades sin
+     * ninguna conexión se escriben al final, una por línea, para no perderlas.
+     * 
+     * @param graph El grafo cuyos datos se guardarán.
+     * @param filename Nombre del archivo donde se guardarán los datos.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    static void writeGraph(Graph graph, String filename) throws IOException {
+        int n = graph.getNumCities();
+        boolean undirected = graph.isUndirected();
+        boolean[] connected = new boolean[n];
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filename)))) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < (undirected ? i : n); j++) {
+                    if (i != j && hasAnyTime(graph, i, j)) {
+                        connected[i] = true;
+                        connected[j] = true;
+                        writer.print(graph.getCityName(i));
+                        writer.print(' ');
+                        writer.print(graph.getCityName(j));
+                        for (int k = 0; k < Graph.NUM_WEATHER_CONDITIONS; k++) {
+                            writer.print(' ');
+                            writer.print(graph.getEdgeWeight(i, j, k));
+                        }
+                        writer.println();
                     }
                 }
             }
+            for (int i = 0; i < n; i++) {
+                if (!connected[i]) {
+                    writer.println(graph.getCityName(i));
+                }
+            }
+            if (writer.checkError()) {
+                throw new IOException("Error al escribir '" + filename + "'");
+            }
+        }
+    }
+    
+    private static boolean hasAnyTime(Graph graph, int from, int to) {
+        for (int k = 0; k < Graph.NUM_WEATHER_CONDITIONS; k++) {
+            if (graph.getEdgeWeight(from, to, k) != Double.MAX_VALUE) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Guarda un índice de jerarquías de contracción en un archivo binario.
+     *
+     * @param hierarchy El índice a guardar.
+     * @param filename Nombre del archivo donde se guardará el índice.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    public static void saveContractionHierarchy(ContractionHierarchy hierarchy, String filename) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename)))) {
+            hierarchy.writeTo(out);
+        }
+    }
+
+    /**
+     * Lee un índice de jerarquías de contracción desde un archivo binario.
+     *
+     * @param filename Nombre del archivo desde donde se leerá el índice.
+     * @param graph Grafo cuyas ciudades corresponden al índice.
+     * @return El índice leído.
+     * @throws IOException Si ocurre un error al leer el archivo o no corresponde al grafo.
+     */
+    public static ContractionHierarchy readContractionHierarchy(String filename, Graph graph) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filename)))) {
+            return ContractionHierarchy.readFrom(in, graph);
         }
-        
-        System.out.println("Grafo guardado en '" + filename + "' exitosamente.");
     }
     
     /**
@@ -125,6 +235,7 @@ public class FileHandler {
         System.out.println("BuenosAires SaoPaulo 10 15 20 50");
         System.out.println("BuenosAires Lima 15 20 30 70");
         System.out.println("Lima Quito 10 12 15 20");
-        System.out.println("\nNota: Los nombres de las ciudades no deben contener espacios.");
+        System.out.println("\nUna línea con un solo nombre agrega una ciudad sin conexiones.");
+        System.out.println("Nota: Los nombres de las ciudades no deben contener espacios.");
     }
 }
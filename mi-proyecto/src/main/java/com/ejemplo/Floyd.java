@@ -1,9 +1,12 @@
 package com.ejemplo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * Implementación del algoritmo de Floyd para encontrar las rutas más cortas
@@ -14,7 +17,13 @@ public class Floyd {
     private int[][] next;
     private Graph graph;
     private int numCities;
+    private int weatherCondition;
+    private int[][] hopCounts;
+    private volatile ReachabilityIndex reachability;
     private static final double INFINITY = Double.MAX_VALUE;
+    private static final int[] EMPTY_BUFFER = new int[0];
+    private static final int PATH_BUFFER = 16; // Búfer inicial de los adaptadores sin matriz de saltos
+    private static final int PARALLEL_THRESHOLD = 64;
     
     /**
      * Constructor que inicializa el algoritmo con un grafo dado.
@@ -26,6 +35,15 @@ public class Floyd {
         this.numCities = graph.getNumCities();
         this.distance = new double[numCities][numCities];
         this.next = new int[numCities][numCities];
+        this.weatherCondition = -1;
+    }
+
+    private Floyd(Graph graph, double[][] distance, int[][] next) {
+        this.graph = graph;
+        this.numCities = distance.length;
+        this.distance = distance;
+        this.next = next;
+        this.weatherCondition = -1;
     }
     
     /**
@@ -34,6 +52,8 @@ public class Floyd {
      * @param weatherCondition Condición climática para la cual se calcularán las rutas.
      */
     public void executeFloyd(int weatherCondition) {
+        this.weatherCondition = weatherCondition;
+        this.hopCounts = null;
         initializeMatrices(weatherCondition);
         
         // Algoritmo principal de Floyd
@@ -52,6 +72,162 @@ public class Floyd {
         }
     }
     
+    /**
+     * Ejecuta el algoritmo de Floyd descomponiendo primero el grafo en componentes
+     * fuertemente conexas. Cada componente se resuelve de forma independiente y en paralelo,
+     * y las distancias entre componentes se unen recorriendo el grafo condensado (un DAG)
+     * desde los sumideros. Produce las mismas distancias que {@link #executeFloyd(int)},
+     * pero evita el ciclo n³ completo cuando el grafo está formado por regiones unidas por
+     * pocas conexiones en un solo sentido.
+     *
+     * @param weatherCondition Condición climática para la cual se calcularán las rutas.
+     */
+    public void executeFloydBySccs(int weatherCondition) {
+        this.weatherCondition = weatherCondition;
+        this.hopCounts = null;
+        initializeMatrices(weatherCondition);
+
+        int[][] adjacency = new int[numCities][];
+        int[] buffer = new int[numCities];
+        for (int i = 0; i < numCities; i++) {
+            int count = 0;
+            for (int j = 0; j < numCities; j++) {
+                if (next[i][j] != -1) {
+                    buffer[count++] = j;
+                }
+            }
+            adjacency[i] = Arrays.copyOf(buffer, count);
+        }
+
+        StronglyConnectedComponents scc = new StronglyConnectedComponents(adjacency);
+        int components = scc.getComponentCount();
+
+        // Fase 1: Floyd dentro de cada componente (celdas disjuntas, se puede paralelizar)
+        IntStream.range(0, components).parallel().forEach(c -> solveComponent(scc.getMembers(c)));
+
+        // Fase 2: las aristas entre componentes van de número mayor a menor,
+        // así que al procesar en orden ascendente los sucesores ya están resueltos
+        for (int c = 0; c < components; c++) {
+            int[] members = scc.getMembers(c);
+            int[] crossFrom = new int[16];
+            int[] crossTo = new int[16];
+            double[] crossWeight = new double[16];
+            int crossCount = 0;
+            for (int x : members) {
+                for (int y : adjacency[x]) {
+                    if (scc.getComponent(y) != c) {
+                        if (crossCount == crossFrom.length) {
+                            crossFrom = Arrays.copyOf(crossFrom, crossCount * 2);
+                            crossTo = Arrays.copyOf(crossTo, crossCount * 2);
+                            crossWeight = Arrays.copyOf(crossWeight, crossCount * 2);
+                        }
+                        // El peso se toma antes de que la fase 2 modifique la fila x
+                        crossFrom[crossCount] = x;
+                        crossTo[crossCount] = y;
+                        crossWeight[crossCount] = distance[x][y];
+                        crossCount++;
+                    }
+                }
+            }
+            if (crossCount == 0) {
+                continue;
+            }
+
+            final int component = c;
+            final int[] edgeFrom = crossFrom;
+            final int[] edgeTo = crossTo;
+            final double[] edgeWeight = crossWeight;
+            final int edgeCount = crossCount;
+            IntStream rows = IntStream.of(members);
+            if (members.length >= PARALLEL_THRESHOLD) {
+                rows = rows.parallel();
+            }
+            rows.forEach(u -> stitchRow(u, component, scc, edgeFrom, edgeTo, edgeWeight, edgeCount));
+        }
+    }
+
+    /**
+     * Resuelve todos los pares con un Dijkstra por origen sobre la copia dispersa de la capa.
+     * Produce las mismas distancias que {@link #executeFloyd(int)} en O(n·(m + n)·log n),
+     * que es menor que n³ cuando el grafo tiene pocas aristas por ciudad.
+     *
+     * @param weatherCondition Condición climática para la cual se calcularán las rutas.
+     */
+    public void executeDijkstra(int weatherCondition) {
+        this.weatherCondition = weatherCondition;
+        this.hopCounts = null;
+        SparseGraph sparse = SparseGraph.of(graph, weatherCondition);
+
+        IntStream rows = IntStream.range(0, numCities);
+        if (numCities >= PARALLEL_THRESHOLD) {
+            rows = rows.parallel();
+        }
+        // Cada fila es independiente; el montículo se reutiliza dentro de cada hilo
+        ThreadLocal<NodeHeap> heaps = ThreadLocal.withInitial(() -> new NodeHeap(64));
+        rows.forEach(i -> {
+            sparse.shortestPaths(i, false, distance[i], next[i], heaps.get());
+            next[i][i] = -1;
+        });
+    }
+
+    /**
+     * Ejecuta Floyd restringido a los nodos de una componente.
+     */
+    private void solveComponent(int[] members) {
+        if (members.length < 2) {
+            return;
+        }
+        for (int k : members) {
+            double[] rowK = distance[k];
+            for (int i : members) {
+                double dik = distance[i][k];
+                if (dik == INFINITY) {
+                    continue;
+                }
+                double[] rowI = distance[i];
+                int[] nextI = next[i];
+                for (int j : members) {
+                    if (rowK[j] != INFINITY) {
+                        double newDistance = dik + rowK[j];
+                        if (newDistance < rowI[j]) {
+                            rowI[j] = newDistance;
+                            nextI[j] = nextI[k];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Completa las distancias desde u hacia otras componentes a través de las aristas
+     * de salida de su componente.
+     */
+    private void stitchRow(int u, int component, StronglyConnectedComponents scc,
+                           int[] edgeFrom, int[] edgeTo, double[] edgeWeight, int edgeCount) {
+        double[] rowU = distance[u];
+        int[] nextU = next[u];
+        for (int e = 0; e < edgeCount; e++) {
+            int x = edgeFrom[e];
+            int y = edgeTo[e];
+            if (rowU[x] == INFINITY) {
+                continue;
+            }
+            double base = rowU[x] + edgeWeight[e];
+            int firstHop = (u == x) ? y : nextU[x];
+            double[] rowY = distance[y];
+            for (int v = 0; v < numCities; v++) {
+                if (rowY[v] != INFINITY && scc.getComponent(v) != component) {
+                    double newDistance = base + rowY[v];
+                    if (newDistance < rowU[v]) {
+                        rowU[v] = newDistance;
+                        nextU[v] = firstHop;
+                    }
+                }
+            }
+        }
+    }
+    
     /**
      * Inicializa las matrices de distancia y siguiente nodo.
      * 
@@ -71,6 +247,26 @@ public class Floyd {
             }
         } 
     }
+
+    /**
+     * Obtiene la condición climática para la cual se resolvieron las matrices.
+     *
+     * @return Condición climática o -1 si el algoritmo aún no se ha ejecutado.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene la matriz de distancias resuelta sin copiarla.
+     * Uso interno del paquete: no debe modificarse.
+     *
+     * @return Matriz de distancias más cortas.
+     */
+    double[][] getDistanceMatrix() {
+        return distance;
+    }
+
     /**
      * Obtiene la distancia más corta entre dos ciudades.
      * 
@@ -79,10 +275,10 @@ public class Floyd {
      * @return La distancia más corta o infinito si no existe ruta.
      */
     public double getShortestDistance(String fromCity, String toCity) {
-        Integer fromIndex = graph.getCityIndex(fromCity);
-        Integer toIndex = graph.getCityIndex(toCity);
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
         
-        if (fromIndex == null || toIndex == null) {
+        if (fromIndex == -1 || toIndex == -1) {
             return INFINITY;
         }
         
@@ -91,32 +287,191 @@ public class Floyd {
     
     /**
      * Obtiene la ruta más corta entre dos ciudades.
+     * Adaptador sobre la versión primitiva que trabaja con índices.
      * 
      * @param fromCity Ciudad de origen.
      * @param toCity Ciudad destino.
      * @return Lista de nombres de ciudades que forman la ruta más corta.
      */
     public List<String> getShortestPath(String fromCity, String toCity) {
-        Integer fromIndex = graph.getCityIndex(fromCity);
-        Integer toIndex = graph.getCityIndex(toCity);
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
         
-        if (fromIndex == null || toIndex == null || distance[fromIndex][toIndex] == INFINITY) {
-            return new ArrayList<>();
+        if (fromIndex == -1 || toIndex == -1 || distance[fromIndex][toIndex] == INFINITY) {
+            return Collections.emptyList();
         }
         
-        List<String> path = new ArrayList<>();
-        int current = fromIndex;
-        path.add(graph.getCityName(current));
+        // Con la matriz de saltos el búfer tiene el tamaño exacto; sin ella se empieza con uno
+        // pequeño y solo las rutas más largas se recorren otra vez en un búfer a su medida
+        int[] buffer = new int[hopCounts != null ? getPathLength(fromIndex, toIndex) : PATH_BUFFER];
+        int length = getShortestPath(fromIndex, toIndex, buffer);
+        if (length == 0) {
+            return Collections.emptyList(); // No existe ruta
+        }
+        if (length > buffer.length) {
+            buffer = new int[length];
+            getShortestPath(fromIndex, toIndex, buffer);
+        }
+        
+        List<String> path = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            path.add(graph.getCityName(buffer[i]));
+        }
         
+        return path;
+    }
+
+    /**
+     * Escribe la ruta más corta entre dos ciudades (por índice) en un búfer proporcionado.
+     * La ruta se recorre una sola vez; si el búfer es más corto que la ruta solo se escriben
+     * las primeras posiciones, pero el valor devuelto sigue siendo la longitud completa.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @param buffer Búfer donde se escribirán los índices de las ciudades de la ruta.
+     * @return Número de ciudades de la ruta (incluyendo origen y destino) o 0 si no existe.
+     */
+    public int getShortestPath(int fromIndex, int toIndex, int[] buffer) {
+        if (distance[fromIndex][toIndex] == INFINITY) {
+            return 0;
+        }
+
+        int count = 0;
+        int current = fromIndex;
+        if (count < buffer.length) {
+            buffer[count] = current;
+        }
+        count++;
+
         while (current != toIndex) {
             current = next[current][toIndex];
             if (current == -1) {
-                return new ArrayList<>(); // No existe ruta
+                return 0; // No existe ruta
             }
-            path.add(graph.getCityName(current));
+            if (count < buffer.length) {
+                buffer[count] = current;
+            }
+            count++;
         }
-        
-        return path;
+
+        return count;
+    }
+
+    /**
+     * Obtiene el número de ciudades de la ruta más corta (incluyendo origen y destino).
+     * Es O(1) si se calculó la matriz de saltos; en caso contrario recorre la ruta.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @return Número de ciudades de la ruta o 0 si no existe.
+     */
+    public int getPathLength(int fromIndex, int toIndex) {
+        if (hopCounts != null) {
+            return hopCounts[fromIndex][toIndex] + 1;
+        }
+        return getShortestPath(fromIndex, toIndex, EMPTY_BUFFER);
+    }
+
+    /**
+     * Calcula la matriz de saltos (número de aristas de cada ruta más corta) para que
+     * {@link #getPathLength(int, int)} responda en O(1) y los búferes se dimensionen exactos.
+     * Se descarta automáticamente en la siguiente ejecución del algoritmo.
+     */
+    public void computeHopCounts() {
+        int[][] hops = new int[numCities][numCities];
+        int[] stack = new int[numCities];
+        final int unknown = -2;
+
+        for (int j = 0; j < numCities; j++) {
+            for (int i = 0; i < numCities; i++) {
+                hops[i][j] = (i == j) ? 0 : (distance[i][j] == INFINITY ? -1 : unknown);
+            }
+            
+            // Cada columna forma un árbol hacia j: se memoriza subiendo por next[.][j]
+            for (int i = 0; i < numCities; i++) {
+                int size = 0;
+                int current = i;
+                while (current != -1 && hops[current][j] == unknown) {
+                    stack[size++] = current;
+                    current = next[current][j];
+                }
+                int base = (current == -1) ? -1 : hops[current][j];
+                while (size > 0) {
+                    int node = stack[--size];
+                    base = (base == -1) ? -1 : base + 1;
+                    hops[node][j] = base;
+                }
+            }
+        }
+
+        hopCounts = hops;
+    }
+
+    /**
+     * Crea un cursor reutilizable para recorrer rutas sin asignar memoria por consulta.
+     *
+     * @return Nuevo cursor asociado a este algoritmo.
+     */
+    public PathCursor newPathCursor() {
+        return new PathCursor(this);
+    }
+
+    /**
+     * Cuenta las filas que dejarían de ser válidas si aumentan algunas aristas: aquellas
+     * en las que alguna de esas aristas forma parte de una ruta más corta.
+     *
+     * @return Número de filas que habría que recalcular.
+     */
+    int countRowsUsingIncreasedEdges(int[] from, int[] to, double[] oldWeight, double[] newWeight, int count) {
+        int rows = 0;
+        for (int i = 0; i < numCities; i++) {
+            if (ScenarioEvaluator.usesIncreasedEdge(distance[i], from, to, oldWeight, newWeight, count)) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Actualiza la solución tras cambiar algunas aristas del grafo, sin volver a ejecutar
+     * Floyd: recalcula con Dijkstra las filas afectadas por aumentos y propaga las
+     * reducciones en O(n²) cada una (ver {@link ScenarioEvaluator#repair}).
+     *
+     * @param changed Copia dispersa de la capa con los cambios ya aplicados.
+     * @param from Orígenes de las aristas modificadas.
+     * @param to Destinos de las aristas modificadas.
+     * @param oldWeight Pesos anteriores.
+     * @param newWeight Pesos nuevos.
+     * @param count Número de cambios.
+     */
+    void repairEdgeChanges(SparseGraph changed, int[] from, int[] to,
+                           double[] oldWeight, double[] newWeight, int count) {
+        ScenarioEvaluator.repair(distance, next, changed, from, to, oldWeight, newWeight, count);
+        hopCounts = null;
+    }
+
+    /**
+     * Crea una copia que comparte las filas de esta solución, en O(n). Como
+     * {@link #repairEdgeChanges} reemplaza las filas que cambian en lugar de escribirlas,
+     * la copia se puede reparar mientras otros hilos siguen consultando esta solución.
+     *
+     * @return Copia superficial de la solución.
+     */
+    Floyd copyForRepair() {
+        Floyd copy = new Floyd(graph, distance.clone(), next.clone());
+        copy.weatherCondition = weatherCondition;
+        copy.reachability = reachability;
+        return copy;
+    }
+
+    /**
+     * Obtiene la matriz de siguiente nodo sin copiarla.
+     * Uso interno del paquete: no debe modificarse.
+     *
+     * @return Matriz de siguiente nodo.
+     */
+    int[][] getNextMatrix() {
+        return next;
     }
     
     /**
@@ -157,25 +512,7 @@ public class Floyd {
     public void displayDistanceMatrix() {
         System.out.println("\nMatriz de Distancias Más Cortas:");
         
-        // Imprimir encabezado
-        System.out.print("\t\t");
-        for (int j = 0; j < numCities; j++) {
-            System.out.printf("%-12s", graph.getCityName(j));
-        }
-        System.out.println();
-        
-        // Imprimir matriz
-        for (int i = 0; i < numCities; i++) {
-            System.out.printf("%-12s", graph.getCityName(i));
-            for (int j = 0; j < numCities; j++) {
-                if (distance[i][j] == INFINITY) {
-                    System.out.printf("%-12s", "∞");
-                } else {
-                    System.out.printf("%-12.1f", distance[i][j]);
-                }
-            }
-            System.out.println();
-        }
+        MatrixExporter.forDistances(graph, this).displayWindow(0, numCities, 0, numCities);
     }
     
     /**
@@ -185,8 +522,8 @@ public class Floyd {
      * @return Mapa con ciudades destino y sus distancias desde la ciudad de origen.
      */
     public Map<String, Double> getDistancesFrom(String fromCity) {
-        Integer fromIndex = graph.getCityIndex(fromCity);
-        if (fromIndex == null) {
+        int fromIndex = graph.indexOf(fromCity);
+        if (fromIndex == -1) {
             return new HashMap<>();
         }
         
@@ -200,14 +537,150 @@ public class Floyd {
         return distances;
     }
     
+    /**
+     * Obtiene las k ciudades más cercanas (alcanzables) desde una ciudad, ordenadas por distancia.
+     * Usa selección parcial con un montículo máximo de tamaño k sobre los propios arreglos
+     * de salida (O(n log k), sin objetos ni ordenar la fila completa).
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param k Número máximo de ciudades a devolver.
+     * @param outCities Arreglo de salida con los índices de las ciudades (tamaño mínimo k).
+     * @param outDistances Arreglo de salida con las distancias (tamaño mínimo k).
+     * @return Número de ciudades escritas (puede ser menor que k).
+     */
+    public int getNearestCities(int fromIndex, int k, int[] outCities, double[] outDistances) {
+        double[] row = distance[fromIndex];
+        int size = 0;
+
+        for (int j = 0; j < numCities && k > 0; j++) {
+            double d = row[j];
+            if (j == fromIndex || d == INFINITY) {
+                continue;
+            }
+            if (size < k) {
+                // Inserción en el montículo máximo
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (outDistances[parent] >= d) {
+                        break;
+                    }
+                    outDistances[i] = outDistances[parent];
+                    outCities[i] = outCities[parent];
+                    i = parent;
+                }
+                outDistances[i] = d;
+                outCities[i] = j;
+            } else if (d < outDistances[0]) {
+                siftDownMax(outCities, outDistances, 0, size, j, d);
+            }
+        }
+
+        // Ordena ascendentemente extrayendo el máximo al final (heapsort parcial)
+        for (int end = size - 1; end > 0; end--) {
+            int city = outCities[end];
+            double d = outDistances[end];
+            outCities[end] = outCities[0];
+            outDistances[end] = outDistances[0];
+            siftDownMax(outCities, outDistances, 0, end, city, d);
+        }
+
+        return size;
+    }
+
+    /**
+     * Hunde un elemento en un montículo máximo almacenado en arreglos paralelos.
+     */
+    private static void siftDownMax(int[] cities, double[] distances, int start, int size,
+                                    int city, double d) {
+        int i = start;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && distances[child + 1] > distances[child]) {
+                child++;
+            }
+            if (d >= distances[child]) {
+                break;
+            }
+            distances[i] = distances[child];
+            cities[i] = cities[child];
+            i = child;
+        }
+        distances[i] = d;
+        cities[i] = city;
+    }
+
+    /**
+     * Calcula, para cada ciudad, el depósito más cercano que puede abastecerla
+     * (distancia depósito→ciudad). Es un mínimo por columna sobre las filas de los
+     * depósitos, recorridas secuencialmente en una sola pasada.
+     *
+     * @param depots Índices de las ciudades que son depósitos.
+     * @param outDepot Arreglo de salida (tamaño numCities): depósito más cercano o -1.
+     * @param outDistance Arreglo de salida (tamaño numCities): distancia o infinito.
+     */
+    public void getNearestDepots(int[] depots, int[] outDepot, double[] outDistance) {
+        Arrays.fill(outDepot, 0, numCities, -1);
+        Arrays.fill(outDistance, 0, numCities, INFINITY);
+
+        for (int depot : depots) {
+            double[] row = distance[depot];
+            for (int v = 0; v < numCities; v++) {
+                if (row[v] < outDistance[v]) {
+                    outDistance[v] = row[v];
+                    outDepot[v] = depot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Asocia un índice de alcanzabilidad para responder {@link #hasPath(String, String)}
+     * sin consultar la matriz de distancias.
+     *
+     * @param reachability Índice de alcanzabilidad del mismo grafo (null para desactivarlo).
+     */
+    public void setReachabilityIndex(ReachabilityIndex reachability) {
+        this.reachability = reachability;
+    }
+
     /**
      * Verifica si existe una ruta entre dos ciudades.
+     * Si hay un índice de alcanzabilidad asociado se responde desde él para la condición
+     * resuelta (NORMAL si Floyd aún no se ha ejecutado), sin consultar la matriz de
+     * distancias. El índice sigue al grafo actual, así que tras un cambio puede responder
+     * antes de que Floyd se vuelva a ejecutar.
      * 
      * @param fromCity Ciudad de origen.
      * @param toCity Ciudad destino.
      * @return true si existe ruta, false en caso contrario.
      */
     public boolean hasPath(String fromCity, String toCity) {
+        if (reachability != null) {
+            return hasPath(fromCity, toCity, weatherCondition >= 0 ? weatherCondition : Graph.NORMAL);
+        }
         return getShortestDistance(fromCity, toCity) != INFINITY;
     }
+
+    /**
+     * Verifica si existe una ruta entre dos ciudades para cualquier condición climática.
+     * Siempre se responde desde el índice de alcanzabilidad (se crea uno si no hay ninguno
+     * asociado), así que no requiere ejecutar Floyd para esa condición.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return true si existe ruta, false en caso contrario.
+     */
+    public boolean hasPath(String fromCity, String toCity, int weatherCondition) {
+        ReachabilityIndex index = reachability;
+        if (index == null) {
+            index = new ReachabilityIndex(graph);
+            reachability = index;
+        }
+        return index.hasPath(fromCity, toCity, weatherCondition);
+    }
 }
@@ -0,0 +1,153 @@
+package com.ejemplo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Proceso trabajador de {@link DistributedFloyd}. Es dueño de un bloque de filas [lo, hi)
+ * de las matrices compartidas, que mapea en memoria, y obedece las órdenes del coordinador
+ * recibidas por la entrada estándar, una por línea:
+ * <ul>
+ *   <li>"fase k": lee la fila pivote k del archivo y relaja su bloque; responde "ok".</li>
+ *   <li>"d i j": responde la distancia de i a j (i debe estar en su bloque).</li>
+ *   <li>"n i j": responde el siguiente nodo de i hacia j.</li>
+ *   <li>"fin": termina.</li>
+ * </ul>
+ * Uso: FloydWorker archivo n lo hi
+ */
+public class FloydWorker {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final int n;
+    private final int lo;
+    private final int hi;
+    private final FileChannel channel;
+    private final DoubleBuffer distance;
+    private final IntBuffer next;
+    private final ByteBuffer pivotBytes;
+    private final double[] pivot;
+    private final double[] row;
+    private final int[] nextRow;
+
+    FloydWorker(String filename, int n, int lo, int hi) throws IOException {
+        this.n = n;
+        this.lo = lo;
+        this.hi = hi;
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long rows = hi - lo;
+        this.distance = channel.map(FileChannel.MapMode.READ_WRITE, (long) lo * n * Double.BYTES, rows * n * Double.BYTES)
+            .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        this.next = channel.map(FileChannel.MapMode.READ_WRITE,
+            DistributedFloyd.nextOffset(n) + (long) lo * n * Integer.BYTES, rows * n * Integer.BYTES)
+            .order(ByteOrder.nativeOrder()).asIntBuffer();
+        this.pivotBytes = ByteBuffer.allocateDirect(n * Double.BYTES).order(ByteOrder.nativeOrder());
+        this.pivot = new double[n];
+        this.row = new double[n];
+        this.nextRow = new int[n];
+    }
+
+    /**
+     * Relaja las filas del bloque con la fila pivote k: d(i,j) = min(d(i,j), d(i,k) + d(k,j)).
+     * La fila k no cambia en la fase k, así que puede leerse del archivo aunque sea de otro bloque.
+     */
+    void phase(int k) throws IOException {
+        pivotBytes.clear();
+        long position = (long) k * n * Double.BYTES;
+        while (pivotBytes.hasRemaining()) {
+            if (channel.read(pivotBytes, position + pivotBytes.position()) < 0) {
+                throw new IOException("Fin de archivo al leer la fila " + k);
+            }
+        }
+        pivotBytes.flip();
+        pivotBytes.asDoubleBuffer().get(pivot);
+
+        for (int i = lo; i < hi; i++) {
+            int base = (i - lo) * n;
+            double dik = distance.get(base + k);
+            if (dik == INFINITY) {
+                continue;
+            }
+            distance.position(base);
+            distance.get(row);
+            next.position(base);
+            next.get(nextRow);
+            int hop = nextRow[k];
+            boolean changed = false;
+            for (int j = 0; j < n; j++) {
+                if (pivot[j] != INFINITY) {
+                    double newDistance = dik + pivot[j];
+                    if (newDistance < row[j]) {
+                        row[j] = newDistance;
+                        nextRow[j] = hop;
+                        changed = true;
+                    }
+                }
+            }
+            if (changed) {
+                distance.position(base);
+                distance.put(row);
+                next.position(base);
+                next.put(nextRow);
+            }
+        }
+    }
+
+    double distance(int i, int j) {
+        return distance.get((i - lo) * n + j);
+    }
+
+    int next(int i, int j) {
+        return next.get((i - lo) * n + j);
+    }
+
+    /**
+     * Atiende las órdenes del coordinador hasta recibir "fin" o el final de la entrada.
+     */
+    void serve(BufferedReader in, PrintStream out) throws IOException {
+        out.println("listo");
+        out.flush();
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] parts = line.split(" ");
+            switch (parts[0]) {
+                case "fase":
+                    phase(Integer.parseInt(parts[1]));
+                    out.println("ok");
+                    break;
+                case "d":
+                    out.println(distance(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                    break;
+                case "n":
+                    out.println(next(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                    break;
+                case "fin":
+                    channel.close();
+                    return;
+                default:
+                    out.println("error orden desconocida: " + line);
+            }
+            out.flush();
+        }
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Uso: FloydWorker archivo n lo hi");
+            System.exit(2);
+        }
+        FloydWorker worker = new FloydWorker(args[0], Integer.parseInt(args[1]),
+            Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        PrintStream out = new PrintStream(System.out, false, "UTF-8");
+        worker.serve(new BufferedReader(new InputStreamReader(System.in, "UTF-8")), out);
+    }
+}
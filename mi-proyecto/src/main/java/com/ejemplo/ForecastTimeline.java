@@ -0,0 +1,171 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rutas más cortas para una secuencia de franjas de pronóstico (por ejemplo, 24 horas).
+ *
+ * La franja 0 es la solución de Floyd de una capa climática; cada franja siguiente se
+ * describe con un {@link EdgeOverlay} con las aristas que cambian respecto a la anterior y
+ * se resuelve reparando la franja anterior con {@link ScenarioEvaluator#repair}. Las filas
+ * que una franja no modifica se comparten con la anterior (copia en escritura), así que la
+ * memoria crece con las filas afectadas por los cambios y no con el número de franjas:
+ * cada franja solo añade sus dos arreglos de referencias a filas.
+ * Las franjas son una instantánea: no reflejan cambios posteriores del grafo.
+ */
+public class ForecastTimeline {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final Graph graph;
+    private final int weatherCondition;
+    private final List<double[][]> distances;
+    private final List<int[][]> nexts;
+    private final List<Integer> ownedRows;
+    private SparseGraph lastSlice;
+
+    /**
+     * Constructor que toma como franja 0 la solución actual de Floyd.
+     *
+     * @param graph El grafo sobre el que se pronostica.
+     * @param floyd Floyd ya ejecutado sobre el grafo.
+     * @throws IllegalStateException si Floyd no se ha ejecutado o no corresponde al grafo.
+     */
+    public ForecastTimeline(Graph graph, Floyd floyd) {
+        if (floyd.getWeatherCondition() < 0) {
+            throw new IllegalStateException("Floyd debe ejecutarse antes de crear el pronóstico");
+        }
+        this.graph = graph;
+        this.weatherCondition = floyd.getWeatherCondition();
+        this.lastSlice = SparseGraph.of(graph, weatherCondition);
+        if (lastSlice.numCities != floyd.getDistanceMatrix().length) {
+            throw new IllegalStateException("Floyd no corresponde al número actual de ciudades");
+        }
+        this.distances = new ArrayList<>();
+        this.nexts = new ArrayList<>();
+        this.ownedRows = new ArrayList<>();
+
+        // Floyd reescribe sus filas al volver a ejecutarse: la franja 0 necesita copias propias
+        int n = lastSlice.numCities;
+        double[][] distance = new double[n][];
+        int[][] next = new int[n][];
+        for (int i = 0; i < n; i++) {
+            distance[i] = floyd.getDistanceMatrix()[i].clone();
+            next[i] = floyd.getNextMatrix()[i].clone();
+        }
+        distances.add(distance);
+        nexts.add(next);
+        ownedRows.add(n);
+    }
+
+    /**
+     * Agrega la franja siguiente a partir de sus cambios respecto a la última franja.
+     *
+     * @param changes Aristas que cambian (pesos nuevos; infinito para cerrar una conexión).
+     * @return Índice de la nueva franja.
+     * @throws IllegalArgumentException si los cambios son de otra condición climática.
+     */
+    public int addSlice(EdgeOverlay changes) {
+        if (changes.getWeatherCondition() != weatherCondition) {
+            throw new IllegalArgumentException("Los cambios no corresponden a la condición climática del pronóstico");
+        }
+        int count = changes.getChangeCount();
+        int[] from = new int[count];
+        int[] to = new int[count];
+        double[] newWeight = new double[count];
+        changes.exportChanges(from, to, newWeight);
+        double[] oldWeight = new double[count];
+        for (int c = 0; c < count; c++) {
+            oldWeight[c] = lastSlice.weight(from[c], to[c]);
+        }
+
+        SparseGraph slice = lastSlice.withChanges(from, to, newWeight, count);
+        int last = distances.size() - 1;
+        double[][] distance = distances.get(last).clone();
+        int[][] next = nexts.get(last).clone();
+        boolean[] owned = ScenarioEvaluator.repair(distance, next, slice, from, to, oldWeight, newWeight, count);
+
+        int rows = 0;
+        for (boolean row : owned) {
+            rows += row ? 1 : 0;
+        }
+        distances.add(distance);
+        nexts.add(next);
+        ownedRows.add(rows);
+        lastSlice = slice;
+        return last + 1;
+    }
+
+    /**
+     * Obtiene el número de franjas (incluida la franja 0).
+     *
+     * @return Número de franjas.
+     */
+    public int getSliceCount() {
+        return distances.size();
+    }
+
+    /**
+     * Obtiene la condición climática del pronóstico.
+     *
+     * @return Condición climática.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene el número de filas propias de una franja (las que no comparte con la anterior).
+     *
+     * @param slice Índice de la franja.
+     * @return Filas propias; en la franja 0 son todas.
+     */
+    public int getOwnedRowCount(int slice) {
+        return ownedRows.get(slice);
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades saliendo en una franja.
+     *
+     * @param departureSlice Franja de salida.
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(int departureSlice, String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1 || fromIndex >= lastSlice.numCities || toIndex >= lastSlice.numCities) {
+            return INFINITY;
+        }
+        return distances.get(departureSlice)[fromIndex][toIndex];
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ciudades saliendo en una franja.
+     *
+     * @param departureSlice Franja de salida.
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Lista de nombres de ciudades de la ruta (vacía si no existe).
+     */
+    public List<String> getShortestPath(int departureSlice, String fromCity, String toCity) {
+        if (getShortestDistance(departureSlice, fromCity, toCity) == INFINITY) {
+            return Collections.emptyList();
+        }
+        int[][] next = nexts.get(departureSlice);
+        int current = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        List<String> path = new ArrayList<>();
+        path.add(graph.getCityName(current));
+        while (current != toIndex) {
+            current = next[current][toIndex];
+            if (current == -1) {
+                return Collections.emptyList();
+            }
+            path.add(graph.getCityName(current));
+        }
+        return path;
+    }
+}
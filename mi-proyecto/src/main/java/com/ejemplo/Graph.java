@@ -1,20 +1,32 @@
 package com.ejemplo;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Implementación de un grafo dirigido usando matriz de adyacencia.
  * Soporta múltiples condiciones climáticas para los pesos de las aristas.
+ * En modo no dirigido cada conexión vale en ambos sentidos y solo se guarda el triángulo
+ * inferior de cada capa (la mitad de la memoria); ver {@link SymmetricFloyd}.
+ * Las modificaciones se sincronizan sobre la instancia y se notifican a los observadores
+ * registrados con {@link #addListener(GraphListener)}.
+ *
+ * Las lecturas que copian o recorren las capas (matriz y listas de adyacencia, pesos de
+ * aristas) también toman el bloqueo, porque al crecer el grafo las capas se reemplazan.
+ * Cada llamada ve un solo estado del grafo, pero varias llamadas seguidas pueden ver
+ * estados distintos: quien necesite una vista consistente de varias lecturas debe
+ * sincronizar sobre el grafo. {@link #getNumCities()} y {@link #getVersion()} no bloquean.
  */
 public class Graph {
-    private Map<String, Integer> cityIndex;
-    private List<String> cities;
-    private double[][][] adjacencyMatrix; // [origen][destino][condición_climática]
+    private CityRegistry cities;
+    private double[][] layers; // [condición_climática][origen * capacity + destino] o triángulo empaquetado
+    private int capacity;
+    private final boolean undirected;
     private int numCities;
-    private static final int MAX_CITIES = 100;
+    private long version; // Se incrementa con cada modificación del grafo
+    private final List<GraphListener> listeners = new CopyOnWriteArrayList<>();
+    private static final int DEFAULT_CAPACITY = 100;
     
     // Constantes para condiciones climáticas
     public static final int NORMAL = 0;
@@ -29,19 +41,101 @@ public class Graph {
      * Constructor que inicializa el grafo.
      */
     public Graph() {
-        this.cityIndex = new HashMap<>();
-        this.cities = new ArrayList<>();
-        this.adjacencyMatrix = new double[MAX_CITIES][MAX_CITIES][NUM_WEATHER_CONDITIONS];
-        this.numCities = 0;
-        
-        // Inicializa la matriz con infinito
-        for (int i = 0; i < MAX_CITIES; i++) {
-            for (int j = 0; j < MAX_CITIES; j++) {
-                for (int k = 0; k < NUM_WEATHER_CONDITIONS; k++) {
-                    adjacencyMatrix[i][j][k] = (i == j) ? 0 : INFINITY;
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Constructor que reserva espacio para un número esperado de ciudades.
+     * El grafo crece automáticamente si se agregan más.
+     * 
+     * @param expectedCities Número esperado de ciudades.
+     */
+    public Graph(int expectedCities) {
+        this(new CityRegistry(expectedCities), expectedCities, false);
+    }
+    
+    /**
+     * Constructor que permite elegir entre grafo dirigido y no dirigido.
+     * En un grafo no dirigido addEdge, removeEdge y updateWeatherCondition afectan a
+     * ambos sentidos de la conexión.
+     * 
+     * @param expectedCities Número esperado de ciudades.
+     * @param undirected true para un grafo no dirigido.
+     */
+    public Graph(int expectedCities, boolean undirected) {
+        this(new CityRegistry(expectedCities), expectedCities, undirected);
+    }
+    
+    /**
+     * Constructor que usa un diccionario de ciudades ya construido (ver {@link GraphBuilder}).
+     */
+    Graph(CityRegistry cities, int expectedCities, boolean undirected) {
+        this.cities = cities;
+        this.undirected = undirected;
+        this.numCities = cities.size();
+        this.capacity = Math.max(Math.max(expectedCities, numCities), 1);
+        this.layers = new double[NUM_WEATHER_CONDITIONS][];
+        for (int k = 0; k < NUM_WEATHER_CONDITIONS; k++) {
+            layers[k] = newLayer(capacity);
+        }
+    }
+    
+    /**
+     * Crea una capa vacía: cero en la diagonal e infinito en el resto.
+     */
+    private double[] newLayer(int capacity) {
+        double[] layer = new double[undirected ? triangleSize(capacity) : capacity * capacity];
+        Arrays.fill(layer, INFINITY);
+        for (int i = 0; i < capacity; i++) {
+            layer[undirected ? triangleIndex(i, i) : i * capacity + i] = 0;
+        }
+        return layer;
+    }
+    
+    /**
+     * Número de celdas del triángulo inferior (con diagonal) de una matriz n×n.
+     */
+    static int triangleSize(int n) {
+        return n * (n + 1) / 2;
+    }
+    
+    /**
+     * Posición de la celda (i, j) en el triángulo inferior empaquetado por filas.
+     * La fila i ocupa las posiciones i(i+1)/2 .. i(i+1)/2 + i, así que agregar una ciudad
+     * solo añade una fila al final.
+     */
+    static int triangleIndex(int i, int j) {
+        return (i >= j) ? i * (i + 1) / 2 + j : j * (j + 1) / 2 + i;
+    }
+    
+    /**
+     * Amplía las capas si el número de ciudades supera la capacidad reservada.
+     */
+    private void ensureCapacity(int required) {
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity * 2);
+        for (int k = 0; k < NUM_WEATHER_CONDITIONS; k++) {
+            double[] layer = newLayer(newCapacity);
+            if (undirected) {
+                // Las filas del triángulo no dependen de la capacidad: se copian de una vez
+                System.arraycopy(layers[k], 0, layer, 0, triangleSize(numCities));
+            } else {
+                for (int i = 0; i < numCities; i++) {
+                    System.arraycopy(layers[k], i * capacity, layer, i * newCapacity, numCities);
                 }
             }
+            layers[k] = layer;
         }
+        capacity = newCapacity;
+    }
+    
+    /**
+     * Posición de la arista origen→destino dentro de cada capa.
+     */
+    private int cell(int fromIndex, int toIndex) {
+        return undirected ? triangleIndex(fromIndex, toIndex) : fromIndex * capacity + toIndex;
     }
     
     /**
@@ -49,11 +143,15 @@ public class Graph {
      * 
      * @param cityName Nombre de la ciudad a agregar.
      */
-    public void addCity(String cityName) {
-        if (!cityIndex.containsKey(cityName)) {
-            cityIndex.put(cityName, numCities);
-            cities.add(cityName);
-            numCities++;
+    public synchronized void addCity(String cityName) {
+        cities.add(cityName);
+        if (cities.size() != numCities) {
+            ensureCapacity(cities.size());
+            numCities = cities.size();
+            version++;
+            for (GraphListener listener : listeners) {
+                listener.cityAdded(cityName);
+            }
         }
     }
     
@@ -67,18 +165,25 @@ public class Graph {
      * @param snowTime Tiempo con nieve.
      * @param stormTime Tiempo con tormenta.
      */
-    public void addEdge(String from, String to, double normalTime, 
+    public synchronized void addEdge(String from, String to, double normalTime, 
                        double rainTime, double snowTime, double stormTime) {
-        addCity(from);
-        addCity(to);
-        
-        int fromIndex = cityIndex.get(from);
-        int toIndex = cityIndex.get(to);
+        int fromIndex = cities.add(from);
+        int toIndex = cities.add(to);
+        ensureCapacity(cities.size());
+        numCities = cities.size();
         
-        adjacencyMatrix[fromIndex][toIndex][NORMAL] = normalTime;
-        adjacencyMatrix[fromIndex][toIndex][RAIN] = rainTime;
-        adjacencyMatrix[fromIndex][toIndex][SNOW] = snowTime;
-        adjacencyMatrix[fromIndex][toIndex][STORM] = stormTime;
+        int cell = cell(fromIndex, toIndex);
+        layers[NORMAL][cell] = normalTime;
+        layers[RAIN][cell] = rainTime;
+        layers[SNOW][cell] = snowTime;
+        layers[STORM][cell] = stormTime;
+        version++;
+        if (!listeners.isEmpty()) {
+            double[] times = {normalTime, rainTime, snowTime, stormTime};
+            for (GraphListener listener : listeners) {
+                listener.edgeAdded(from, to, times);
+            }
+        }
     }
     
     /**
@@ -87,13 +192,16 @@ public class Graph {
      * @param from Ciudad de origen.
      * @param to Ciudad destino.
      */
-    public void removeEdge(String from, String to) {
-        if (cityIndex.containsKey(from) && cityIndex.containsKey(to)) {
-            int fromIndex = cityIndex.get(from);
-            int toIndex = cityIndex.get(to);
-            
+    public synchronized void removeEdge(String from, String to) {
+        int fromIndex = cities.indexOf(from);
+        int toIndex = cities.indexOf(to);
+        if (fromIndex != -1 && toIndex != -1) {
             for (int k = 0; k < NUM_WEATHER_CONDITIONS; k++) {
-                adjacencyMatrix[fromIndex][toIndex][k] = INFINITY;
+                layers[k][cell(fromIndex, toIndex)] = INFINITY;
+            }
+            version++;
+            for (GraphListener listener : listeners) {
+                listener.edgeRemoved(from, to);
             }
         }
     }
@@ -106,26 +214,97 @@ public class Graph {
      * @param weatherCondition Condición climática a actualizar.
      * @param time Nuevo tiempo para la condición climática.
      */
-    public void updateWeatherCondition(String from, String to, int weatherCondition, double time) {
-        if (cityIndex.containsKey(from) && cityIndex.containsKey(to) && 
+    public synchronized void updateWeatherCondition(String from, String to, int weatherCondition, double time) {
+        int fromIndex = cities.indexOf(from);
+        int toIndex = cities.indexOf(to);
+        if (fromIndex != -1 && toIndex != -1 && 
             weatherCondition >= 0 && weatherCondition < NUM_WEATHER_CONDITIONS) {
-            int fromIndex = cityIndex.get(from);
-            int toIndex = cityIndex.get(to);
-            adjacencyMatrix[fromIndex][toIndex][weatherCondition] = time;
+            layers[weatherCondition][cell(fromIndex, toIndex)] = time;
+            version++;
+            for (GraphListener listener : listeners) {
+                listener.weatherConditionUpdated(from, to, weatherCondition, time);
+            }
+        }
+    }
+    
+    /**
+     * Aplica un lote de actualizaciones climáticas de forma atómica: ninguna otra
+     * modificación (ni una compactación de la bitácora) puede intercalarse en el lote.
+     * 
+     * @param updates Actualizaciones a aplicar en orden.
+     * @return Número de actualizaciones aplicadas (se omiten las de ciudades inexistentes).
+     */
+    public synchronized int updateWeatherConditions(List<WeatherUpdate> updates) {
+        int applied = 0;
+        for (WeatherUpdate update : updates) {
+            long before = version;
+            updateWeatherCondition(update.getFromCity(), update.getToCity(),
+                update.getWeatherCondition(), update.getTime());
+            if (version != before) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+    
+    /**
+     * Registra un observador de las modificaciones del grafo.
+     * 
+     * @param listener Observador a registrar.
+     */
+    public void addListener(GraphListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Elimina un observador registrado.
+     * 
+     * @param listener Observador a eliminar.
+     */
+    public void removeListener(GraphListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Carga aristas en bloque sin pasar por {@link #addEdge}: no resuelve nombres ni
+     * notifica a los observadores, y cuenta como una sola modificación.
+     * Las aristas repetidas conservan el último valor, igual que con addEdge.
+     *
+     * @param from Índices de origen.
+     * @param to Índices de destino.
+     * @param times Tiempos por condición climática: times[k][e] para la arista e.
+     * @param count Número de aristas.
+     */
+    synchronized void loadEdges(int[] from, int[] to, double[][] times, int count) {
+        for (int k = 0; k < NUM_WEATHER_CONDITIONS; k++) {
+            double[] layer = layers[k];
+            double[] values = times[k];
+            for (int e = 0; e < count; e++) {
+                layer[cell(from[e], to[e])] = values[e];
+            }
         }
+        version++;
     }
     
     /**
      * Obtiene la matriz de adyacencia para una condición climática específica.
+     * La copia se hace con el grafo bloqueado, así que corresponde a un solo estado del
+     * grafo aunque otro hilo lo esté modificando.
      * 
      * @param weatherCondition Condición climática.
      * @return Matriz de adyacencia correspondiente.
      */
-    public double[][] getAdjacencyMatrix(int weatherCondition) {
-        double[][] matrix = new double[numCities][numCities];
+    public synchronized double[][] getAdjacencyMatrix(int weatherCondition) {
+        double[][] matrix = new double[numCities][];
+        double[] layer = layers[weatherCondition];
         for (int i = 0; i < numCities; i++) {
-            for (int j = 0; j < numCities; j++) {
-                matrix[i][j] = adjacencyMatrix[i][j][weatherCondition];
+            if (undirected) {
+                matrix[i] = new double[numCities];
+                for (int j = 0; j < numCities; j++) {
+                    matrix[i][j] = layer[triangleIndex(i, j)];
+                }
+            } else {
+                matrix[i] = Arrays.copyOfRange(layer, i * capacity, i * capacity + numCities);
             }
         }
         return matrix;
@@ -138,7 +317,7 @@ public class Graph {
      * @return Nombre de la ciudad o null si el índice es inválido.
      */
     public String getCityName(int index) {
-        return (index >= 0 && index < cities.size()) ? cities.get(index) : null;
+        return cities.nameOf(index);
     }
     
     /**
@@ -148,7 +327,63 @@ public class Graph {
      * @return Índice de la ciudad o null si no existe.
      */
     public Integer getCityIndex(String cityName) {
-        return cityIndex.get(cityName);
+        int index = cities.indexOf(cityName);
+        return (index != -1) ? Integer.valueOf(index) : null;
+    }
+
+    /**
+     * Obtiene el índice de la ciudad por nombre sin crear objetos.
+     * Preferible a {@link #getCityIndex(String)} en rutas de consulta frecuentes.
+     *
+     * @param cityName Nombre de la ciudad.
+     * @return Índice de la ciudad o -1 si no existe.
+     */
+    public int indexOf(String cityName) {
+        return cities.indexOf(cityName);
+    }
+
+    /**
+     * Verifica si una ciudad existe en el grafo.
+     *
+     * @param cityName Nombre de la ciudad.
+     * @return true si la ciudad existe, false en caso contrario.
+     */
+    public boolean containsCity(String cityName) {
+        return cities.indexOf(cityName) != -1;
+    }
+    
+    /**
+     * Indica si el grafo es no dirigido (cada conexión vale en ambos sentidos).
+     *
+     * @return true si el grafo es no dirigido.
+     */
+    public boolean isUndirected() {
+        return undirected;
+    }
+
+    /**
+     * Copia el triángulo inferior empaquetado de una capa de un grafo no dirigido.
+     * La celda (i, j) está en {@link #triangleIndex(int, int)}.
+     *
+     * @param weatherCondition Condición climática.
+     * @return Copia de la capa con {@link #triangleSize(int)} celdas.
+     * @throws IllegalStateException si el grafo es dirigido.
+     */
+    synchronized double[] getPackedLayer(int weatherCondition) {
+        if (!undirected) {
+            throw new IllegalStateException("El grafo es dirigido");
+        }
+        return Arrays.copyOf(layers[weatherCondition], triangleSize(numCities));
+    }
+
+    /**
+     * Obtiene la versión del grafo, que cambia con cada modificación.
+     * Permite a los índices derivados detectar si están desactualizados.
+     *
+     * @return Versión actual del grafo.
+     */
+    public long getVersion() {
+        return version;
     }
     
     /**
@@ -162,11 +397,12 @@ public class Graph {
     
     /**
      * Obtiene la lista de todas las ciudades.
+     * Es una vista de solo lectura (sin copia) que refleja las ciudades agregadas después.
      * 
      * @return Lista de nombres de ciudades.
      */
     public List<String> getCities() {
-        return new ArrayList<>(cities);
+        return cities.names();
     }
     
     /**
@@ -177,13 +413,13 @@ public class Graph {
      * @param weatherCondition Condición climática.
      * @return true si existe la arista, false en caso contrario.
      */
-    public boolean hasEdge(String from, String to, int weatherCondition) {
-        if (!cityIndex.containsKey(from) || !cityIndex.containsKey(to)) {
+    public synchronized boolean hasEdge(String from, String to, int weatherCondition) {
+        int fromIndex = cities.indexOf(from);
+        int toIndex = cities.indexOf(to);
+        if (fromIndex == -1 || toIndex == -1) {
             return false;
         }
-        int fromIndex = cityIndex.get(from);
-        int toIndex = cityIndex.get(to);
-        return adjacencyMatrix[fromIndex][toIndex][weatherCondition] != INFINITY;
+        return layers[weatherCondition][cell(fromIndex, toIndex)] != INFINITY;
     }
     
     /**
@@ -194,15 +430,51 @@ public class Graph {
      * @param weatherCondition Condición climática.
      * @return Peso de la arista o infinito si no existe.
      */
-    public double getEdgeWeight(String from, String to, int weatherCondition) {
-        if (!cityIndex.containsKey(from) || !cityIndex.containsKey(to)) {
+    public synchronized double getEdgeWeight(String from, String to, int weatherCondition) {
+        int fromIndex = cities.indexOf(from);
+        int toIndex = cities.indexOf(to);
+        if (fromIndex == -1 || toIndex == -1) {
             return INFINITY;
         }
-        int fromIndex = cityIndex.get(from);
-        int toIndex = cityIndex.get(to);
-        return adjacencyMatrix[fromIndex][toIndex][weatherCondition];
+        return layers[weatherCondition][cell(fromIndex, toIndex)];
     }
-    
+
+    /**
+     * Obtiene el peso de la arista entre dos ciudades dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return Peso de la arista o infinito si no existe.
+     */
+    public synchronized double getEdgeWeight(int fromIndex, int toIndex, int weatherCondition) {
+        return layers[weatherCondition][cell(fromIndex, toIndex)];
+    }
+
+    /**
+     * Obtiene las listas de adyacencia (índices de destino) para una condición climática.
+     * Útil para los algoritmos que recorren solo las aristas existentes. Se calculan con el
+     * grafo bloqueado, así que corresponden a un solo estado del grafo.
+     *
+     * @param weatherCondition Condición climática.
+     * @return Arreglo donde la posición i contiene los destinos alcanzables desde i.
+     */
+    public synchronized int[][] getAdjacencyLists(int weatherCondition) {
+        int[][] lists = new int[numCities][];
+        int[] buffer = new int[numCities];
+        double[] layer = layers[weatherCondition];
+        for (int i = 0; i < numCities; i++) {
+            int count = 0;
+            for (int j = 0; j < numCities; j++) {
+                if (i != j && layer[cell(i, j)] != INFINITY) {
+                    buffer[count++] = j;
+                }
+            }
+            lists[i] = Arrays.copyOf(buffer, count);
+        }
+        return lists;
+    }
+
     /**
      * Muestra la matriz de adyacencia para una condición climática específica.
      * 
@@ -212,25 +484,6 @@ public class Graph {
         String[] weatherNames = {"Normal", "Lluvia", "Nieve", "Tormenta"};
         System.out.println("\nMatriz de Adyacencia (clima: " + weatherNames[weatherCondition] + "):");
         
-        // Imprimir encabezado
-        System.out.print("\t\t");
-        for (int j = 0; j < numCities; j++) {
-            System.out.printf("%-12s", cities.get(j));
-        }
-        System.out.println();
-        
-        // Imprimir matriz
-        for (int i = 0; i < numCities; i++) {
-            System.out.printf("%-12s", cities.get(i));
-            for (int j = 0; j < numCities; j++) {
-                double weight = adjacencyMatrix[i][j][weatherCondition];
-                if (weight == INFINITY) {
-                    System.out.printf("%-12s", "∞");
-                } else {
-                    System.out.printf("%-12.1f", weight);
-                }
-            }
-            System.out.println();
-        }
+        MatrixExporter.forAdjacency(this, weatherCondition).displayWindow(0, numCities, 0, numCities);
     }
 }
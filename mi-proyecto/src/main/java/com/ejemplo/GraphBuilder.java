@@ -0,0 +1,232 @@
+package com.ejemplo;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Constructor de grafos en bloque. Acumula las aristas en arreglos primitivos con la
+ * capacidad indicada, resuelve cada nombre con una sola búsqueda en el diccionario de
+ * ciudades y llena el grafo de una pasada al final, sin pasar por {@link Graph#addEdge}
+ * (sin búsquedas repetidas, ni versiones ni notificaciones por arista).
+ */
+public class GraphBuilder {
+    private final CityRegistry cities;
+    private int[] from;
+    private int[] to;
+    private double[][] times; // [condición][arista]
+    private int edgeCount;
+    private final boolean undirected;
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    /**
+     * Constructor que crea un constructor vacío con capacidades por defecto.
+     */
+    public GraphBuilder() {
+        this(16, 16);
+    }
+
+    /**
+     * Constructor que reserva espacio para los tamaños esperados.
+     *
+     * @param expectedCities Número esperado de ciudades.
+     * @param expectedEdges Número esperado de aristas.
+     */
+    public GraphBuilder(int expectedCities, int expectedEdges) {
+        this(expectedCities, expectedEdges, false);
+    }
+
+    /**
+     * Constructor que reserva espacio y elige el tipo de grafo a construir.
+     *
+     * @param expectedCities Número esperado de ciudades.
+     * @param expectedEdges Número esperado de aristas.
+     * @param undirected true para construir un grafo no dirigido.
+     */
+    public GraphBuilder(int expectedCities, int expectedEdges, boolean undirected) {
+        this.undirected = undirected;
+        int edges = Math.max(expectedEdges, 1);
+        this.cities = new CityRegistry(expectedCities);
+        this.from = new int[edges];
+        this.to = new int[edges];
+        this.times = new double[Graph.NUM_WEATHER_CONDITIONS][edges];
+        this.edgeCount = 0;
+    }
+
+    /**
+     * Agrega una ciudad (si no existe) y devuelve su índice, que puede usarse con
+     * {@link #addEdge(int, int, double, double, double, double)} para no volver a resolver el nombre.
+     *
+     * @param cityName Nombre de la ciudad.
+     * @return Índice de la ciudad en el grafo resultante.
+     */
+    public int addCity(String cityName) {
+        return cities.add(cityName);
+    }
+
+    /**
+     * Agrega una arista entre dos ciudades, creando las ciudades si no existen.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param normalTime Tiempo con clima normal.
+     * @param rainTime Tiempo con lluvia.
+     * @param snowTime Tiempo con nieve.
+     * @param stormTime Tiempo con tormenta.
+     * @return Este constructor, para encadenar llamadas.
+     */
+    public GraphBuilder addEdge(String fromCity, String toCity, double normalTime,
+                                double rainTime, double snowTime, double stormTime) {
+        return addEdge(cities.add(fromCity), cities.add(toCity), normalTime, rainTime, snowTime, stormTime);
+    }
+
+    /**
+     * Agrega una arista entre dos ciudades ya agregadas, dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @param normalTime Tiempo con clima normal.
+     * @param rainTime Tiempo con lluvia.
+     * @param snowTime Tiempo con nieve.
+     * @param stormTime Tiempo con tormenta.
+     * @return Este constructor, para encadenar llamadas.
+     * @throws IllegalArgumentException si algún índice no corresponde a una ciudad agregada.
+     */
+    public GraphBuilder addEdge(int fromIndex, int toIndex, double normalTime,
+                                double rainTime, double snowTime, double stormTime) {
+        if (fromIndex < 0 || fromIndex >= cities.size() || toIndex < 0 || toIndex >= cities.size()) {
+            throw new IllegalArgumentException("Índice de ciudad inválido");
+        }
+        if (edgeCount == from.length) {
+            grow(edgeCount * 2);
+        }
+        from[edgeCount] = fromIndex;
+        to[edgeCount] = toIndex;
+        times[Graph.NORMAL][edgeCount] = normalTime;
+        times[Graph.RAIN][edgeCount] = rainTime;
+        times[Graph.SNOW][edgeCount] = snowTime;
+        times[Graph.STORM][edgeCount] = stormTime;
+        edgeCount++;
+        return this;
+    }
+
+    /**
+     * Agrega aristas en bloque desde arreglos paralelos de índices y tiempos.
+     *
+     * @param fromIndices Índices de origen.
+     * @param toIndices Índices de destino.
+     * @param normalTimes Tiempos con clima normal.
+     * @param rainTimes Tiempos con lluvia.
+     * @param snowTimes Tiempos con nieve.
+     * @param stormTimes Tiempos con tormenta.
+     * @param count Número de aristas a tomar de los arreglos.
+     * @return Este constructor, para encadenar llamadas.
+     * @throws IllegalArgumentException si algún índice no corresponde a una ciudad agregada.
+     */
+    public GraphBuilder addEdges(int[] fromIndices, int[] toIndices, double[] normalTimes,
+                                 double[] rainTimes, double[] snowTimes, double[] stormTimes, int count) {
+        int n = cities.size();
+        for (int e = 0; e < count; e++) {
+            if (fromIndices[e] < 0 || fromIndices[e] >= n || toIndices[e] < 0 || toIndices[e] >= n) {
+                throw new IllegalArgumentException("Índice de ciudad inválido en la arista " + e);
+            }
+        }
+        if (edgeCount + count > from.length) {
+            grow(Math.max(edgeCount + count, from.length * 2));
+        }
+        System.arraycopy(fromIndices, 0, from, edgeCount, count);
+        System.arraycopy(toIndices, 0, to, edgeCount, count);
+        System.arraycopy(normalTimes, 0, times[Graph.NORMAL], edgeCount, count);
+        System.arraycopy(rainTimes, 0, times[Graph.RAIN], edgeCount, count);
+        System.arraycopy(snowTimes, 0, times[Graph.SNOW], edgeCount, count);
+        System.arraycopy(stormTimes, 0, times[Graph.STORM], edgeCount, count);
+        edgeCount += count;
+        return this;
+    }
+
+    private void grow(int newCapacity) {
+        from = Arrays.copyOf(from, newCapacity);
+        to = Arrays.copyOf(to, newCapacity);
+        for (int k = 0; k < Graph.NUM_WEATHER_CONDITIONS; k++) {
+            times[k] = Arrays.copyOf(times[k], newCapacity);
+        }
+    }
+
+    /**
+     * Obtiene el número de ciudades agregadas.
+     *
+     * @return Número de ciudades.
+     */
+    public int getCityCount() {
+        return cities.size();
+    }
+
+    /**
+     * Obtiene el número de aristas agregadas (incluidas las repetidas).
+     *
+     * @return Número de aristas.
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Construye el grafo con matrices del tamaño exacto y lo llena en una sola pasada.
+     * El constructor no debe seguir usándose después de llamar a este método.
+     *
+     * @return Grafo con las ciudades y aristas agregadas.
+     */
+    public Graph build() {
+        Graph graph = new Graph(cities, cities.size(), undirected);
+        graph.loadEdges(from, to, times, edgeCount);
+        return graph;
+    }
+
+    /**
+     * Construye la copia dispersa de una capa sin crear las matrices del grafo. Como en
+     * {@link #build()}, si una arista se repite gana la última; no se incluyen las aristas
+     * con tiempo infinito ni las de una ciudad a sí misma.
+     *
+     * @param weatherCondition Condición climática.
+     * @return Grafo disperso con las aristas de esa capa.
+     */
+    SparseGraph buildSparse(int weatherCondition) {
+        double[] values = times[weatherCondition];
+        int capacity = undirected ? 2 * edgeCount : edgeCount;
+        int[] edgeFrom = new int[capacity];
+        int[] edgeTo = new int[capacity];
+        double[] edgeWeight = new double[capacity];
+        int count = 0;
+        Set<Long> seen = new HashSet<>();
+        for (int e = edgeCount - 1; e >= 0; e--) {
+            int u = from[e];
+            int v = to[e];
+            if (u == v) {
+                continue;
+            }
+            int a = undirected ? Math.min(u, v) : u;
+            int b = undirected ? Math.max(u, v) : v;
+            if (!seen.add((long) a << 32 | b) || values[e] == INFINITY) {
+                continue; // Ya la reemplazó una arista posterior, o la capa no la tiene
+            }
+            edgeFrom[count] = u;
+            edgeTo[count] = v;
+            edgeWeight[count++] = values[e];
+            if (undirected) {
+                edgeFrom[count] = v;
+                edgeTo[count] = u;
+                edgeWeight[count++] = values[e];
+            }
+        }
+        return new SparseGraph(cities.size(), edgeFrom, edgeTo, edgeWeight, count);
+    }
+
+    /**
+     * Obtiene el diccionario de ciudades agregadas.
+     *
+     * @return Diccionario de ciudades (compartido, no se copia).
+     */
+    CityRegistry getCities() {
+        return cities;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ejemplo;
+
+/**
+ * Observador de las modificaciones del grafo. Los métodos se invocan después de aplicar
+ * cada cambio, en el hilo que lo realizó y mientras se mantiene el bloqueo del grafo.
+ */
+public interface GraphListener {
+    /**
+     * Se agregó una ciudad sin conexiones.
+     *
+     * @param cityName Nombre de la ciudad.
+     */
+    void cityAdded(String cityName);
+
+    /**
+     * Se agregó o reemplazó una arista.
+     *
+     * @param from Ciudad de origen.
+     * @param to Ciudad destino.
+     * @param times Tiempos de viaje por condición climática.
+     */
+    void edgeAdded(String from, String to, double[] times);
+
+    /**
+     * Se eliminó una arista.
+     *
+     * @param from Ciudad de origen.
+     * @param to Ciudad destino.
+     */
+    void edgeRemoved(String from, String to);
+
+    /**
+     * Se actualizó el tiempo de una arista para una condición climática.
+     *
+     * @param from Ciudad de origen.
+     * @param to Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @param time Nuevo tiempo de viaje.
+     */
+    void weatherConditionUpdated(String from, String to, int weatherCondition, double time);
+}
@@ -0,0 +1,331 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Búsqueda de las k rutas más cortas sin ciclos entre dos ciudades (algoritmo de Yen).
+ * La matriz de distancias ya resuelta por Floyd se usa como heurística exacta de A*
+ * en cada búsqueda de desvío, de modo que solo se exploran nodos que pueden mejorar
+ * las rutas candidatas actuales.
+ *
+ * Las instancias reutilizan sus arreglos de trabajo y no son seguras para hilos;
+ * se recomienda una instancia por hilo. Solo se copian las aristas existentes (O(m)),
+ * no la matriz de adyacencia; la matriz de distancias se comparte con Floyd.
+ *
+ * Con la heurística exacta cada búsqueda cierra pocos nodos fuera de las rutas
+ * candidatas; {@link #getSettledCount()} permite medirlo en la red real.
+ */
+public class KShortestPaths {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final Graph graph;
+    private final int numCities;
+    private final int[][] adjacency;
+    private final double[][] adjacencyWeights; // Peso de cada arista de las listas de adyacencia
+    private final double[][] heuristic;
+
+    // Arreglos de trabajo reutilizados entre búsquedas (marcados por "sello" para no limpiarlos)
+    private final double[] cost;
+    private final int[] parent;
+    private final int[] visitStamp;
+    private final int[] closedStamp;
+    private final int[] blockedNodeStamp;
+    private final int[] blockedEdgeStamp;
+    private int blockStamp;
+    private int searchStamp;
+    private long settled;
+
+    // Montículo de prioridad (clave f = g + h)
+    private final NodeHeap heap;
+
+    /**
+     * Constructor que prepara la búsqueda sobre la condición climática ya resuelta por Floyd.
+     *
+     * @param graph El grafo sobre el cual se buscarán las rutas.
+     * @param floyd Algoritmo de Floyd ya ejecutado sobre el mismo grafo.
+     * @throws IllegalStateException Si el algoritmo de Floyd aún no se ha ejecutado.
+     */
+    public KShortestPaths(Graph graph, Floyd floyd) {
+        int weatherCondition = floyd.getWeatherCondition();
+        if (weatherCondition < 0) {
+            throw new IllegalStateException("Debe ejecutarse el algoritmo de Floyd antes de buscar rutas alternativas.");
+        }
+
+        this.graph = graph;
+        this.heuristic = floyd.getDistanceMatrix();
+        this.numCities = heuristic.length;
+        this.adjacency = graph.getAdjacencyLists(weatherCondition);
+        this.adjacencyWeights = new double[adjacency.length][];
+        for (int i = 0; i < adjacency.length; i++) {
+            adjacencyWeights[i] = new double[adjacency[i].length];
+            for (int e = 0; e < adjacency[i].length; e++) {
+                adjacencyWeights[i][e] = graph.getEdgeWeight(i, adjacency[i][e], weatherCondition);
+            }
+        }
+
+        this.cost = new double[numCities];
+        this.parent = new int[numCities];
+        this.visitStamp = new int[numCities];
+        this.closedStamp = new int[numCities];
+        this.blockedNodeStamp = new int[numCities];
+        this.blockedEdgeStamp = new int[numCities];
+        this.heap = new NodeHeap(numCities + 1);
+    }
+
+    /**
+     * Obtiene hasta k rutas sin ciclos entre dos ciudades, ordenadas por costo.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param k Número máximo de rutas a devolver.
+     * @return Lista de rutas ordenada de menor a mayor costo (vacía si no existe ruta).
+     */
+    public List<Route> findKShortestPaths(String fromCity, String toCity, int k) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        List<Route> routes = new ArrayList<>();
+
+        if (fromIndex == -1 || toIndex == -1 || k <= 0
+                || fromIndex >= numCities || toIndex >= numCities) {
+            return routes;
+        }
+
+        for (int[] path : findKShortestPaths(fromIndex, toIndex, k)) {
+            List<String> names = new ArrayList<>(path.length);
+            for (int city : path) {
+                names.add(graph.getCityName(city));
+            }
+            routes.add(new Route(names, pathCost(path)));
+        }
+        return routes;
+    }
+
+    /**
+     * Obtiene hasta k rutas sin ciclos entre dos ciudades dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @param k Número máximo de rutas a devolver.
+     * @return Lista de rutas como arreglos de índices, ordenada por costo.
+     */
+    public List<int[]> findKShortestPaths(int fromIndex, int toIndex, int k) {
+        List<int[]> accepted = new ArrayList<>();
+        settled = 0;
+        if (k <= 0 || heuristic[fromIndex][toIndex] == INFINITY) {
+            return accepted;
+        }
+
+        blockStamp++;
+        int[] first = search(fromIndex, toIndex, INFINITY);
+        if (first == null) {
+            return accepted;
+        }
+        accepted.add(first);
+
+        // Candidatas ordenadas; solo se conservan las que todavía pueden entrar al resultado
+        TreeSet<Candidate> candidates = new TreeSet<>();
+
+        while (accepted.size() < k) {
+            int[] previous = accepted.get(accepted.size() - 1);
+            int needed = k - accepted.size();
+            double rootCost = 0;
+
+            for (int i = 0; i < previous.length - 1; i++) {
+                int spur = previous[i];
+                if (i > 0) {
+                    rootCost += edgeWeight(previous[i - 1], spur);
+                }
+
+                // Cota: la k-ésima candidata necesaria; la heurística da una cota inferior exacta
+                double bound = (candidates.size() >= needed) ? candidates.last().cost : INFINITY;
+                if (rootCost + heuristic[spur][toIndex] >= bound) {
+                    continue;
+                }
+
+                blockStamp++;
+                for (int r = 0; r < i; r++) {
+                    blockedNodeStamp[previous[r]] = blockStamp;
+                }
+                for (int[] path : accepted) {
+                    if (path.length > i + 1 && samePrefix(path, previous, i)) {
+                        blockedEdgeStamp[path[i + 1]] = blockStamp;
+                    }
+                }
+
+                int[] spurPath = search(spur, toIndex, bound - rootCost);
+                if (spurPath == null) {
+                    continue;
+                }
+
+                int[] total = new int[i + spurPath.length];
+                System.arraycopy(previous, 0, total, 0, i);
+                System.arraycopy(spurPath, 0, total, i, spurPath.length);
+                candidates.add(new Candidate(total, rootCost + pathCost(spurPath)));
+                if (candidates.size() > needed) {
+                    candidates.pollLast();
+                }
+            }
+
+            if (candidates.isEmpty()) {
+                break;
+            }
+            accepted.add(candidates.pollFirst().path);
+        }
+
+        return accepted;
+    }
+
+    /**
+     * Búsqueda A* desde el nodo de desvío respetando los nodos y aristas bloqueados.
+     *
+     * @param source Nodo de desvío.
+     * @param target Nodo destino.
+     * @param limit Costo a partir del cual una ruta ya no es útil.
+     * @return Ruta encontrada o null si no existe ninguna por debajo del límite.
+     */
+    private int[] search(int source, int target, double limit) {
+        searchStamp++;
+        heap.clear();
+        cost[source] = 0;
+        parent[source] = -1;
+        visitStamp[source] = searchStamp;
+        heap.push(source, heuristic[source][target]);
+
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            if (closedStamp[node] == searchStamp) {
+                continue;
+            }
+            closedStamp[node] = searchStamp;
+            settled++;
+
+            if (node == target) {
+                return buildPath(target);
+            }
+
+            double g = cost[node];
+            int[] neighbors = adjacency[node];
+            double[] neighborWeights = adjacencyWeights[node];
+            for (int e = 0; e < neighbors.length; e++) {
+                int neighbor = neighbors[e];
+                if (neighbor >= numCities || blockedNodeStamp[neighbor] == blockStamp
+                        || closedStamp[neighbor] == searchStamp) {
+                    continue;
+                }
+                if (node == source && blockedEdgeStamp[neighbor] == blockStamp) {
+                    continue;
+                }
+
+                double h = heuristic[neighbor][target];
+                if (h == INFINITY) {
+                    continue;
+                }
+
+                double newCost = g + neighborWeights[e];
+                double f = newCost + h;
+                if (f >= limit) {
+                    continue;
+                }
+
+                if (visitStamp[neighbor] != searchStamp || newCost < cost[neighbor]) {
+                    visitStamp[neighbor] = searchStamp;
+                    cost[neighbor] = newCost;
+                    parent[neighbor] = node;
+                    heap.push(neighbor, f);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Obtiene el número de nodos cerrados por todas las búsquedas de la última consulta.
+     *
+     * @return Nodos cerrados.
+     */
+    public long getSettledCount() {
+        return settled;
+    }
+
+    /**
+     * Reconstruye la ruta encontrada por la búsqueda siguiendo los padres.
+     */
+    private int[] buildPath(int target) {
+        int length = 0;
+        for (int node = target; node != -1; node = parent[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = target; node != -1; node = parent[node]) {
+            path[--length] = node;
+        }
+        return path;
+    }
+
+    /**
+     * Calcula el costo de una ruta sumando sus aristas.
+     */
+    private double pathCost(int[] path) {
+        double total = 0;
+        for (int i = 0; i < path.length - 1; i++) {
+            total += edgeWeight(path[i], path[i + 1]);
+        }
+        return total;
+    }
+
+    /**
+     * Busca el peso de una arista en la lista de adyacencia de su origen.
+     */
+    private double edgeWeight(int from, int to) {
+        int[] neighbors = adjacency[from];
+        for (int e = 0; e < neighbors.length; e++) {
+            if (neighbors[e] == to) {
+                return adjacencyWeights[from][e];
+            }
+        }
+        return INFINITY;
+    }
+
+    /**
+     * Verifica si dos rutas comparten los nodos 0..length (inclusive).
+     */
+    private static boolean samePrefix(int[] a, int[] b, int length) {
+        for (int i = 0; i <= length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ruta candidata ordenada por costo y, en empate, por su secuencia de nodos.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final int[] path;
+        private final double cost;
+
+        Candidate(int[] path, double cost) {
+            this.path = path;
+            this.cost = cost;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byCost = Double.compare(cost, other.cost);
+            if (byCost != 0) {
+                return byCost;
+            }
+            int length = Math.min(path.length, other.path.length);
+            for (int i = 0; i < length; i++) {
+                if (path[i] != other.path[i]) {
+                    return Integer.compare(path[i], other.path[i]);
+                }
+            }
+            return Integer.compare(path.length, other.path.length);
+        }
+    }
+}
@@ -0,0 +1,556 @@
+package com.ejemplo;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Prueba de carga de extremo a extremo: reproduce desde varios hilos una mezcla
+ * configurable de consultas de ruta, consultas del centro, cierres (y reaperturas) de
+ * tramos y cambios de clima sobre un {@link Graph}, y mide rendimiento, percentiles de
+ * latencia por operación, tiempos de las soluciones calculadas y memoria máxima del heap,
+ * para comparar versiones del sistema.
+ *
+ * Las operaciones pasan por los mismos componentes que atienden al sistema: las rutas por
+ * una {@link RouteCache} sobre un {@link RouteEngine}, el centro por el motor y los cambios
+ * de clima por un {@link WeatherFeed} como lotes de una actualización. Los cambios solo
+ * toman el bloqueo del grafo y el motor decide cuándo y cómo recalcular, así que la
+ * latencia de las consultas incluye los cálculos que les toque hacer.
+ *
+ * Uso: LoadTest [clave=valor ...] con las claves ciudades, regiones, hilos, operaciones,
+ * mezcla (pesos ruta,centro,cierre,clima), clima (índice o nombre), semilla, entrada
+ * (archivo a cargar en lugar de generar la red) y salida (archivo donde guardar la red
+ * generada).
+ */
+public class LoadTest {
+    static final int ROUTE = 0;
+    static final int CENTER = 1;
+    static final int CLOSURE = 2;
+    static final int WEATHER = 3;
+    private static final String[] OPERATION_NAMES = {"ruta", "centro", "cierre", "clima"};
+    private static final double NANOS_PER_MICRO = 1e3;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final int CACHE_CAPACITY = 1024;
+
+    private final Graph graph;
+    private final int weatherCondition;
+    private final int[] cumulativeMix;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final double[][] edgeTimes; // [arista][condición] tiempos originales
+    private final boolean[] closed; // Protegido por el bloqueo del grafo
+
+    // Resultados de la última ejecución
+    private long[][] latencies; // [operación] -> latencias en nanosegundos
+    private long[] recomputeNanos;
+    private int recomputeCount;
+    private long[] decisionCounts; // [estrategia del motor]
+    private long discardedSolutions;
+    private double cacheHitRate;
+    private long elapsedNanos;
+    private long peakHeapBytes;
+    private long unreachableRoutes;
+
+    /**
+     * Constructor que prepara la prueba sobre un grafo. Los cierres y cambios de clima se
+     * aplican a las aristas que el grafo tiene para la condición climática resuelta.
+     *
+     * @param graph El grafo; la prueba lo modifica.
+     * @param weatherCondition Condición climática de las consultas.
+     * @param mix Pesos de ruta, centro, cierre y clima.
+     * @throws IllegalArgumentException si la condición climática o la mezcla no son válidas
+     *         o el grafo no tiene aristas en esa condición climática.
+     */
+    public LoadTest(Graph graph, int weatherCondition, int[] mix) {
+        if (weatherCondition < 0 || weatherCondition >= Graph.NUM_WEATHER_CONDITIONS) {
+            throw new IllegalArgumentException("Condición climática inválida: " + weatherCondition);
+        }
+        if (mix.length != OPERATION_NAMES.length) {
+            throw new IllegalArgumentException("La mezcla necesita " + OPERATION_NAMES.length + " pesos");
+        }
+        this.graph = graph;
+        this.weatherCondition = weatherCondition;
+        this.cumulativeMix = new int[mix.length];
+        int total = 0;
+        for (int op = 0; op < mix.length; op++) {
+            if (mix[op] < 0) {
+                throw new IllegalArgumentException("Peso negativo en la mezcla: " + mix[op]);
+            }
+            total += mix[op];
+            cumulativeMix[op] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("La mezcla no tiene ninguna operación");
+        }
+
+        int[][] lists = graph.getAdjacencyLists(weatherCondition);
+        int edges = 0;
+        for (int[] list : lists) {
+            edges += list.length;
+        }
+        if (edges == 0) {
+            throw new IllegalArgumentException("El grafo no tiene aristas en la condición climática " + weatherCondition);
+        }
+        this.edgeFrom = new int[edges];
+        this.edgeTo = new int[edges];
+        this.edgeTimes = new double[edges][Graph.NUM_WEATHER_CONDITIONS];
+        int e = 0;
+        for (int i = 0; i < lists.length; i++) {
+            for (int j : lists[i]) {
+                edgeFrom[e] = i;
+                edgeTo[e] = j;
+                for (int k = 0; k < Graph.NUM_WEATHER_CONDITIONS; k++) {
+                    edgeTimes[e][k] = graph.getEdgeWeight(i, j, k);
+                }
+                e++;
+            }
+        }
+        this.closed = new boolean[edges];
+    }
+
+    /**
+     * Ejecuta la prueba.
+     *
+     * @param threads Número de hilos.
+     * @param operations Número total de operaciones, repartidas entre los hilos.
+     * @param seed Semilla para elegir las operaciones.
+     * @throws IllegalArgumentException si no hay hilos o el número de operaciones es negativo.
+     * @throws IllegalStateException si algún hilo falla; sus mediciones quedarían incompletas.
+     * @throws InterruptedException si se interrumpe la espera de los hilos.
+     */
+    public void run(int threads, int operations, long seed) throws InterruptedException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Número de hilos inválido: " + threads);
+        }
+        if (operations < 0) {
+            throw new IllegalArgumentException("Número de operaciones inválido: " + operations);
+        }
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        for (MemoryPoolMXBean pool : pools) {
+            pool.resetPeakUsage();
+        }
+        recomputeNanos = new long[16];
+        recomputeCount = 0;
+        unreachableRoutes = 0;
+        RouteEngine engine = new RouteEngine(graph);
+        RouteCache cache = new RouteCache(graph, engine, CACHE_CAPACITY);
+        WeatherFeed feed = new WeatherFeed(graph);
+        engine.addDecisionListener(this::recordDecision);
+        try {
+            replayAll(engine, cache, feed, threads, operations, seed);
+            decisionCounts = new long[RouteEngine.STRATEGIES.length];
+            for (int s = 0; s < decisionCounts.length; s++) {
+                decisionCounts[s] = engine.getDecisionCount(RouteEngine.STRATEGIES[s]);
+            }
+            discardedSolutions = engine.getDiscardedSolutionCount();
+            cacheHitRate = cache.getHitRate();
+        } finally {
+            cache.close();
+            engine.close();
+        }
+        synchronized (this) {
+            Arrays.sort(recomputeNanos, 0, recomputeCount);
+        }
+
+        peakHeapBytes = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+    }
+
+    /**
+     * Reparte las operaciones entre los hilos, espera a que terminen y agrupa las latencias.
+     */
+    private void replayAll(RouteEngine engine, RouteCache cache, WeatherFeed feed,
+                           int threads, int operations, long seed) throws InterruptedException {
+        long[][] threadLatencies = new long[threads][];
+        byte[][] threadOperations = new byte[threads][];
+        long[] threadUnreachable = new long[threads];
+        Throwable[] failures = new Throwable[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            int count = operations / threads + (t < operations % threads ? 1 : 0);
+            threadLatencies[t] = new long[count];
+            threadOperations[t] = new byte[count];
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    threadUnreachable[index] = replay(engine, cache, feed, new Random(seed + index),
+                        threadLatencies[index], threadOperations[index]);
+                } catch (Throwable e) {
+                    failures[index] = e;
+                }
+            }, "carga-" + t);
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        elapsedNanos = System.nanoTime() - begin;
+        for (int t = 0; t < threads; t++) {
+            if (failures[t] != null) {
+                throw new IllegalStateException("Falló el hilo " + workers[t].getName(), failures[t]);
+            }
+        }
+
+        // Agrupa las latencias por operación
+        int[] counts = new int[OPERATION_NAMES.length];
+        for (int t = 0; t < threads; t++) {
+            for (byte op : threadOperations[t]) {
+                counts[op]++;
+            }
+            unreachableRoutes += threadUnreachable[t];
+        }
+        latencies = new long[OPERATION_NAMES.length][];
+        for (int op = 0; op < counts.length; op++) {
+            latencies[op] = new long[counts[op]];
+            counts[op] = 0;
+        }
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < threadOperations[t].length; i++) {
+                int op = threadOperations[t][i];
+                latencies[op][counts[op]++] = threadLatencies[t][i];
+            }
+        }
+        for (long[] values : latencies) {
+            Arrays.sort(values);
+        }
+    }
+
+    /**
+     * Guarda el tiempo de cada solución que calculó el motor; las decisiones bajo demanda
+     * no calculan nada por adelantado.
+     */
+    private synchronized void recordDecision(EngineDecision decision) {
+        if (RouteEngine.ON_DEMAND.equals(decision.getStrategy())) {
+            return;
+        }
+        if (recomputeCount == recomputeNanos.length) {
+            recomputeNanos = Arrays.copyOf(recomputeNanos, recomputeCount * 2);
+        }
+        recomputeNanos[recomputeCount++] = decision.getElapsedNanos();
+    }
+
+    /**
+     * Ejecuta las operaciones de un hilo.
+     *
+     * @return Número de consultas de ruta sin solución.
+     */
+    private long replay(RouteEngine engine, RouteCache cache, WeatherFeed feed,
+                        Random random, long[] latency, byte[] operation) {
+        int numCities = graph.getNumCities();
+        int total = cumulativeMix[cumulativeMix.length - 1];
+        long unreachable = 0;
+        for (int i = 0; i < latency.length; i++) {
+            int pick = random.nextInt(total);
+            int op = 0;
+            while (pick >= cumulativeMix[op]) {
+                op++;
+            }
+            long begin = System.nanoTime();
+            switch (op) {
+                case ROUTE:
+                    String from = graph.getCityName(random.nextInt(numCities));
+                    String to = graph.getCityName(random.nextInt(numCities));
+                    if (cache.findRoute(from, to, weatherCondition) == null) {
+                        unreachable++;
+                    }
+                    break;
+                case CENTER:
+                    engine.calculateGraphCenter(weatherCondition);
+                    break;
+                case CLOSURE:
+                    toggleEdge(random.nextInt(edgeFrom.length));
+                    break;
+                default:
+                    updateWeather(feed, random.nextInt(edgeFrom.length), random.nextInt(Graph.NUM_WEATHER_CONDITIONS),
+                        1 + random.nextDouble() * 3);
+                    break;
+            }
+            latency[i] = System.nanoTime() - begin;
+            operation[i] = (byte) op;
+        }
+        return unreachable;
+    }
+
+    /**
+     * Cierra un tramo abierto o reabre uno cerrado con sus tiempos originales.
+     */
+    private void toggleEdge(int edge) {
+        String from = graph.getCityName(edgeFrom[edge]);
+        String to = graph.getCityName(edgeTo[edge]);
+        synchronized (graph) {
+            if (closed[edge]) {
+                double[] times = edgeTimes[edge];
+                graph.addEdge(from, to, times[Graph.NORMAL], times[Graph.RAIN], times[Graph.SNOW], times[Graph.STORM]);
+            } else {
+                graph.removeEdge(from, to);
+            }
+            closed[edge] = !closed[edge];
+        }
+    }
+
+    /**
+     * Cambia el tiempo de un tramo abierto en una condición climática, como múltiplo de su
+     * tiempo original, mediante un lote de una sola actualización.
+     */
+    private void updateWeather(WeatherFeed feed, int edge, int condition, double factor) {
+        String from = graph.getCityName(edgeFrom[edge]);
+        String to = graph.getCityName(edgeTo[edge]);
+        synchronized (graph) {
+            if (closed[edge] || edgeTimes[edge][condition] == Double.MAX_VALUE) {
+                return;
+            }
+            feed.applyBatch(Collections.singletonList(
+                new WeatherUpdate(from, to, condition, edgeTimes[edge][condition] * factor)));
+        }
+    }
+
+    /**
+     * Obtiene el número de operaciones de un tipo en la última ejecución.
+     *
+     * @param operation {@link #ROUTE}, {@link #CENTER}, {@link #CLOSURE} o {@link #WEATHER}.
+     * @return Número de operaciones.
+     */
+    public int getOperationCount(int operation) {
+        return latencies[operation].length;
+    }
+
+    /**
+     * Obtiene un percentil de la latencia de un tipo de operación.
+     *
+     * @param operation Tipo de operación.
+     * @param percentile Percentil entre 0 y 100.
+     * @return Latencia en nanosegundos, o 0 si no hubo operaciones de ese tipo.
+     */
+    public long getLatencyPercentile(int operation, double percentile) {
+        return percentile(latencies[operation], latencies[operation].length, percentile);
+    }
+
+    /**
+     * Obtiene el rendimiento de la última ejecución.
+     *
+     * @return Operaciones por segundo.
+     */
+    public double getThroughput() {
+        int total = 0;
+        for (long[] values : latencies) {
+            total += values.length;
+        }
+        return total / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Obtiene el número de soluciones que calculó el motor (todas las decisiones salvo las
+     * de consulta bajo demanda), publicadas o descartadas.
+     *
+     * @return Número de recálculos.
+     */
+    public int getRecomputeCount() {
+        return recomputeCount;
+    }
+
+    /**
+     * Obtiene el número de decisiones del motor con una estrategia.
+     *
+     * @param strategy Una de las estrategias de {@link RouteEngine}.
+     * @return Número de decisiones.
+     */
+    public long getDecisionCount(String strategy) {
+        for (int s = 0; s < RouteEngine.STRATEGIES.length; s++) {
+            if (RouteEngine.STRATEGIES[s].equals(strategy)) {
+                return decisionCounts[s];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Obtiene el número de soluciones que el motor descartó porque el grafo cambió mientras
+     * se calculaban.
+     *
+     * @return Soluciones descartadas.
+     */
+    public long getDiscardedSolutionCount() {
+        return discardedSolutions;
+    }
+
+    /**
+     * Obtiene la proporción de consultas de ruta atendidas por la caché.
+     *
+     * @return Tasa de aciertos entre 0 y 1.
+     */
+    public double getCacheHitRate() {
+        return cacheHitRate;
+    }
+
+    /**
+     * Obtiene un percentil del tiempo de recálculo.
+     *
+     * @param percentile Percentil entre 0 y 100.
+     * @return Tiempo en nanosegundos.
+     */
+    public long getRecomputePercentile(double percentile) {
+        return percentile(recomputeNanos, recomputeCount, percentile);
+    }
+
+    /**
+     * Obtiene el número de consultas de ruta sin solución.
+     *
+     * @return Consultas entre ciudades no conectadas.
+     */
+    public long getUnreachableRoutes() {
+        return unreachableRoutes;
+    }
+
+    /**
+     * Obtiene la memoria máxima usada por el heap durante la última ejecución: la suma de
+     * los máximos de cada zona del heap, así que es una cota superior.
+     *
+     * @return Bytes.
+     */
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    private static long percentile(long[] sorted, int count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.min(Math.max(index, 0), count - 1)];
+    }
+
+    /**
+     * Escribe el informe de la última ejecución.
+     *
+     * @param out Destino del informe.
+     */
+    public void printReport(PrintStream out) {
+        out.printf("Tiempo total: %.1f ms, rendimiento: %.1f op/s%n", elapsedNanos / NANOS_PER_MILLI, getThroughput());
+        out.printf("%-10s%10s%12s%12s%12s%12s%n", "Operación", "cantidad", "p50 (us)", "p90 (us)", "p99 (us)", "máx (us)");
+        for (int op = 0; op < OPERATION_NAMES.length; op++) {
+            out.printf("%-10s%10d%12.1f%12.1f%12.1f%12.1f%n", OPERATION_NAMES[op], getOperationCount(op),
+                getLatencyPercentile(op, 50) / NANOS_PER_MICRO, getLatencyPercentile(op, 90) / NANOS_PER_MICRO,
+                getLatencyPercentile(op, 99) / NANOS_PER_MICRO, getLatencyPercentile(op, 100) / NANOS_PER_MICRO);
+        }
+        long totalRecompute = 0;
+        for (int r = 0; r < recomputeCount; r++) {
+            totalRecompute += recomputeNanos[r];
+        }
+        out.printf("Soluciones calculadas: %d (%d descartadas), promedio %.2f ms, p50 %.2f ms, p99 %.2f ms, máx %.2f ms%n",
+            recomputeCount, discardedSolutions, totalRecompute / NANOS_PER_MILLI / Math.max(recomputeCount, 1),
+            getRecomputePercentile(50) / NANOS_PER_MILLI, getRecomputePercentile(99) / NANOS_PER_MILLI,
+            getRecomputePercentile(100) / NANOS_PER_MILLI);
+        out.print("Decisiones del motor:");
+        for (int s = 0; s < RouteEngine.STRATEGIES.length; s++) {
+            out.print((s == 0 ? " " : ", ") + RouteEngine.STRATEGIES[s] + "=" + decisionCounts[s]);
+        }
+        out.println();
+        out.printf("Aciertos de la caché de rutas: %.1f%%%n", cacheHitRate * 100);
+        out.println("Rutas sin solución: " + unreachableRoutes);
+        out.printf("Memoria máxima del heap: %.1f MB%n", peakHeapBytes / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Punto de entrada de la prueba de carga.
+     *
+     * @param args Parámetros clave=valor (ver la descripción de la clase).
+     * @throws IOException Si no se puede leer o escribir el archivo de la red.
+     * @throws InterruptedException si se interrumpe la prueba.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int cities = 200;
+        int regions = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int operations = 20000;
+        int[] mix = {85, 10, 3, 2};
+        int weatherCondition = Graph.NORMAL;
+        long seed = 42;
+        String input = null;
+        String output = null;
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals == -1) {
+                System.err.println("Parámetro inválido (se esperaba clave=valor): " + arg);
+                System.exit(2);
+            }
+            String key = arg.substring(0, equals);
+            String value = arg.substring(equals + 1);
+            switch (key) {
+                case "ciudades":
+                    cities = Integer.parseInt(value);
+                    break;
+                case "regiones":
+                    regions = Integer.parseInt(value);
+                    break;
+                case "hilos":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "operaciones":
+                    operations = Integer.parseInt(value);
+                    break;
+                case "mezcla":
+                    String[] weights = value.split(",");
+                    mix = new int[weights.length];
+                    for (int op = 0; op < weights.length; op++) {
+                        mix[op] = Integer.parseInt(weights[op].trim());
+                    }
+                    break;
+                case "clima":
+                    weatherCondition = WeatherFeed.parseCondition(value);
+                    if (weatherCondition == -1) {
+                        System.err.println("Condición climática inválida (0-3 o normal, lluvia, nieve, tormenta): " + value);
+                        System.exit(2);
+                    }
+                    break;
+                case "semilla":
+                    seed = Long.parseLong(value);
+                    break;
+                case "entrada":
+                    input = value;
+                    break;
+                case "salida":
+                    output = value;
+                    break;
+                default:
+                    System.err.println("Parámetro desconocido: " + key);
+                    System.exit(2);
+            }
+        }
+
+        Graph graph;
+        long begin = System.nanoTime();
+        if (input != null) {
+            graph = FileHandler.readGraphFromFile(input);
+        } else if (output != null) {
+            graph = new NetworkGenerator(seed).generateFile(cities, regions, output);
+        } else {
+            graph = new NetworkGenerator(seed).generate(cities, regions);
+        }
+        long loadNanos = System.nanoTime() - begin;
+
+        LoadTest test = new LoadTest(graph, weatherCondition, mix);
+        System.out.println("=== Prueba de carga ===");
+        System.out.printf("Ciudades: %d, aristas: %d, hilos: %d, operaciones: %d, mezcla: %s, clima: %d%n",
+            graph.getNumCities(), test.edgeFrom.length, threads, operations, Arrays.toString(mix), weatherCondition);
+        System.out.printf("Red %s en %.1f ms%n", (input != null) ? "leída" : "generada", loadNanos / NANOS_PER_MILLI);
+        test.run(threads, operations, seed);
+        test.printReport(System.out);
+    }
+}
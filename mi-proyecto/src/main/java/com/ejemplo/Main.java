@@ -6,19 +6,39 @@
 // Hoja De Trabajo 10 - Algoritmo de Floyd
 package com.ejemplo;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Programa principal para el sistema de rutas logísticas usando el algoritmo de Floyd.
  */
 public class Main {
     private Graph graph;
-    private Floyd floyd;
+    private CompletableFuture<Floyd> floyd; // Solución de Floyd calculada en segundo plano
+    private ExecutorService solver;
     private Scanner scanner;
+    private MutationJournal journal;
     private static final String DEFAULT_FILENAME = "logistica.txt";
+    private static final String SNAPSHOT_FILENAME = "logistica_current.txt";
+    private static final String JOURNAL_FILENAME = "logistica.journal";
+    private static final long JOURNAL_BATCH_MILLIS = 20;
+    private static final long COMPACTION_MINUTES = 10;
+    private static final int CITY_PREVIEW = 10;
+    private static final String ADJACENCY_EXPORT = "matriz_adyacencia";
+    private static final String DISTANCE_EXPORT = "matriz_distancias";
+    private SparseGraph onDemandGraph; // Copia dispersa para las búsquedas mientras Floyd no termina
+    private long onDemandVersion = -1;
     
     /**
      * Constructor que inicializa el escáner para entrada de usuario.
@@ -27,6 +47,17 @@ public class Main {
         this.scanner = new Scanner(System.in);
     }
     
+    /**
+     * Constructor que usa un grafo ya cargado y empieza a resolverlo (para pruebas).
+     * 
+     * @param graph El grafo del sistema.
+     */
+    Main(Graph graph) {
+        this();
+        this.graph = graph;
+        startSolver();
+    }
+    
     /**
      * Método principal que inicia la ejecución del programa.
      * 
@@ -71,6 +102,8 @@ public class Main {
                     break;
                 case 5:
                     running = false;
+                    solver.shutdownNow();
+                    closeJournal();
                     System.out.println("¡Gracias por usar el sistema de logística!");
                     break;
                 default:
@@ -93,36 +126,23 @@ public class Main {
      */
     private boolean initializeSystem() {
         try {
-            // Intenta cargar archivo existente
-            try {
-                graph = FileHandler.readGraphFromFile(DEFAULT_FILENAME);
-                System.out.println("Archivo '" + DEFAULT_FILENAME + "' cargado exitosamente.");
-            } catch (IOException e) {
-                System.out.println("No se pudo cargar '" + DEFAULT_FILENAME + "'.");
-                System.out.print("¿Desea crear un archivo de ejemplo? (s/n): ");
-                String response = scanner.nextLine().trim().toLowerCase();
-                
-                if (response.equals("s") || response.equals("si") || response.equals("y") || response.equals("yes")) {
-                    FileHandler.createSampleFile(DEFAULT_FILENAME);
-                    graph = FileHandler.readGraphFromFile(DEFAULT_FILENAME);
-                } else {
-                    System.out.println("No se puede continuar sin datos de grafo.");
-                    FileHandler.displayFileFormat();
-                    return false;
-                }
+            if (!loadGraph()) {
+                return false;
             }
             
+            openJournal();
+            
             if (graph.getNumCities() == 0) {
                 System.out.println("Error: El grafo no contiene ciudades válidas.");
+                closeJournal();
                 return false;
             }
             
-            // Inicializa el algoritmo Floyd
-            floyd = new Floyd(graph);
-            floyd.executeFloyd(Graph.NORMAL); // Usa clima normal por defecto
+            // Floyd se resuelve en segundo plano; el menú está disponible de inmediato
+            startSolver();
             
             System.out.println("Sistema inicializado con " + graph.getNumCities() + " ciudades.");
-            System.out.println("Ciudades disponibles: " + graph.getCities());
+            System.out.println("Ciudades disponibles: " + describeCities());
             
             return true;
             
@@ -132,6 +152,227 @@ public class Main {
         }
     }
     
+    /**
+     * Carga el grafo desde la última instantánea o, si no hay una vigente, desde el archivo
+     * original. La instantánea deja de estar vigente si el archivo original se modificó
+     * después de ella y de la bitácora, o si no se puede leer: en ambos casos la instantánea
+     * y la bitácora se apartan con el sufijo ".anterior" para no aplicar sus cambios sobre
+     * otros datos. Solo se ofrece crear el archivo de ejemplo si falla el archivo original
+     * sin que hubiera instantánea, para no sobrescribir datos que pudieran recuperarse.
+     * 
+     * @return true si se cargó un grafo, false si no se puede continuar.
+     * @throws IOException si no se pudo apartar la instantánea o crear el archivo de ejemplo.
+     */
+    private boolean loadGraph() throws IOException {
+        File snapshot = new File(SNAPSHOT_FILENAME);
+        File original = new File(DEFAULT_FILENAME);
+        if (snapshot.exists() && original.lastModified() > snapshot.lastModified()
+                && original.lastModified() > new File(JOURNAL_FILENAME).lastModified()) {
+            System.out.println("'" + DEFAULT_FILENAME + "' es más reciente que '" +
+                SNAPSHOT_FILENAME + "'; se usará el archivo original.");
+            setAside(SNAPSHOT_FILENAME);
+            setAside(JOURNAL_FILENAME);
+        }
+        
+        if (snapshot.exists()) {
+            try {
+                graph = FileHandler.readGraphFromFile(SNAPSHOT_FILENAME);
+                System.out.println("Archivo '" + SNAPSHOT_FILENAME + "' cargado exitosamente.");
+                return true;
+            } catch (IOException e) {
+                System.out.println("No se pudo cargar '" + SNAPSHOT_FILENAME + "': " + e.getMessage());
+                setAside(SNAPSHOT_FILENAME);
+                setAside(JOURNAL_FILENAME);
+                try {
+                    graph = FileHandler.readGraphFromFile(DEFAULT_FILENAME);
+                    System.out.println("Archivo '" + DEFAULT_FILENAME + "' cargado exitosamente.");
+                    return true;
+                } catch (IOException retry) {
+                    System.out.println("No se pudo cargar '" + DEFAULT_FILENAME + "': " + retry.getMessage());
+                    System.out.println("No se puede continuar sin datos de grafo.");
+                    return false;
+                }
+            }
+        }
+        
+        try {
+            graph = FileHandler.readGraphFromFile(DEFAULT_FILENAME);
+            System.out.println("Archivo '" + DEFAULT_FILENAME + "' cargado exitosamente.");
+            return true;
+        } catch (IOException e) {
+            System.out.println("No se pudo cargar '" + DEFAULT_FILENAME + "'.");
+            System.out.print("¿Desea crear un archivo de ejemplo? (s/n): ");
+            String response = scanner.nextLine().trim().toLowerCase();
+            
+            if (response.equals("s") || response.equals("si") || response.equals("y") || response.equals("yes")) {
+                FileHandler.createSampleFile(DEFAULT_FILENAME);
+                graph = FileHandler.readGraphFromFile(DEFAULT_FILENAME);
+                return true;
+            }
+            System.out.println("No se puede continuar sin datos de grafo.");
+            FileHandler.displayFileFormat();
+            return false;
+        }
+    }
+    
+    /**
+     * Renombra un archivo con el sufijo ".anterior" para conservarlo sin volver a usarlo.
+     * 
+     * @param filename Nombre del archivo; si no existe no se hace nada.
+     * @throws IOException si no se pudo renombrar.
+     */
+    private static void setAside(String filename) throws IOException {
+        File file = new File(filename);
+        if (!file.exists()) {
+            return;
+        }
+        File target = new File(filename + ".anterior");
+        Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("Se conservó '" + filename + "' como '" + target.getName() + "'.");
+    }
+    
+    /**
+     * Crea el hilo de cálculo y lanza el primer cálculo de Floyd.
+     */
+    private void startSolver() {
+        solver = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "floyd-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        solveInBackground();
+    }
+    
+    /**
+     * Inicia el cálculo de Floyd para clima normal sobre el estado actual del grafo.
+     * Un cálculo anterior se cancela: si aún estaba en cola ya no se ejecuta, y si estaba
+     * en curso termina, pero su resultado ya no se usa. Floyd copia la matriz de adyacencia
+     * con el grafo bloqueado, así que cada cálculo parte de un estado consistente.
+     * 
+     * @return El cálculo lanzado.
+     */
+    CompletableFuture<Floyd> solveInBackground() {
+        if (floyd != null) {
+            floyd.cancel(false);
+        }
+        floyd = CompletableFuture.supplyAsync(() -> {
+            Floyd solution = new Floyd(graph);
+            solution.executeFloyd(Graph.NORMAL); // Usa clima normal por defecto
+            return solution;
+        }, solver);
+        return floyd;
+    }
+    
+    /**
+     * Obtiene la solución de Floyd si ya está lista.
+     * 
+     * @return Solución de Floyd o null si todavía se está calculando.
+     */
+    private Floyd readyFloyd() {
+        if (floyd.isDone() && !floyd.isCompletedExceptionally()) {
+            return floyd.join();
+        }
+        return null;
+    }
+    
+    /**
+     * Obtiene la solución de Floyd esperando a que termine el cálculo en segundo plano.
+     * 
+     * @return Solución de Floyd.
+     */
+    Floyd awaitFloyd() {
+        if (!floyd.isDone()) {
+            System.out.println("Calculando rutas, espere un momento...");
+        }
+        try {
+            return floyd.join();
+        } catch (CompletionException e) {
+            // El cálculo en segundo plano falló: se repite de forma síncrona
+            Floyd solution = new Floyd(graph);
+            solution.executeFloyd(Graph.NORMAL);
+            floyd = CompletableFuture.completedFuture(solution);
+            return solution;
+        }
+    }
+    
+    /**
+     * Busca la ruta más corta entre dos ciudades con Dijkstra, sin esperar a Floyd.
+     * La copia dispersa del grafo se reutiliza mientras el grafo no cambie.
+     * 
+     * @return Ruta encontrada o null si no existe.
+     */
+    Route findRouteOnDemand(String fromCity, String toCity) {
+        SparseGraph sparse;
+        synchronized (graph) {
+            if (onDemandGraph == null || onDemandVersion != graph.getVersion()) {
+                onDemandGraph = SparseGraph.of(graph, Graph.NORMAL);
+                onDemandVersion = graph.getVersion();
+            }
+            sparse = onDemandGraph;
+        }
+        int from = graph.indexOf(fromCity);
+        int to = graph.indexOf(toCity);
+        double[] distance = new double[sparse.numCities];
+        int[] parent = new int[sparse.numCities];
+        sparse.shortestPaths(to, true, distance, parent, new NodeHeap(16));
+        if (distance[from] == Double.MAX_VALUE) {
+            return null;
+        }
+        
+        // En modo inverso parent[v] es el siguiente nodo desde v hacia el destino
+        List<String> path = new ArrayList<>();
+        for (int current = from; current != -1; current = (current == to) ? -1 : parent[current]) {
+            path.add(graph.getCityName(current));
+        }
+        return new Route(path, distance[from]);
+    }
+    
+    /**
+     * Describe las ciudades disponibles mostrando solo las primeras si son muchas.
+     * 
+     * @return Texto con las ciudades.
+     */
+    private String describeCities() {
+        List<String> cities = graph.getCities();
+        if (cities.size() <= CITY_PREVIEW) {
+            return cities.toString();
+        }
+        return String.join(", ", cities.subList(0, CITY_PREVIEW)) + 
+            " ... (" + (cities.size() - CITY_PREVIEW) + " más)";
+    }
+    
+    /**
+     * Aplica los cambios registrados en la bitácora desde la última instantánea y la
+     * registra para guardar las modificaciones siguientes.
+     */
+    private void openJournal() {
+        try {
+            int replayed = MutationJournal.replay(JOURNAL_FILENAME, graph);
+            if (replayed > 0) {
+                System.out.println("Se recuperaron " + replayed + " cambios de la bitácora.");
+            }
+            journal = new MutationJournal(JOURNAL_FILENAME, JOURNAL_BATCH_MILLIS);
+            graph.addListener(journal);
+            journal.scheduleCompaction(graph, SNAPSHOT_FILENAME, COMPACTION_MINUTES, TimeUnit.MINUTES);
+        } catch (IOException e) {
+            System.err.println("Advertencia: No se pudo abrir la bitácora de cambios: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Hace durables los cambios pendientes y cierra la bitácora.
+     */
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error al guardar los últimos cambios: " + e.getMessage());
+        }
+    }
+    
     /**
      * Muestra el menú principal.
      */
@@ -164,7 +405,7 @@ public class Main {
      */
     private void findShortestRoute() {
         System.out.println("\n=== ENCONTRAR RUTA MÁS CORTA ===");
-        System.out.println("Ciudades disponibles: " + graph.getCities());
+        System.out.println("Ciudades disponibles: " + describeCities());
         
         System.out.print("Ingrese ciudad origen: ");
         String fromCity = scanner.nextLine().trim();
@@ -172,18 +413,28 @@ public class Main {
         System.out.print("Ingrese ciudad destino: ");
         String toCity = scanner.nextLine().trim();
         
-        if (!graph.getCities().contains(fromCity)) {
+        if (!graph.containsCity(fromCity)) {
             System.out.println("Error: Ciudad origen '" + fromCity + "' no encontrada.");
             return;
         }
         
-        if (!graph.getCities().contains(toCity)) {
+        if (!graph.containsCity(toCity)) {
             System.out.println("Error: Ciudad destino '" + toCity + "' no encontrada.");
             return;
         }
         
-        double distance = floyd.getShortestDistance(fromCity, toCity);
-        List<String> path = floyd.getShortestPath(fromCity, toCity);
+        // Si Floyd aún no termina, se responde con una búsqueda de un solo par
+        Floyd solution = readyFloyd();
+        double distance;
+        List<String> path;
+        if (solution != null) {
+            distance = solution.getShortestDistance(fromCity, toCity);
+            path = solution.getShortestPath(fromCity, toCity);
+        } else {
+            Route route = findRouteOnDemand(fromCity, toCity);
+            distance = (route == null) ? Double.MAX_VALUE : route.getCost();
+            path = (route == null) ? Collections.emptyList() : route.getCities();
+        }
         
         if (distance == Double.MAX_VALUE || path.isEmpty()) {
             System.out.println("No existe ruta entre " + fromCity + " y " + toCity);
@@ -205,19 +456,20 @@ public class Main {
      */
     private void displayGraphCenter() {
         System.out.println("\n=== CENTRO DEL GRAFO ===");
-        String center = floyd.calculateGraphCenter();
+        Floyd solution = awaitFloyd();
+        String center = solution.calculateGraphCenter();
         
         if (center != null) {
             System.out.println("El centro del grafo es: " + center);
             
-            // Mostrar distancias desde el centro a todas las demás ciudades
+            // Mostrar distancias desde el centro a las demás ciudades, de la más cercana a la más lejana
             System.out.println("\nDistancias desde el centro:");
-            Map<String, Double> distances = floyd.getDistancesFrom(center);
-            for (Map.Entry<String, Double> entry : distances.entrySet()) {
-                if (entry.getValue() != Double.MAX_VALUE) {
-                    System.out.printf("%s -> %s: %.1f horas\n", 
-                        center, entry.getKey(), entry.getValue());
-                }
+            int[] cities = new int[graph.getNumCities()];
+            double[] distances = new double[graph.getNumCities()];
+            int count = solution.getNearestCities(graph.indexOf(center), cities.length, cities, distances);
+            for (int i = 0; i < count; i++) {
+                System.out.printf("%s -> %s: %.1f horas\n", 
+                    center, graph.getCityName(cities[i]), distances[i]);
             }
         } else {
             System.out.println("No se pudo determinar el centro del grafo.");
@@ -251,22 +503,22 @@ public class Main {
                 return;
         }
         
-        // Recalcula rutas y centro
-        floyd.executeFloyd(Graph.NORMAL);
-        System.out.println("Rutas recalculadas exitosamente.");
+        // Recalcula rutas y centro en segundo plano
+        solveInBackground();
+        System.out.println("Recalculando rutas en segundo plano.");
     }
     
     /**
      * Interrumpe el tráfico entre dos ciudades.
      */
     private void interruptTraffic() {
-        System.out.println("Ciudades disponibles: " + graph.getCities());
+        System.out.println("Ciudades disponibles: " + describeCities());
         System.out.print("Ciudad origen: ");
         String from = scanner.nextLine().trim();
         System.out.print("Ciudad destino: ");
         String to = scanner.nextLine().trim();
         
-        if (graph.getCities().contains(from) && graph.getCities().contains(to)) {
+        if (graph.containsCity(from) && graph.containsCity(to)) {
             graph.removeEdge(from, to);
             System.out.println("Tráfico interrumpido entre " + from + " y " + to);
         } else {
@@ -278,7 +530,7 @@ public class Main {
      * Establece una nueva conexión entre ciudades.
      */
     private void addNewConnection() {
-        System.out.println("Ciudades disponibles: " + graph.getCities());
+        System.out.println("Ciudades disponibles: " + describeCities());
         System.out.print("Ciudad origen: ");
         String from = scanner.nextLine().trim();
         System.out.print("Ciudad destino: ");
@@ -306,13 +558,13 @@ public class Main {
      * Cambia la condición climática para una conexión existente.
      */
     private void changeWeatherCondition() {
-        System.out.println("Ciudades disponibles: " + graph.getCities());
+        System.out.println("Ciudades disponibles: " + describeCities());
         System.out.print("Ciudad origen: ");
         String from = scanner.nextLine().trim();
         System.out.print("Ciudad destino: ");
         String to = scanner.nextLine().trim();
         
-        if (!graph.getCities().contains(from) || !graph.getCities().contains(to)) {
+        if (!graph.containsCity(from) || !graph.containsCity(to)) {
             System.out.println("Una o ambas ciudades no existen.");
             return;
         }
@@ -348,20 +600,97 @@ public class Main {
     private void displayGraphInfo() {
         System.out.println("\n=== INFORMACIÓN DEL GRAFO ===");
         System.out.println("Número de ciudades: " + graph.getNumCities());
-        System.out.println("Ciudades: " + graph.getCities());
+        System.out.println("Ciudades: " + describeCities());
         
-        // Muestra la matriz de adyacencia para clima normal
-        graph.displayMatrix(Graph.NORMAL);
-        
-        // Muestra la matriz de distancias más cortas
-        floyd.displayDistanceMatrix();
+        if (graph.getNumCities() <= CITY_PREVIEW) {
+            // Muestra la matriz de adyacencia para clima normal
+            graph.displayMatrix(Graph.NORMAL);
+            
+            // Muestra la matriz de distancias más cortas
+            awaitFloyd().displayDistanceMatrix();
+        } else {
+            // Con muchas ciudades solo se muestran ventanas; el resto puede exportarse
+            browseMatrices(MatrixExporter.forAdjacency(graph, Graph.NORMAL),
+                MatrixExporter.forDistances(graph, awaitFloyd()));
+        }
         
-        // Guarda el estado actual
+        // Los cambios ya se guardan en la bitácora; aquí solo se confirma que son durables
+        if (journal != null) {
+            try {
+                journal.sync();
+                System.out.println("Cambios guardados en '" + JOURNAL_FILENAME + "'");
+            } catch (IOException e) {
+                System.out.println("Error al guardar los cambios: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Muestra ventanas de las matrices de adyacencia y distancias y permite moverse por
+     * ellas o exportarlas completas a un archivo.
+     * 
+     * @param adjacency Matriz de adyacencia para clima normal.
+     * @param distances Matriz de distancias más cortas.
+     */
+    private void browseMatrices(MatrixExporter adjacency, MatrixExporter distances) {
+        int row = 0;
+        int column = 0;
+        while (true) {
+            System.out.println("\nMatriz de Adyacencia (clima: Normal), filas " + row + "-" + 
+                Math.min(row + CITY_PREVIEW, adjacency.size()) + ", columnas " + column + "-" + 
+                Math.min(column + CITY_PREVIEW, adjacency.size()) + " de " + adjacency.size() + ":");
+            adjacency.displayWindow(row, row + CITY_PREVIEW, column, column + CITY_PREVIEW);
+            System.out.println("\nMatriz de Distancias Más Cortas (misma ventana):");
+            distances.displayWindow(row, row + CITY_PREVIEW, column, column + CITY_PREVIEW);
+            
+            System.out.print("\nVer otra ventana (v), exportar a archivo (e) o continuar (Enter): ");
+            String option = scanner.nextLine().trim().toLowerCase();
+            if (option.equals("v")) {
+                System.out.print("Fila inicial: ");
+                int newRow = getMenuChoice();
+                System.out.print("Columna inicial: ");
+                int newColumn = getMenuChoice();
+                if (newRow < 0 || newColumn < 0 || newRow >= adjacency.size() || newColumn >= adjacency.size()) {
+                    System.out.println("Ventana inválida.");
+                } else {
+                    row = newRow;
+                    column = newColumn;
+                }
+            } else if (option.equals("e")) {
+                exportMatrices(adjacency, distances);
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Exporta las matrices completas en formato CSV o binario.
+     * 
+     * @param adjacency Matriz de adyacencia para clima normal.
+     * @param distances Matriz de distancias más cortas.
+     */
+    private void exportMatrices(MatrixExporter adjacency, MatrixExporter distances) {
+        System.out.print("Formato (csv/bin): ");
+        String format = scanner.nextLine().trim().toLowerCase();
+        if (!format.equals("csv") && !format.equals("bin")) {
+            System.out.println("Formato inválido.");
+            return;
+        }
+        String adjacencyFile = ADJACENCY_EXPORT + "." + format;
+        String distanceFile = DISTANCE_EXPORT + "." + format;
         try {
-            FileHandler.saveGraphToFile(graph, "logistica_current.txt");
-            System.out.println("Estado actual guardado en 'logistica_current.txt'");
+            if (format.equals("csv")) {
+                adjacency.writeCsv(adjacencyFile);
+                distances.writeCsv(distanceFile);
+            } else {
+                adjacency.writeBinary(adjacencyFile);
+                distances.writeBinary(distanceFile);
+            }
+            System.out.println("Matrices exportadas a '" + adjacencyFile + "' y '" + distanceFile + "'");
         } catch (IOException e) {
-            System.out.println("Error al guardar el estado actual: " + e.getMessage());
+            System.out.println("Error al exportar las matrices: " + e.getMessage());
         }
     }
 }
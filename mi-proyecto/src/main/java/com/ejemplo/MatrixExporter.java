@@ -0,0 +1,398 @@
+package com.ejemplo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Exporta y muestra matrices cuadradas del sistema (adyacencia de una capa climática o
+ * distancias más cortas de Floyd) sin formatear celda por celda con printf.
+ *
+ * Las filas se leen de una en una y se escriben en un búfer de caracteres propio, con los
+ * números convertidos a dígitos a mano, que se vacía en un escritor con búfer sobre un
+ * canal de archivo o sobre la consola. Así el costo es proporcional al número de celdas y
+ * no al de llamadas de salida. Para grafos grandes la vista de consola se limita a una
+ * ventana de filas y columnas.
+ *
+ * Formatos:
+ * <ul>
+ *   <li>CSV: encabezado con los nombres, una fila por ciudad; los valores se escriben con
+ *       toda su precisión e "inf" para infinito.</li>
+ *   <li>Binario: "MX01", n, los n nombres (longitud y bytes UTF-8) y las n x n distancias
+ *       como double, todo en orden big-endian (legible con DataInputStream); infinito se
+ *       guarda como Double.MAX_VALUE.</li>
+ * </ul>
+ */
+public class MatrixExporter {
+    private static final double INFINITY = Double.MAX_VALUE;
+    private static final int FILE_MAGIC = 0x4D583031; // "MX01"
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int CELL_WIDTH = 12;
+    private static final int MAX_SCALE_EXPONENT = 6;
+    private static final double EXACT_LIMIT = 1L << 53;
+    private static final double[] POWERS = {1, 10, 100, 1e3, 1e4, 1e5, 1e6};
+
+    /**
+     * Origen de las filas de una matriz.
+     */
+    private interface RowSource {
+        void copyRow(int i, double[] row);
+    }
+
+    private final Graph graph;
+    private final int size;
+    private final RowSource source;
+
+    private MatrixExporter(Graph graph, int size, RowSource source) {
+        this.graph = graph;
+        this.size = size;
+        this.source = source;
+    }
+
+    /**
+     * Crea un exportador de la matriz de adyacencia de una condición climática. Cada fila
+     * se lee con el grafo bloqueado, así que es consistente aunque el grafo cambie.
+     *
+     * @param graph El grafo.
+     * @param weatherCondition Condición climática.
+     * @return El exportador.
+     */
+    public static MatrixExporter forAdjacency(Graph graph, int weatherCondition) {
+        return new MatrixExporter(graph, graph.getNumCities(), (i, row) -> {
+            synchronized (graph) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = graph.getEdgeWeight(i, j, weatherCondition);
+                }
+            }
+        });
+    }
+
+    /**
+     * Crea un exportador de la matriz de distancias más cortas de una solución de Floyd.
+     *
+     * @param graph El grafo resuelto.
+     * @param floyd Solución ya ejecutada.
+     * @return El exportador.
+     */
+    public static MatrixExporter forDistances(Graph graph, Floyd floyd) {
+        double[][] distance = floyd.getDistanceMatrix();
+        return new MatrixExporter(graph, distance.length,
+            (i, row) -> System.arraycopy(distance[i], 0, row, 0, row.length));
+    }
+
+    /**
+     * Obtiene el número de filas (y columnas) de la matriz.
+     *
+     * @return Número de ciudades.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Escribe la matriz completa en un archivo CSV.
+     *
+     * @param filename Nombre del archivo.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    public void writeCsv(String filename) throws IOException {
+        try (FileChannel channel = openForWrite(filename);
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                 Channels.newOutputStream(channel), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            CharBuffer line = new CharBuffer();
+            line.append("ciudad");
+            for (int j = 0; j < size; j++) {
+                line.append(',');
+                line.appendCsvText(graph.getCityName(j));
+            }
+            line.append('\n');
+            line.writeTo(out);
+
+            double[] row = new double[size];
+            for (int i = 0; i < size; i++) {
+                source.copyRow(i, row);
+                line.appendCsvText(graph.getCityName(i));
+                for (int j = 0; j < size; j++) {
+                    line.append(',');
+                    line.appendExact(row[j]);
+                }
+                line.append('\n');
+                line.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Escribe la matriz completa en un archivo binario.
+     *
+     * @param filename Nombre del archivo.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    public void writeBinary(String filename) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = openForWrite(filename)) {
+            buffer.putInt(FILE_MAGIC);
+            buffer.putInt(size);
+            for (int j = 0; j < size; j++) {
+                byte[] name = graph.getCityName(j).getBytes(StandardCharsets.UTF_8);
+                ensureRemaining(channel, buffer, Integer.BYTES);
+                buffer.putInt(name.length);
+                for (int offset = 0; offset < name.length; ) {
+                    ensureRemaining(channel, buffer, 1);
+                    int chunk = Math.min(buffer.remaining(), name.length - offset);
+                    buffer.put(name, offset, chunk);
+                    offset += chunk;
+                }
+            }
+
+            double[] row = new double[size];
+            for (int i = 0; i < size; i++) {
+                source.copyRow(i, row);
+                for (int j = 0; j < size; j++) {
+                    ensureRemaining(channel, buffer, Double.BYTES);
+                    buffer.putDouble(row[j]);
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    /**
+     * Lee la matriz de un archivo escrito con {@link #writeBinary(String)}.
+     *
+     * @param filename Nombre del archivo.
+     * @return Matriz de distancias leída.
+     * @throws IOException Si ocurre un error al leer el archivo o no tiene el formato esperado.
+     */
+    static double[][] readBinary(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filename), BUFFER_SIZE))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("'" + filename + "' no es una matriz exportada");
+            }
+            int n = in.readInt();
+            for (int j = 0; j < n; j++) {
+                in.readFully(new byte[in.readInt()]);
+            }
+            double[][] matrix = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    matrix[i][j] = in.readDouble();
+                }
+            }
+            return matrix;
+        }
+    }
+
+    /**
+     * Muestra en consola una ventana de la matriz. Los límites se ajustan al tamaño de la
+     * matriz; los extremos finales no se incluyen.
+     *
+     * @param rowStart Primera fila.
+     * @param rowEnd Fila final (exclusiva).
+     * @param colStart Primera columna.
+     * @param colEnd Columna final (exclusiva).
+     */
+    public void displayWindow(int rowStart, int rowEnd, int colStart, int colEnd) {
+        // La consola no se cierra: solo se vacía el búfer al terminar
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE);
+        try {
+            writeWindow(out, rowStart, rowEnd, colStart, colEnd);
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Error al mostrar la matriz: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe una ventana de la matriz con el formato de la consola.
+     */
+    void writeWindow(Writer out, int rowStart, int rowEnd, int colStart, int colEnd) throws IOException {
+        rowStart = Math.max(rowStart, 0);
+        colStart = Math.max(colStart, 0);
+        rowEnd = Math.min(rowEnd, size);
+        colEnd = Math.min(colEnd, size);
+
+        CharBuffer line = new CharBuffer();
+        line.append("\t\t");
+        for (int j = colStart; j < colEnd; j++) {
+            line.appendPadded(graph.getCityName(j));
+        }
+        line.append('\n');
+        line.writeTo(out);
+
+        double[] row = new double[size];
+        for (int i = rowStart; i < rowEnd; i++) {
+            source.copyRow(i, row);
+            line.appendPadded(graph.getCityName(i));
+            for (int j = colStart; j < colEnd; j++) {
+                line.appendFixed(row[j]);
+            }
+            line.append('\n');
+            line.writeTo(out);
+        }
+    }
+
+    private static FileChannel openForWrite(String filename) throws IOException {
+        return FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Búfer de caracteres de una línea con conversión de números sin objetos intermedios.
+     */
+    private static final class CharBuffer {
+        private char[] chars = new char[256];
+        private int length;
+
+        void append(char c) {
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, length * 2);
+            }
+            chars[length++] = c;
+        }
+
+        void append(String text) {
+            for (int c = 0; c < text.length(); c++) {
+                append(text.charAt(c));
+            }
+        }
+
+        /**
+         * Agrega texto rellenado con espacios hasta el ancho de celda de la consola.
+         */
+        void appendPadded(String text) {
+            int start = length;
+            append(text);
+            while (length - start < CELL_WIDTH) {
+                append(' ');
+            }
+        }
+
+        /**
+         * Agrega texto para CSV, entre comillas si contiene separadores o comillas.
+         */
+        void appendCsvText(String text) {
+            if (text.indexOf(',') == -1 && text.indexOf('"') == -1 && text.indexOf('\n') == -1) {
+                append(text);
+                return;
+            }
+            append('"');
+            for (int c = 0; c < text.length(); c++) {
+                char ch = text.charAt(c);
+                if (ch == '"') {
+                    append('"');
+                }
+                append(ch);
+            }
+            append('"');
+        }
+
+        /**
+         * Agrega un valor con toda su precisión: si con alguna escala 10^e pequeña es un
+         * entero exacto se escriben sus dígitos directamente; si no, Double.toString.
+         */
+        void appendExact(double value) {
+            if (value == INFINITY) {
+                append("inf");
+                return;
+            }
+            for (int exponent = 0; exponent <= MAX_SCALE_EXPONENT; exponent++) {
+                double scaled = value * POWERS[exponent];
+                if (Math.abs(scaled) < EXACT_LIMIT && Math.round(scaled) / POWERS[exponent] == value) {
+                    appendScaled(Math.round(scaled), exponent);
+                    return;
+                }
+            }
+            append(Double.toString(value));
+        }
+
+        /**
+         * Agrega un valor con un decimal y relleno de celda, como "%-12.1f"; "∞" para infinito.
+         */
+        void appendFixed(double value) {
+            int start = length;
+            double scaled = Math.abs(value) * 10;
+            if (value == INFINITY) {
+                append('\u221E');
+            } else if (scaled < EXACT_LIMIT) {
+                long rounded = Math.round(scaled);
+                appendScaled(value < 0 && rounded != 0 ? -rounded : rounded, 1);
+                if (rounded % 10 == 0) {
+                    append(".0");
+                }
+            } else {
+                append(String.format("%.1f", value));
+            }
+            while (length - start < CELL_WIDTH) {
+                append(' ');
+            }
+        }
+
+        /**
+         * Agrega digits / 10^exponent, sin ceros finales en la parte decimal.
+         */
+        private void appendScaled(long digits, int exponent) {
+            if (digits < 0) {
+                append('-');
+                digits = -digits;
+            }
+            while (exponent > 0 && digits % 10 == 0 && digits != 0) {
+                digits /= 10;
+                exponent--;
+            }
+            if (digits == 0) {
+                exponent = 0;
+            }
+            int start = length;
+            // Dígitos en orden inverso, con el punto decimal en su lugar
+            int written = 0;
+            do {
+                if (written == exponent && exponent > 0) {
+                    append('.');
+                }
+                append((char) ('0' + digits % 10));
+                digits /= 10;
+                written++;
+            } while (digits != 0 || written <= exponent);
+            for (int a = start, b = length - 1; a < b; a++, b--) {
+                char tmp = chars[a];
+                chars[a] = chars[b];
+                chars[b] = tmp;
+            }
+        }
+
+        /**
+         * Vacía la línea en el escritor.
+         */
+        void writeTo(Writer out) throws IOException {
+            out.write(chars, 0, length);
+            length = 0;
+        }
+    }
+}
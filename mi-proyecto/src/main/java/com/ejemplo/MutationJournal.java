@@ -0,0 +1,454 @@
+package com.ejemplo;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Bitácora binaria de solo anexado con las modificaciones del grafo.
+ *
+ * Se registra como {@link GraphListener}: cada cambio se codifica en memoria y un hilo de
+ * fondo escribe los registros acumulados y hace un único fsync por lote (group commit),
+ * de modo que guardar cada edición cuesta O(1) en lugar de reescribir todo el grafo.
+ * {@link #sync()} espera a que todo lo registrado hasta ese momento sea durable.
+ *
+ * Al iniciar, {@link #replay(String, Graph)} aplica la bitácora sobre la última instantánea.
+ * La compactación escribe una nueva instantánea y vacía la bitácora. Todas las operaciones
+ * fijan un valor (no lo acumulan), por lo que volver a aplicar un registro que ya estaba en
+ * la instantánea no cambia el resultado: un fallo entre ambos pasos no pierde ni duplica datos.
+ *
+ * Formato: entero mágico y, por registro, longitud, CRC32 y contenido. La reproducción se
+ * detiene en el primer registro incompleto o dañado (una escritura interrumpida al final).
+ */
+public class MutationJournal implements GraphListener, Closeable {
+    private static final int MAGIC = 0x4A524E31; // "JRN1"
+    private static final int HEADER_SIZE = 4;
+    private static final byte ADD_CITY = 1;
+    private static final byte ADD_EDGE = 2;
+    private static final byte REMOVE_EDGE = 3;
+    private static final byte UPDATE_WEATHER = 4;
+
+    private final FileChannel channel;
+    private final long batchWindowMillis;
+    private final Object lock = new Object();
+    private final Thread flusher;
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private long appended;
+    private long durable;
+    private boolean syncRequested;
+    private boolean closed;
+    private IOException failure;
+    private ScheduledExecutorService compactor;
+
+    /**
+     * Abre (o crea) una bitácora y arranca el hilo de escritura.
+     *
+     * @param filename Archivo de la bitácora.
+     * @param batchWindowMillis Tiempo máximo que un registro espera para agruparse con otros.
+     * @throws IOException Si el archivo no se puede abrir o no es una bitácora.
+     */
+    public MutationJournal(String filename, long batchWindowMillis) throws IOException {
+        Path path = Paths.get(filename);
+        this.batchWindowMillis = batchWindowMillis;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            writeHeader();
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                channel.close();
+                throw new IOException("'" + filename + "' no es una bitácora válida");
+            }
+            channel.truncate(validLength(filename));
+        }
+        channel.position(channel.size());
+
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC);
+        header.flip();
+        channel.write(header, 0);
+        channel.force(true);
+    }
+
+    @Override
+    public void cityAdded(String cityName) {
+        synchronized (lock) {
+            try {
+                recordOut.writeByte(ADD_CITY);
+                recordOut.writeUTF(cityName);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // No ocurre en memoria
+            }
+            commitRecord();
+        }
+    }
+
+    @Override
+    public void edgeAdded(String from, String to, double[] times) {
+        synchronized (lock) {
+            try {
+                recordOut.writeByte(ADD_EDGE);
+                recordOut.writeUTF(from);
+                recordOut.writeUTF(to);
+                for (double time : times) {
+                    recordOut.writeDouble(time);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            commitRecord();
+        }
+    }
+
+    @Override
+    public void edgeRemoved(String from, String to) {
+        synchronized (lock) {
+            try {
+                recordOut.writeByte(REMOVE_EDGE);
+                recordOut.writeUTF(from);
+                recordOut.writeUTF(to);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            commitRecord();
+        }
+    }
+
+    @Override
+    public void weatherConditionUpdated(String from, String to, int weatherCondition, double time) {
+        synchronized (lock) {
+            try {
+                recordOut.writeByte(UPDATE_WEATHER);
+                recordOut.writeUTF(from);
+                recordOut.writeUTF(to);
+                recordOut.writeByte(weatherCondition);
+                recordOut.writeDouble(time);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            commitRecord();
+        }
+    }
+
+    /**
+     * Pasa el registro codificado al lote pendiente con su longitud y CRC.
+     */
+    private void commitRecord() {
+        byte[] bytes = record.toByteArray();
+        crc.reset();
+        crc.update(bytes, 0, bytes.length);
+        int length = bytes.length;
+        int checksum = (int) crc.getValue();
+        pending.write(length >>> 24);
+        pending.write(length >>> 16);
+        pending.write(length >>> 8);
+        pending.write(length);
+        pending.write(checksum >>> 24);
+        pending.write(checksum >>> 16);
+        pending.write(checksum >>> 8);
+        pending.write(checksum);
+        pending.write(bytes, 0, length);
+        record.reset();
+        appended++;
+        lock.notifyAll();
+    }
+
+    /**
+     * Hilo de escritura: espera registros, los agrupa durante la ventana y los hace
+     * durables con una sola escritura y un solo fsync.
+     */
+    private void flushLoop() {
+        try {
+            while (true) {
+                ByteArrayOutputStream batch;
+                long target;
+                synchronized (lock) {
+                    while (pending.size() == 0 && !closed) {
+                        lock.wait();
+                    }
+                    if (pending.size() == 0) {
+                        return;
+                    }
+                    long deadline = System.currentTimeMillis() + batchWindowMillis;
+                    long remaining;
+                    while (!syncRequested && !closed && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        lock.wait(remaining);
+                    }
+                    batch = pending;
+                    pending = new ByteArrayOutputStream(Math.max(32, batch.size()));
+                    target = appended;
+                    syncRequested = false;
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+
+                synchronized (lock) {
+                    durable = target;
+                    lock.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+                lock.notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Espera a que todos los registros anteriores a esta llamada estén en disco.
+     *
+     * @throws IOException Si el hilo de escritura falló.
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = appended;
+            syncRequested = true;
+            lock.notifyAll();
+            while (durable < target && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Sincronización interrumpida", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Obtiene el número de registros anexados desde que se abrió la bitácora.
+     *
+     * @return Registros anexados.
+     */
+    public long getAppendedCount() {
+        synchronized (lock) {
+            return appended;
+        }
+    }
+
+    /**
+     * Obtiene el tamaño actual del archivo de la bitácora.
+     *
+     * @return Tamaño en bytes.
+     * @throws IOException Si ocurre un error al consultar el archivo.
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Escribe una nueva instantánea del grafo y vacía la bitácora. Las modificaciones
+     * quedan bloqueadas (mediante el bloqueo del grafo) mientras dura la compactación.
+     *
+     * @param graph El grafo registrado en esta bitácora.
+     * @param snapshotFile Archivo de instantánea (se reemplaza de forma atómica).
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void compact(Graph graph, String snapshotFile) throws IOException {
+        synchronized (graph) {
+            sync();
+            Path snapshot = Paths.get(snapshotFile);
+            Path temporary = Paths.get(snapshotFile + ".tmp");
+            FileHandler.writeGraph(graph, temporary.toString());
+            try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                file.force(true);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // Ya no hay registros pendientes y nadie puede anexar mientras se tiene el grafo
+            synchronized (lock) {
+                channel.truncate(HEADER_SIZE);
+                channel.position(HEADER_SIZE);
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Programa compactaciones periódicas en un hilo de fondo.
+     *
+     * @param graph El grafo registrado en esta bitácora.
+     * @param snapshotFile Archivo de instantánea.
+     * @param period Periodo entre compactaciones.
+     * @param unit Unidad del periodo.
+     */
+    public synchronized void scheduleCompaction(Graph graph, String snapshotFile, long period, TimeUnit unit) {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compact(graph, snapshotFile);
+            } catch (IOException e) {
+                System.err.println("Error al compactar la bitácora: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Hace durables los registros pendientes, detiene los hilos de fondo y cierra el archivo.
+     *
+     * @throws IOException Si ocurre un error al escribir los últimos registros.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (compactor != null) {
+                compactor.shutdownNow();
+            }
+        }
+        try {
+            sync();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Aplica una bitácora sobre un grafo (normalmente recién cargado de la instantánea).
+     * El grafo no debe tener todavía la bitácora registrada como observador.
+     *
+     * @param filename Archivo de la bitácora.
+     * @param graph Grafo sobre el que se aplican las operaciones.
+     * @return Número de operaciones aplicadas (0 si la bitácora no existe).
+     * @throws IOException Si el archivo no es una bitácora o no se puede leer.
+     */
+    public static int replay(String filename, Graph graph) throws IOException {
+        File file = new File(filename);
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            return 0;
+        }
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("'" + filename + "' no es una bitácora válida");
+            }
+            byte[] payload;
+            while ((payload = readRecord(in)) != null) {
+                apply(new DataInputStream(new ByteArrayInputStream(payload)), graph);
+                count++;
+            }
+        } catch (EOFException e) {
+            throw new IOException("'" + filename + "' no es una bitácora válida", e);
+        }
+        return count;
+    }
+
+    /**
+     * Lee el siguiente registro verificando su CRC.
+     *
+     * @return Contenido del registro o null al final o ante un registro incompleto o dañado.
+     */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > (1 << 20)) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, length);
+            return ((int) crc.getValue() == checksum) ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void apply(DataInputStream in, Graph graph) throws IOException {
+        byte op = in.readByte();
+        switch (op) {
+            case ADD_CITY:
+                graph.addCity(in.readUTF());
+                break;
+            case ADD_EDGE: {
+                String from = in.readUTF();
+                String to = in.readUTF();
+                graph.addEdge(from, to, in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+                break;
+            }
+            case REMOVE_EDGE:
+                graph.removeEdge(in.readUTF(), in.readUTF());
+                break;
+            case UPDATE_WEATHER: {
+                String from = in.readUTF();
+                String to = in.readUTF();
+                graph.updateWeatherCondition(from, to, in.readByte(), in.readDouble());
+                break;
+            }
+            default:
+                throw new IOException("Operación desconocida en la bitácora: " + op);
+        }
+    }
+
+    /**
+     * Calcula la longitud de la parte válida de una bitácora para descartar un registro
+     * incompleto al final antes de seguir anexando.
+     */
+    private static long validLength(String filename) throws IOException {
+        long length = HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filename)))) {
+            in.readInt();
+            byte[] payload;
+            while ((payload = readRecord(in)) != null) {
+                length += 8 + payload.length;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,225 @@
+package com.ejemplo;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generador de redes logísticas sintéticas con forma de red de carreteras, para pruebas de
+ * carga y de rendimiento.
+ *
+ * Las ciudades se agrupan en regiones alrededor de centros aleatorios de un plano de
+ * 100 x 100. Dentro de cada región cada ciudad se une con la más cercana de las anteriores
+ * (lo que deja la región conectada) y con sus vecinas más cercanas; la primera ciudad de
+ * cada región es su nodo principal y se une por autopista con los nodos principales más
+ * cercanos. Los tiempos son proporcionales a la distancia, con autopistas más rápidas, un
+ * poco distintos en cada sentido, y empeoran con la lluvia, la nieve (más en las regiones
+ * del norte) y la tormenta, que además cierra algunos tramos. Con la misma semilla se
+ * obtiene siempre la misma red.
+ */
+public class NetworkGenerator {
+    private static final double PLANE_SIZE = 100;
+    private static final double HIGHWAY_SPEED = 2;
+    private static final double NORTH = 70;
+    private static final double MIN_TIME = 0.1;
+
+    private final long seed;
+    private int neighbors = 3;
+    private int highways = 2;
+    private double stormClosure = 0.05;
+
+    /**
+     * Constructor que fija la semilla de la generación.
+     *
+     * @param seed Semilla del generador aleatorio.
+     */
+    public NetworkGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Establece con cuántas vecinas cercanas se une cada ciudad dentro de su región.
+     *
+     * @param neighbors Número de vecinas.
+     * @return Este generador.
+     */
+    public NetworkGenerator setNeighbors(int neighbors) {
+        this.neighbors = neighbors;
+        return this;
+    }
+
+    /**
+     * Establece con cuántos nodos principales cercanos se une cada región por autopista.
+     *
+     * @param highways Número de autopistas por región.
+     * @return Este generador.
+     */
+    public NetworkGenerator setHighways(int highways) {
+        this.highways = highways;
+        return this;
+    }
+
+    /**
+     * Establece la probabilidad de que una tormenta cierre un tramo.
+     *
+     * @param stormClosure Probabilidad entre 0 y 1.
+     * @return Este generador.
+     */
+    public NetworkGenerator setStormClosure(double stormClosure) {
+        this.stormClosure = stormClosure;
+        return this;
+    }
+
+    /**
+     * Genera una red.
+     *
+     * @param numCities Número de ciudades.
+     * @param regions Número de regiones (entre 1 y el número de ciudades).
+     * @return El grafo generado.
+     * @throws IllegalArgumentException si los tamaños no son válidos.
+     */
+    public Graph generate(int numCities, int regions) {
+        if (numCities < 1 || regions < 1 || regions > numCities) {
+            throw new IllegalArgumentException("Tamaños inválidos: " + numCities + " ciudades, " + regions + " regiones");
+        }
+        Random random = new Random(seed);
+        GraphBuilder builder = new GraphBuilder(numCities, numCities * (neighbors + 1) * 2 + regions * highways * 2);
+        Set<Long> connected = new HashSet<>();
+
+        // Centros de región y posición de cada ciudad; la ciudad c pertenece a la región c % regions
+        double[] centerX = new double[regions];
+        double[] centerY = new double[regions];
+        for (int r = 0; r < regions; r++) {
+            centerX[r] = random.nextDouble() * PLANE_SIZE;
+            centerY[r] = random.nextDouble() * PLANE_SIZE;
+        }
+        double spread = PLANE_SIZE / Math.sqrt(regions) / 4;
+        double[] x = new double[numCities];
+        double[] y = new double[numCities];
+        for (int c = 0; c < numCities; c++) {
+            int r = c % regions;
+            x[c] = centerX[r] + random.nextGaussian() * spread;
+            y[c] = centerY[r] + random.nextGaussian() * spread;
+            builder.addCity("R" + r + "_" + (c / regions));
+        }
+
+        // Carreteras locales: la ciudad más cercana de las anteriores y las vecinas más cercanas
+        int[] nearest = new int[neighbors];
+        double[] nearestDistance = new double[neighbors];
+        for (int c = regions; c < numCities; c++) {
+            int closestEarlier = -1;
+            int found = 0;
+            for (int other = c % regions; other < numCities; other += regions) {
+                if (other == c) {
+                    continue;
+                }
+                double d = distance(x, y, c, other);
+                if (other < c && (closestEarlier == -1 || d < distance(x, y, c, closestEarlier))) {
+                    closestEarlier = other;
+                }
+                // Inserción ordenada en la lista de las más cercanas
+                int position = Math.min(found, neighbors);
+                while (position > 0 && nearestDistance[position - 1] > d) {
+                    if (position < neighbors) {
+                        nearest[position] = nearest[position - 1];
+                        nearestDistance[position] = nearestDistance[position - 1];
+                    }
+                    position--;
+                }
+                if (position < neighbors) {
+                    nearest[position] = other;
+                    nearestDistance[position] = d;
+                    found = Math.min(found + 1, neighbors);
+                }
+            }
+            connect(builder, connected, random, x, y, c, closestEarlier, 1);
+            for (int k = 0; k < found; k++) {
+                connect(builder, connected, random, x, y, c, nearest[k], 1);
+            }
+        }
+
+        // Autopistas entre los nodos principales (las ciudades 0 .. regions - 1)
+        for (int r = 1; r < regions; r++) {
+            int closestEarlier = 0;
+            for (int other = 1; other < r; other++) {
+                if (distance(x, y, r, other) < distance(x, y, r, closestEarlier)) {
+                    closestEarlier = other;
+                }
+            }
+            connect(builder, connected, random, x, y, r, closestEarlier, HIGHWAY_SPEED);
+        }
+        for (int r = 0; r < regions; r++) {
+            for (int k = 0; k < highways; k++) {
+                int closest = -1;
+                for (int other = 0; other < regions; other++) {
+                    if (other != r && !connected.contains(pair(r, other))
+                            && (closest == -1 || distance(x, y, r, other) < distance(x, y, r, closest))) {
+                        closest = other;
+                    }
+                }
+                if (closest != -1) {
+                    connect(builder, connected, random, x, y, r, closest, HIGHWAY_SPEED);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Genera una red y la guarda en el formato de lectura de {@link FileHandler}.
+     *
+     * @param numCities Número de ciudades.
+     * @param regions Número de regiones.
+     * @param filename Nombre del archivo.
+     * @return El grafo generado.
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    public Graph generateFile(int numCities, int regions, String filename) throws IOException {
+        Graph graph = generate(numCities, regions);
+        FileHandler.writeGraph(graph, filename);
+        return graph;
+    }
+
+    /**
+     * Une dos ciudades en ambos sentidos, si no estaban unidas, con tiempos para cada clima.
+     */
+    private void connect(GraphBuilder builder, Set<Long> connected, Random random,
+                         double[] x, double[] y, int a, int b, double speed) {
+        if (b == -1 || !connected.add(pair(a, b))) {
+            return;
+        }
+        double base = distance(x, y, a, b) / speed;
+        boolean north = Math.max(y[a], y[b]) > NORTH;
+        for (int direction = 0; direction < 2; direction++) {
+            double normal = round(Math.max(base * (0.95 + random.nextDouble() * 0.1), MIN_TIME));
+            double rain = round(normal * (1.1 + random.nextDouble() * 0.3));
+            double snow = round(normal * (north ? 1.8 + random.nextDouble() * 0.7 : 1.3 + random.nextDouble() * 0.3));
+            double storm = (random.nextDouble() < stormClosure)
+                ? Double.MAX_VALUE
+                : round(normal * (2 + random.nextDouble() * 2));
+            if (direction == 0) {
+                builder.addEdge(a, b, normal, rain, snow, storm);
+            } else {
+                builder.addEdge(b, a, normal, rain, snow, storm);
+            }
+        }
+    }
+
+    private static long pair(int a, int b) {
+        return (long) Math.min(a, b) << 32 | Math.max(a, b);
+    }
+
+    private static double distance(double[] x, double[] y, int a, int b) {
+        double dx = x[a] - x[b];
+        double dy = y[a] - y[b];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Redondea a una décima, como los tiempos escritos a mano en los archivos de ejemplo.
+     */
+    private static double round(double time) {
+        return Math.round(time * 10) / 10.0;
+    }
+}
@@ -0,0 +1,101 @@
+package com.ejemplo;
+
+import java.util.Arrays;
+
+/**
+ * Montículo binario mínimo de nodos con prioridad double, sobre arreglos primitivos.
+ * No soporta disminuir claves: se insertan duplicados y quien lo usa descarta las
+ * entradas obsoletas al extraerlas (estrategia "perezosa" de Dijkstra/A*).
+ */
+class NodeHeap {
+    private double[] keys;
+    private int[] nodes;
+    private int size;
+
+    /**
+     * Constructor que reserva una capacidad inicial.
+     *
+     * @param capacity Capacidad inicial (crece automáticamente).
+     */
+    NodeHeap(int capacity) {
+        int initial = Math.max(capacity, 4);
+        this.keys = new double[initial];
+        this.nodes = new int[initial];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Obtiene la clave mínima sin extraerla.
+     *
+     * @return Clave mínima (el montículo no debe estar vacío).
+     */
+    double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Inserta un nodo con su prioridad.
+     */
+    void push(int node, double key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            nodes = Arrays.copyOf(nodes, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            nodes[i] = nodes[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        nodes[i] = node;
+    }
+
+    /**
+     * Extrae el nodo con menor prioridad.
+     *
+     * @return Nodo extraído (el montículo no debe estar vacío).
+     */
+    int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            double key = keys[size];
+            int node = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+        return top;
+    }
+}
@@ -0,0 +1,74 @@
+package com.ejemplo;
+
+/**
+ * Cursor reutilizable que recorre la ruta más corta calculada por Floyd ciudad por ciudad,
+ * sin asignar listas ni resolver nombres. Pensado para planificadores por lotes que
+ * procesan muchas rutas seguidas.
+ */
+public class PathCursor {
+    private final Floyd floyd;
+    private int current;
+    private int target;
+    private boolean started;
+
+    /**
+     * Constructor que asocia el cursor a un algoritmo de Floyd.
+     *
+     * @param floyd Algoritmo de Floyd cuyas rutas se recorrerán.
+     */
+    public PathCursor(Floyd floyd) {
+        this.floyd = floyd;
+        this.current = -1;
+        this.target = -1;
+    }
+
+    /**
+     * Posiciona el cursor al inicio de la ruta entre dos ciudades.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @return true si existe ruta, false en caso contrario.
+     */
+    public boolean reset(int fromIndex, int toIndex) {
+        started = false;
+        if (floyd.getDistanceMatrix()[fromIndex][toIndex] == Double.MAX_VALUE) {
+            current = -1;
+            target = -1;
+            return false;
+        }
+        current = fromIndex;
+        target = toIndex;
+        return true;
+    }
+
+    /**
+     * Indica si quedan ciudades por recorrer en la ruta.
+     *
+     * @return true si hay una ciudad siguiente.
+     */
+    public boolean hasNext() {
+        if (current == -1) {
+            return false;
+        }
+        if (!started) {
+            return true;
+        }
+        return current != target && floyd.getNextMatrix()[current][target] != -1;
+    }
+
+    /**
+     * Avanza a la siguiente ciudad de la ruta.
+     *
+     * @return Índice de la ciudad o -1 si la ruta ya terminó.
+     */
+    public int next() {
+        if (!hasNext()) {
+            return -1;
+        }
+        if (started) {
+            current = floyd.getNextMatrix()[current][target];
+        }
+        started = true;
+        return current;
+    }
+}
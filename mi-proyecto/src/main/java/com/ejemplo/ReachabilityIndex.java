@@ -0,0 +1,191 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * Índice de alcanzabilidad por condición climática basado en la cerradura transitiva
+ * de Warshall sobre filas de bits ({@code long[]}): cada operación de palabra procesa
+ * 64 destinos a la vez. Responde "¿existe alguna ruta?" sin ejecutar Floyd ni consultar
+ * la matriz de distancias.
+ *
+ * Cada capa se construye de forma perezosa en la primera consulta y se reconstruye
+ * automáticamente cuando cambia la versión del grafo.
+ */
+public class ReachabilityIndex {
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private final Graph graph;
+    private final AtomicReferenceArray<Layer> layers;
+
+    /**
+     * Constructor que asocia el índice a un grafo.
+     *
+     * @param graph El grafo cuya alcanzabilidad se consultará.
+     */
+    public ReachabilityIndex(Graph graph) {
+        this.graph = graph;
+        this.layers = new AtomicReferenceArray<>(Graph.NUM_WEATHER_CONDITIONS);
+    }
+
+    /**
+     * Verifica si existe una ruta entre dos ciudades para una condición climática.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return true si existe ruta, false en caso contrario.
+     */
+    public boolean hasPath(String fromCity, String toCity, int weatherCondition) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1) {
+            return false;
+        }
+        return hasPath(fromIndex, toIndex, weatherCondition);
+    }
+
+    /**
+     * Verifica si existe una ruta entre dos ciudades dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return true si existe ruta, false en caso contrario.
+     */
+    public boolean hasPath(int fromIndex, int toIndex, int weatherCondition) {
+        long[][] rows = getClosure(weatherCondition);
+        if (fromIndex >= rows.length || toIndex >= rows.length) {
+            return false;
+        }
+        return (rows[fromIndex][toIndex >>> 6] & (1L << toIndex)) != 0;
+    }
+
+    /**
+     * Obtiene todas las ciudades alcanzables desde una ciudad (sin incluirla).
+     *
+     * @param fromCity Ciudad de origen.
+     * @param weatherCondition Condición climática.
+     * @return Lista de ciudades alcanzables en orden de índice.
+     */
+    public List<String> getReachableCities(String fromCity, int weatherCondition) {
+        int fromIndex = graph.indexOf(fromCity);
+        List<String> reachable = new ArrayList<>();
+        if (fromIndex == -1) {
+            return reachable;
+        }
+
+        long[][] rows = getClosure(weatherCondition);
+        if (fromIndex >= rows.length) {
+            return reachable;
+        }
+        long[] row = rows[fromIndex];
+        for (int word = 0; word < row.length; word++) {
+            long bits = row[word];
+            while (bits != 0) {
+                int city = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (city != fromIndex) {
+                    reachable.add(graph.getCityName(city));
+                }
+                bits &= bits - 1;
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * Cuenta las ciudades alcanzables desde una ciudad (sin incluirla).
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param weatherCondition Condición climática.
+     * @return Número de ciudades alcanzables.
+     */
+    public int countReachable(int fromIndex, int weatherCondition) {
+        long[][] rows = getClosure(weatherCondition);
+        if (fromIndex >= rows.length) {
+            return 0;
+        }
+        int count = 0;
+        for (long bits : rows[fromIndex]) {
+            count += Long.bitCount(bits);
+        }
+        return count - 1; // La ciudad siempre se alcanza a sí misma
+    }
+
+    /**
+     * Obtiene la cerradura transitiva de una capa, reconstruyéndola si el grafo cambió.
+     */
+    private long[][] getClosure(int weatherCondition) {
+        Layer layer = layers.get(weatherCondition);
+        long version = graph.getVersion();
+        if (layer != null && layer.version == version) {
+            return layer.rows;
+        }
+
+        synchronized (this) {
+            layer = layers.get(weatherCondition);
+            if (layer == null || layer.version != version) {
+                layer = new Layer(computeClosure(graph, weatherCondition), version);
+                layers.set(weatherCondition, layer);
+            }
+            return layer.rows;
+        }
+    }
+
+    /**
+     * Calcula la cerradura transitiva con Warshall sobre filas de bits.
+     *
+     * @param graph El grafo.
+     * @param weatherCondition Condición climática.
+     * @return Filas de bits: el bit j de la fila i indica que j es alcanzable desde i.
+     */
+    static long[][] computeClosure(Graph graph, int weatherCondition) {
+        int n = graph.getNumCities();
+        int words = (n + 63) >>> 6;
+        long[][] rows = new long[n][words];
+
+        int[][] adjacency = graph.getAdjacencyLists(weatherCondition);
+        for (int i = 0; i < n; i++) {
+            rows[i][i >>> 6] |= 1L << i;
+            for (int j : adjacency[i]) {
+                rows[i][j >>> 6] |= 1L << j;
+            }
+        }
+
+        for (int k = 0; k < n; k++) {
+            final int pivot = k;
+            final long[] rowK = rows[k];
+            final int word = k >>> 6;
+            final long mask = 1L << k;
+            IntStream range = IntStream.range(0, n);
+            if (n >= PARALLEL_THRESHOLD) {
+                range = range.parallel();
+            }
+            range.forEach(i -> {
+                long[] rowI = rows[i];
+                if (i != pivot && (rowI[word] & mask) != 0) {
+                    for (int w = 0; w < words; w++) {
+                        rowI[w] |= rowK[w];
+                    }
+                }
+            });
+        }
+
+        return rows;
+    }
+
+    /**
+     * Cerradura de una capa junto con la versión del grafo con la que se calculó.
+     */
+    private static final class Layer {
+        final long[][] rows;
+        final long version;
+
+        Layer(long[][] rows, long version) {
+            this.rows = rows;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ruta inmutable entre dos ciudades junto con su costo total.
+ */
+public class Route {
+    private final List<String> cities;
+    private final double cost;
+
+    /**
+     * Constructor que crea una ruta a partir de la secuencia de ciudades y su costo.
+     *
+     * @param cities Ciudades que forman la ruta, en orden.
+     * @param cost Costo total de la ruta.
+     */
+    public Route(List<String> cities, double cost) {
+        this.cities = Collections.unmodifiableList(new ArrayList<>(cities));
+        this.cost = cost;
+    }
+
+    /**
+     * Obtiene las ciudades que forman la ruta.
+     *
+     * @return Lista de solo lectura con los nombres de las ciudades.
+     */
+    public List<String> getCities() {
+        return cities;
+    }
+
+    /**
+     * Obtiene el costo total de la ruta.
+     *
+     * @return Costo total (horas).
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" -> ", cities) + String.format(" (%.1f)", cost);
+    }
+}
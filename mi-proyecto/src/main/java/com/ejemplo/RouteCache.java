@@ -0,0 +1,328 @@
+package com.ejemplo;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada y concurrente de rutas ya calculadas por un {@link RouteEngine}, para
+ * cargas en las que unos pocos pares origen-destino concentran la mayoría de consultas.
+ *
+ * La clave es (origen, destino, clima) empaquetada en un long con los índices de las
+ * ciudades, así que un acierto no crea objetos: resuelve los nombres en el diccionario,
+ * busca la clave en una tabla de direccionamiento abierto y devuelve la {@link Route}
+ * inmutable guardada. La tabla se divide en segmentos con su propio bloqueo, y cada
+ * segmento reemplaza entradas con el algoritmo del reloj (aproximación de LRU).
+ *
+ * Cada capa climática tiene un contador de versión que se incrementa solo con los cambios
+ * que la afectan (la caché observa el grafo como {@link GraphListener}); una entrada
+ * guardada con una versión anterior se considera vencida. Agregar una ciudad sin
+ * conexiones no invalida nada.
+ */
+public class RouteCache implements GraphListener {
+    private static final Route NO_ROUTE = new Route(Collections.<String>emptyList(), Double.MAX_VALUE);
+    private static final int SEGMENTS = 16;
+
+    private final Graph graph;
+    private final RouteEngine engine;
+    private final Segment[] segments;
+    private final long[] layerVersions;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor que crea la caché y la registra como observador del grafo.
+     *
+     * @param graph El grafo consultado.
+     * @param engine Fachada que calcula las rutas que no están en la caché.
+     * @param capacity Número máximo de rutas guardadas.
+     */
+    public RouteCache(Graph graph, RouteEngine engine, int capacity) {
+        this.graph = graph;
+        this.engine = engine;
+        this.segments = new Segment[SEGMENTS];
+        int perSegment = Math.max((capacity + SEGMENTS - 1) / SEGMENTS, 1);
+        for (int s = 0; s < SEGMENTS; s++) {
+            segments[s] = new Segment(perSegment);
+        }
+        this.layerVersions = new long[Graph.NUM_WEATHER_CONDITIONS];
+        graph.addListener(this);
+    }
+
+    /**
+     * Deja de observar el grafo.
+     */
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    /**
+     * Busca la ruta más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return Ruta encontrada o null si alguna ciudad no existe o no hay ruta.
+     */
+    public Route findRoute(String fromCity, String toCity, int weatherCondition) {
+        int from = graph.indexOf(fromCity);
+        int to = graph.indexOf(toCity);
+        if (from == -1 || to == -1) {
+            return null;
+        }
+        long key = (((long) from << 32 | to) << 2) | weatherCondition;
+        long version = layerVersion(weatherCondition);
+        Segment segment = segments[(int) (mix(key) >>> 60)];
+
+        Route route = segment.get(key, version);
+        if (route != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            // La versión se leyó antes del cálculo: si el grafo cambia mientras tanto, la
+            // entrada nace vencida
+            route = engine.findRoute(fromCity, toCity, weatherCondition);
+            if (route == null) {
+                route = NO_ROUTE;
+            }
+            if (segment.put(key, route, version)) {
+                evictions.increment();
+            }
+        }
+        return (route == NO_ROUTE) ? null : route;
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return La distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(String fromCity, String toCity, int weatherCondition) {
+        Route route = findRoute(fromCity, toCity, weatherCondition);
+        return (route == null) ? Double.MAX_VALUE : route.getCost();
+    }
+
+    /**
+     * Obtiene el número de aciertos.
+     *
+     * @return Consultas respondidas desde la caché.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Obtiene el número de fallos (incluidas las entradas vencidas).
+     *
+     * @return Consultas que tuvieron que calcularse.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Obtiene el número de entradas reemplazadas por falta de espacio.
+     *
+     * @return Entradas desalojadas.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Obtiene la proporción de aciertos.
+     *
+     * @return Aciertos / consultas, o 0 si no hay consultas.
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return (total == 0) ? 0 : (double) h / total;
+    }
+
+    /**
+     * Obtiene el número de rutas guardadas (vigentes o vencidas).
+     *
+     * @return Número de entradas.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private long layerVersion(int weatherCondition) {
+        synchronized (layerVersions) {
+            return layerVersions[weatherCondition];
+        }
+    }
+
+    private void invalidate(int weatherCondition) {
+        synchronized (layerVersions) {
+            if (weatherCondition == -1) {
+                for (int k = 0; k < layerVersions.length; k++) {
+                    layerVersions[k]++;
+                }
+            } else {
+                layerVersions[weatherCondition]++;
+            }
+        }
+    }
+
+    @Override
+    public void cityAdded(String cityName) {
+        // Una ciudad sin conexiones no cambia ninguna ruta existente
+    }
+
+    @Override
+    public void edgeAdded(String from, String to, double[] times) {
+        invalidate(-1);
+    }
+
+    @Override
+    public void edgeRemoved(String from, String to) {
+        invalidate(-1);
+    }
+
+    @Override
+    public void weatherConditionUpdated(String from, String to, int weatherCondition, double time) {
+        invalidate(weatherCondition);
+    }
+
+    /**
+     * Mezcla los bits de la clave para repartirla entre segmentos y ranuras.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Segmento de la caché: tabla de sondeo lineal sobre arreglos de entradas.
+     */
+    private static final class Segment {
+        private final long[] keys;      // [entrada] -> clave
+        private final Route[] routes;   // [entrada] -> ruta
+        private final long[] versions;  // [entrada] -> versión de la capa al guardarla
+        private final boolean[] referenced;
+        private final int[] table;      // [ranura] -> entrada + 1 (0 = vacía)
+        private final int mask;
+        private int size;
+        private int hand;
+
+        Segment(int capacity) {
+            this.keys = new long[capacity];
+            this.routes = new Route[capacity];
+            this.versions = new long[capacity];
+            this.referenced = new boolean[capacity];
+            this.table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+            this.mask = table.length - 1;
+        }
+
+        synchronized Route get(long key, long version) {
+            int entry = find(key);
+            if (entry == -1 || versions[entry] != version) {
+                return null;
+            }
+            referenced[entry] = true;
+            return routes[entry];
+        }
+
+        /**
+         * Guarda una ruta.
+         *
+         * @return true si se desalojó otra entrada para hacer espacio.
+         */
+        synchronized boolean put(long key, Route route, long version) {
+            int entry = find(key);
+            boolean evicted = false;
+            if (entry == -1) {
+                if (size < keys.length) {
+                    entry = size++;
+                } else {
+                    entry = victim();
+                    remove(keys[entry]);
+                    evicted = true;
+                }
+                keys[entry] = key;
+                insert(key, entry);
+            }
+            routes[entry] = route;
+            versions[entry] = version;
+            referenced[entry] = false;
+            return evicted;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Avanza la manecilla del reloj hasta una entrada sin referencia reciente.
+         */
+        private int victim() {
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % keys.length;
+            }
+            int entry = hand;
+            hand = (hand + 1) % keys.length;
+            return entry;
+        }
+
+        private int find(long key) {
+            int slot = (int) mix(key) & mask;
+            while (true) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (keys[entry - 1] == key) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void insert(long key, int entry) {
+            int slot = (int) mix(key) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry + 1;
+        }
+
+        /**
+         * Elimina una clave de la tabla desplazando hacia atrás las siguientes del mismo
+         * grupo, para no dejar huecos que corten las búsquedas.
+         */
+        private void remove(long key) {
+            int slot = (int) mix(key) & mask;
+            while (keys[table[slot] - 1] != key) {
+                slot = (slot + 1) & mask;
+            }
+            int hole = slot;
+            table[hole] = 0;
+            slot = (hole + 1) & mask;
+            while (table[slot] != 0) {
+                int home = (int) mix(keys[table[slot] - 1]) & mask;
+                // La entrada puede ocupar el hueco si su ranura inicial no está entre el hueco y ella
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    table[hole] = table[slot];
+                    table[slot] = 0;
+                    hole = slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+}
@@ -0,0 +1,582 @@
+package com.ejemplo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fachada de consultas de rutas que elige por sí misma cómo resolver cada capa climática.
+ *
+ * Antes de responder, cada capa con cambios se decide con un modelo de costo sobre el
+ * número de ciudades (n), de aristas de la capa (m), las aristas editadas desde la última
+ * solución y la mezcla de consultas observada:
+ * <ul>
+ *   <li>{@link #FLOYD}: n³.</li>
+ *   <li>{@link #FLOYD_BY_SCCS}: Σ|C|³ por componente más la unión entre componentes.</li>
+ *   <li>{@link #DIJKSTRA_ALL_PAIRS}: n Dijkstras, n·(m + n)·log n.</li>
+ *   <li>{@link #ON_DEMAND}: un Dijkstra por consulta esperada; no sirve si se necesitan
+ *       todos los pares (por ejemplo, para el centro del grafo).</li>
+ *   <li>{@link #INCREMENTAL}: reparar la solución anterior, n² por arista que mejora y un
+ *       Dijkstra por fila que usaba una arista que empeora.</li>
+ * </ul>
+ *
+ * Las ediciones se siguen como {@link GraphListener}. El estado del motor se protege con su
+ * propio bloqueo, que se toma siempre después del bloqueo del grafo (el mismo orden que
+ * siguen las notificaciones). Con ambos bloqueos solo se copia la capa y se decide la
+ * estrategia; el cálculo se hace sin bloqueos y su resultado se publica como solución
+ * vigente únicamente si el grafo no cambió mientras tanto. Las reparaciones trabajan
+ * sobre una copia superficial, así que las consultas en curso nunca ven una solución a medias.
+ *
+ * Cada decisión, con los costos estimados y el tiempo real, queda en un registro acotado
+ * ({@link #getDecisionLog()}), se cuenta por estrategia ({@link #getDecisionCount(String)})
+ * y se escribe en el {@link Logger} de la clase con nivel FINE.
+ */
+public class RouteEngine implements GraphListener {
+    /** Floyd completo sobre la matriz. */
+    public static final String FLOYD = "floyd";
+    /** Floyd por componentes fuertemente conexas. */
+    public static final String FLOYD_BY_SCCS = "floyd por componentes";
+    /** Un Dijkstra por origen sobre el grafo disperso. */
+    public static final String DIJKSTRA_ALL_PAIRS = "dijkstra todos los pares";
+    /** Sin cálculo previo: un Dijkstra por consulta. */
+    public static final String ON_DEMAND = "bajo demanda";
+    /** Reparación de la solución anterior. */
+    public static final String INCREMENTAL = "incremental";
+
+    static final String[] STRATEGIES = {FLOYD, FLOYD_BY_SCCS, DIJKSTRA_ALL_PAIRS, ON_DEMAND, INCREMENTAL};
+
+    private static final Logger LOGGER = Logger.getLogger(RouteEngine.class.getName());
+    private static final double INFINITY = Double.MAX_VALUE;
+    // Una operación del montículo cuesta varias relajaciones del ciclo de Floyd
+    private static final double HEAP_FACTOR = 4.0;
+    private static final double INITIAL_EXPECTED_QUERIES = 16;
+    private static final int LOG_CAPACITY = 256;
+
+    private final Graph graph;
+    private final Layer[] layers;
+    private final Deque<EngineDecision> decisions;
+    private final LongAdder[] decisionCounts;
+    private final LongAdder discardedSolutions = new LongAdder();
+    private final List<Consumer<EngineDecision>> decisionListeners = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<NodeHeap> heaps = ThreadLocal.withInitial(() -> new NodeHeap(64));
+    private long seenVersion;
+
+    /**
+     * Estado de una capa climática.
+     */
+    private static final class Layer {
+        Floyd solution;          // Última solución de todos los pares (puede estar desactualizada)
+        boolean solutionCurrent; // La solución corresponde al grafo actual
+        SparseGraph current;     // Copia de la capa en la última decisión
+        SparseGraph solved;      // Copia de la capa cuando se obtuvo la solución
+        final Set<Long> pendingEdits = new LinkedHashSet<>(); // Aristas editadas desde la solución
+        boolean dirty = true;
+        long generation;         // Aumenta con cada decisión; solo se publica la más reciente
+        String strategy;
+        double expectedQueries = INITIAL_EXPECTED_QUERIES;
+        int pointQueries;        // Desde la última decisión
+        int allPairsQueries;
+        double breakEvenQueries = INFINITY; // En modo bajo demanda, consultas a partir de las que conviene resolver
+    }
+
+    /**
+     * Cálculo decidido con el grafo bloqueado que se ejecuta después sin bloqueos.
+     */
+    private static final class Plan {
+        final int weatherCondition;
+        final Layer layer;
+        final long version;
+        final long generation;
+        final SparseGraph current;
+        final EngineDecision decision;
+        final long start;
+        Floyd base;              // Solución a reparar (solo para la reparación)
+        int[] from;
+        int[] to;
+        double[] oldWeight;
+        double[] newWeight;
+        int count;
+
+        Plan(int weatherCondition, Layer layer, long version, SparseGraph current,
+             EngineDecision decision, long start) {
+            this.weatherCondition = weatherCondition;
+            this.layer = layer;
+            this.version = version;
+            this.generation = layer.generation;
+            this.current = current;
+            this.decision = decision;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Datos con los que se responde una consulta: una solución de todos los pares o, si no
+     * hay una vigente, la copia dispersa de la capa.
+     */
+    private static final class View {
+        final Floyd solution;
+        final SparseGraph sparse;
+        final int from;
+        final int to;
+
+        View(Floyd solution, SparseGraph sparse, int from, int to) {
+            this.solution = solution;
+            this.sparse = sparse;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Constructor que crea la fachada y la registra como observador del grafo.
+     *
+     * @param graph El grafo consultado.
+     */
+    public RouteEngine(Graph graph) {
+        this.graph = graph;
+        this.layers = new Layer[Graph.NUM_WEATHER_CONDITIONS];
+        for (int k = 0; k < layers.length; k++) {
+            layers[k] = new Layer();
+        }
+        this.decisions = new ArrayDeque<>();
+        this.decisionCounts = new LongAdder[STRATEGIES.length];
+        for (int s = 0; s < STRATEGIES.length; s++) {
+            decisionCounts[s] = new LongAdder();
+        }
+        synchronized (graph) {
+            synchronized (this) {
+                this.seenVersion = graph.getVersion();
+            }
+            graph.addListener(this);
+        }
+    }
+
+    /**
+     * Deja de seguir las modificaciones del grafo.
+     */
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    /**
+     * Busca la ruta más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return Ruta encontrada o null si alguna ciudad no existe o no hay ruta.
+     */
+    public Route findRoute(String fromCity, String toCity, int weatherCondition) {
+        View view = view(weatherCondition, false, fromCity, toCity);
+        if (view == null) {
+            return null;
+        }
+        if (view.solution != null) {
+            List<String> path = view.solution.getShortestPath(fromCity, toCity);
+            return path.isEmpty() ? null : new Route(path, view.solution.getShortestDistance(fromCity, toCity));
+        }
+
+        // En modo inverso hop[v] es el siguiente nodo desde v hacia el destino
+        double[] distance = new double[view.sparse.numCities];
+        int[] hop = new int[view.sparse.numCities];
+        view.sparse.shortestPaths(view.to, true, distance, hop, heaps.get());
+        if (distance[view.from] == INFINITY) {
+            return null;
+        }
+        List<String> path = new ArrayList<>();
+        for (int current = view.from; current != -1; current = (current == view.to) ? -1 : hop[current]) {
+            path.add(graph.getCityName(current));
+        }
+        return new Route(path, distance[view.from]);
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return La distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(String fromCity, String toCity, int weatherCondition) {
+        View view = view(weatherCondition, false, fromCity, toCity);
+        if (view == null) {
+            return INFINITY;
+        }
+        if (view.solution != null) {
+            return view.solution.getShortestDistance(fromCity, toCity);
+        }
+        double[] distance = new double[view.sparse.numCities];
+        view.sparse.shortestPaths(view.to, true, distance, null, heaps.get());
+        return distance[view.from];
+    }
+
+    /**
+     * Calcula el centro del grafo, lo que requiere una solución de todos los pares.
+     *
+     * @param weatherCondition Condición climática.
+     * @return Nombre de la ciudad que es el centro del grafo o null si el grafo está vacío.
+     */
+    public String calculateGraphCenter(int weatherCondition) {
+        return view(weatherCondition, true, null, null).solution.calculateGraphCenter();
+    }
+
+    /**
+     * Obtiene la estrategia vigente de una capa.
+     *
+     * @param weatherCondition Condición climática.
+     * @return Estrategia de la última decisión o null si la capa no se ha consultado.
+     */
+    public synchronized String getStrategy(int weatherCondition) {
+        return layers[weatherCondition].strategy;
+    }
+
+    /**
+     * Obtiene las últimas decisiones, de la más antigua a la más reciente.
+     *
+     * @return Copia del registro de decisiones.
+     */
+    public synchronized List<EngineDecision> getDecisionLog() {
+        return new ArrayList<>(decisions);
+    }
+
+    /**
+     * Obtiene cuántas veces se eligió una estrategia desde que se creó el motor.
+     *
+     * @param strategy Una de las estrategias del motor.
+     * @return Número de decisiones, o 0 si la estrategia no existe.
+     */
+    public long getDecisionCount(String strategy) {
+        for (int s = 0; s < STRATEGIES.length; s++) {
+            if (STRATEGIES[s].equals(strategy)) {
+                return decisionCounts[s].sum();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Obtiene cuántas soluciones no se publicaron porque el grafo cambió mientras se calculaban.
+     *
+     * @return Número de soluciones descartadas.
+     */
+    public long getDiscardedSolutionCount() {
+        return discardedSolutions.sum();
+    }
+
+    /**
+     * Registra una función que recibe cada decisión al completarse, para quien necesita
+     * todas (el registro en memoria solo guarda las últimas). Se llama con el motor
+     * bloqueado, así que debe ser rápida y no consultar el motor.
+     *
+     * @param listener Función que recibe las decisiones.
+     */
+    public void addDecisionListener(Consumer<EngineDecision> listener) {
+        decisionListeners.add(listener);
+    }
+
+    /**
+     * Muestra el registro de decisiones.
+     */
+    public void displayDecisionLog() {
+        System.out.println("\nDecisiones del motor de rutas:");
+        for (EngineDecision decision : getDecisionLog()) {
+            System.out.println("  " + decision);
+        }
+    }
+
+    /**
+     * Obtiene los datos para responder una consulta, decidiendo y calculando la capa si hace
+     * falta. La decisión se toma con el grafo bloqueado; el cálculo, sin bloqueos.
+     *
+     * @return Datos de la consulta o null si alguna ciudad no existe.
+     */
+    private View view(int weatherCondition, boolean allPairs, String fromCity, String toCity) {
+        int from = -1;
+        int to = -1;
+        Plan plan;
+        synchronized (graph) {
+            synchronized (this) {
+                if (!allPairs) {
+                    from = graph.indexOf(fromCity);
+                    to = graph.indexOf(toCity);
+                    if (from == -1 || to == -1) {
+                        return null;
+                    }
+                }
+                plan = prepare(weatherCondition, allPairs);
+                if (plan == null) {
+                    Layer layer = layers[weatherCondition];
+                    layer.allPairsQueries += allPairs ? 1 : 0;
+                    return new View(layer.solutionCurrent ? layer.solution : null, layer.current, from, to);
+                }
+            }
+        }
+
+        Floyd solution = solve(plan);
+
+        synchronized (graph) {
+            synchronized (this) {
+                publish(plan, solution, allPairs);
+            }
+        }
+        // La solución corresponde a un estado del grafo posterior a la consulta aunque no se publique
+        return new View(solution, plan.current, from, to);
+    }
+
+    /**
+     * Decide de nuevo la capa si cambió o si la mezcla de consultas ya no corresponde a la
+     * estrategia vigente.
+     *
+     * @return Cálculo pendiente o null si la capa se puede consultar tal como está.
+     */
+    private Plan prepare(int weatherCondition, boolean allPairs) {
+        if (graph.getVersion() != seenVersion) {
+            // Cambio sin notificación (carga en bloque): no se puede reparar
+            for (Layer layer : layers) {
+                layer.dirty = true;
+                layer.solution = null;
+                layer.solutionCurrent = false;
+                layer.pendingEdits.clear();
+            }
+            seenVersion = graph.getVersion();
+        }
+
+        Layer layer = layers[weatherCondition];
+        layer.pointQueries += allPairs ? 0 : 1;
+        boolean needsAllPairs = allPairs || layer.allPairsQueries > 0;
+        if (layer.dirty || (needsAllPairs && !layer.solutionCurrent)
+                || layer.pointQueries > layer.breakEvenQueries) {
+            return decide(weatherCondition, layer, needsAllPairs);
+        }
+        return null;
+    }
+
+    private Plan decide(int weatherCondition, Layer layer, boolean allPairs) {
+        long start = System.nanoTime();
+        int n = graph.getNumCities();
+        SparseGraph current = SparseGraph.of(graph, weatherCondition);
+        int m = current.edgeCount();
+        layer.expectedQueries = Math.max(1, Math.max(layer.pointQueries,
+            (layer.expectedQueries + layer.pointQueries) / 2));
+
+        double log = Math.log(n + 1) / Math.log(2);
+        double dijkstraRow = HEAP_FACTOR * (m + (double) n) * log;
+        double[] costs = new double[STRATEGIES.length];
+        costs[0] = (double) n * n * n;
+        costs[1] = componentsCost(current, n);
+        costs[2] = n * dijkstraRow;
+        costs[3] = allPairs ? INFINITY : layer.expectedQueries * dijkstraRow;
+
+        // Cambios desde la solución anterior, para la reparación
+        int count = 0;
+        int[] from = new int[layer.pendingEdits.size()];
+        int[] to = new int[from.length];
+        double[] oldWeight = new double[from.length];
+        double[] newWeight = new double[from.length];
+        boolean repairable = layer.solution != null && layer.solved != null
+            && layer.solution.getDistanceMatrix().length == n;
+        if (repairable) {
+            int decreases = 0;
+            for (long key : layer.pendingEdits) {
+                int u = (int) (key >>> 32);
+                int v = (int) key;
+                double before = layer.solved.weight(u, v);
+                double after = current.weight(u, v);
+                if (before != after) {
+                    from[count] = u;
+                    to[count] = v;
+                    oldWeight[count] = before;
+                    newWeight[count] = after;
+                    decreases += (after < before) ? 1 : 0;
+                    count++;
+                }
+            }
+            long rows = layer.solution.countRowsUsingIncreasedEdges(from, to, oldWeight, newWeight, count);
+            costs[4] = (double) decreases * n * n + rows * dijkstraRow + (double) (count - decreases) * n;
+        } else {
+            costs[4] = INFINITY;
+        }
+
+        int best = 0;
+        for (int s = 1; s < costs.length; s++) {
+            if (costs[s] < costs[best]) {
+                best = s;
+            }
+        }
+        String strategy = STRATEGIES[best];
+
+        layer.generation++;
+        layer.current = current;
+        layer.strategy = strategy;
+        layer.dirty = false;
+        layer.pointQueries = 0;
+        layer.allPairsQueries = 0;
+        EngineDecision decision = new EngineDecision(weatherCondition, graph.getVersion(), n, m, count,
+            layer.expectedQueries, allPairs, costs, strategy, 0, false);
+
+        if (ON_DEMAND.equals(strategy)) {
+            layer.solutionCurrent = false;
+            double solveCost = Math.min(Math.min(costs[0], costs[1]), Math.min(costs[2], costs[4]));
+            layer.breakEvenQueries = solveCost / dijkstraRow;
+            log(decision.completed(System.nanoTime() - start, true));
+            return null;
+        }
+
+        Plan plan = new Plan(weatherCondition, layer, graph.getVersion(), current, decision, start);
+        if (INCREMENTAL.equals(strategy)) {
+            plan.base = layer.solution;
+            plan.from = from;
+            plan.to = to;
+            plan.oldWeight = oldWeight;
+            plan.newWeight = newWeight;
+            plan.count = count;
+        }
+        return plan;
+    }
+
+    /**
+     * Ejecuta el cálculo de un plan sin bloqueos. La reparación parte de la copia de la capa
+     * del plan; los cálculos completos leen el grafo con su propio bloqueo, por lo que su
+     * resultado solo corresponde a la versión del plan si el grafo no cambió entretanto.
+     */
+    private Floyd solve(Plan plan) {
+        String strategy = plan.decision.getStrategy();
+        if (INCREMENTAL.equals(strategy)) {
+            Floyd solution = plan.base.copyForRepair();
+            solution.repairEdgeChanges(plan.current, plan.from, plan.to, plan.oldWeight, plan.newWeight, plan.count);
+            return solution;
+        }
+        Floyd solution = new Floyd(graph);
+        if (FLOYD.equals(strategy)) {
+            solution.executeFloyd(plan.weatherCondition);
+        } else if (FLOYD_BY_SCCS.equals(strategy)) {
+            solution.executeFloydBySccs(plan.weatherCondition);
+        } else {
+            solution.executeDijkstra(plan.weatherCondition);
+        }
+        return solution;
+    }
+
+    /**
+     * Publica la solución de un plan si sigue siendo la decisión más reciente de la capa y
+     * el grafo no cambió desde que se tomó. Si no se publica, la capa conserva su solución
+     * anterior y sus ediciones pendientes, que siguen describiendo todos los cambios.
+     */
+    private void publish(Plan plan, Floyd solution, boolean allPairs) {
+        Layer layer = plan.layer;
+        boolean published = layer.generation == plan.generation && graph.getVersion() == plan.version;
+        if (published) {
+            layer.solution = solution;
+            layer.solved = plan.current;
+            layer.solutionCurrent = true;
+            layer.pendingEdits.clear();
+            layer.breakEvenQueries = INFINITY;
+            layer.allPairsQueries += allPairs ? 1 : 0;
+        } else {
+            discardedSolutions.increment();
+        }
+        log(plan.decision.completed(System.nanoTime() - plan.start, published));
+    }
+
+    /**
+     * Costo de Floyd por componentes: n³ restringido a cada componente más la unión de cada
+     * fila con las aristas que salen de su componente.
+     */
+    private static double componentsCost(SparseGraph sparse, int n) {
+        int[][] adjacency = new int[n][];
+        for (int i = 0; i < n; i++) {
+            adjacency[i] = Arrays.copyOfRange(sparse.outTarget, sparse.outOffsets[i], sparse.outOffsets[i + 1]);
+        }
+        StronglyConnectedComponents scc = new StronglyConnectedComponents(adjacency);
+        double cost = (double) n * n;
+        for (int c = 0; c < scc.getComponentCount(); c++) {
+            int[] members = scc.getMembers(c);
+            long cross = 0;
+            for (int x : members) {
+                for (int y : adjacency[x]) {
+                    if (scc.getComponent(y) != c) {
+                        cross++;
+                    }
+                }
+            }
+            double size = members.length;
+            cost += size * size * size + size * cross * n;
+        }
+        return cost;
+    }
+
+    private void log(EngineDecision decision) {
+        if (decisions.size() == LOG_CAPACITY) {
+            decisions.removeFirst();
+        }
+        decisions.addLast(decision);
+        for (int s = 0; s < STRATEGIES.length; s++) {
+            if (STRATEGIES[s].equals(decision.getStrategy())) {
+                decisionCounts[s].increment();
+            }
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(decision.toString());
+        }
+        for (Consumer<EngineDecision> listener : decisionListeners) {
+            listener.accept(decision);
+        }
+    }
+
+    @Override
+    public synchronized void cityAdded(String cityName) {
+        for (Layer layer : layers) {
+            layer.dirty = true;
+            layer.solutionCurrent = false;
+        }
+        seenVersion = graph.getVersion();
+    }
+
+    @Override
+    public synchronized void edgeAdded(String from, String to, double[] times) {
+        recordEdit(from, to, -1);
+    }
+
+    @Override
+    public synchronized void edgeRemoved(String from, String to) {
+        recordEdit(from, to, -1);
+    }
+
+    @Override
+    public synchronized void weatherConditionUpdated(String from, String to, int weatherCondition, double time) {
+        recordEdit(from, to, weatherCondition);
+    }
+
+    /**
+     * Marca como pendiente una arista editada en una capa (o en todas si es -1).
+     */
+    private void recordEdit(String from, String to, int weatherCondition) {
+        int u = graph.indexOf(from);
+        int v = graph.indexOf(to);
+        for (int k = 0; k < layers.length; k++) {
+            if (weatherCondition != -1 && k != weatherCondition) {
+                continue;
+            }
+            Layer layer = layers[k];
+            layer.dirty = true;
+            layer.solutionCurrent = false;
+            if (layer.solution != null && u != v) {
+                layer.pendingEdits.add((long) u << 32 | v);
+                if (graph.isUndirected()) {
+                    layer.pendingEdits.add((long) v << 32 | u);
+                }
+            }
+        }
+        seenVersion = graph.getVersion();
+    }
+}
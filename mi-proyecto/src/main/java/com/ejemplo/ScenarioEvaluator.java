@@ -0,0 +1,239 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Evalúa escenarios hipotéticos ({@link EdgeOverlay}) a partir del estado actual de Floyd
+ * sin modificar el grafo ni las matrices compartidas.
+ *
+ * Cada escenario se repara fila por fila con copia en escritura: solo se copian las filas
+ * cuyas distancias cambian, el resto se comparte con la solución base. Los cierres y
+ * aumentos recalculan con Dijkstra únicamente las filas que usaban la arista afectada;
+ * las reducciones se propagan en O(n²) por arista. Las instancias son seguras para
+ * evaluar muchos escenarios en paralelo.
+ *
+ * La solución base es una copia tomada al crear el evaluador: Floyd reescribe sus filas al
+ * volver a ejecutarse, y los resultados comparten filas con la base.
+ */
+public class ScenarioEvaluator {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final Graph graph;
+    private final int weatherCondition;
+    private final double[][] baseDistance;
+    private final int[][] baseNext;
+    private final SparseGraph baseGraph;
+
+    /**
+     * Constructor que toma como base la solución actual de Floyd.
+     *
+     * @param graph El grafo evaluado.
+     * @param floyd Floyd ya ejecutado sobre el grafo.
+     * @throws IllegalStateException si Floyd no se ha ejecutado.
+     */
+    public ScenarioEvaluator(Graph graph, Floyd floyd) {
+        if (floyd.getWeatherCondition() < 0) {
+            throw new IllegalStateException("Floyd debe ejecutarse antes de evaluar escenarios");
+        }
+        this.graph = graph;
+        this.weatherCondition = floyd.getWeatherCondition();
+        this.baseGraph = SparseGraph.of(graph, weatherCondition);
+        int n = floyd.getDistanceMatrix().length;
+        if (baseGraph.numCities != n) {
+            throw new IllegalStateException("Floyd no corresponde al número actual de ciudades");
+        }
+        this.baseDistance = new double[n][];
+        this.baseNext = new int[n][];
+        for (int i = 0; i < n; i++) {
+            baseDistance[i] = floyd.getDistanceMatrix()[i].clone();
+            baseNext[i] = floyd.getNextMatrix()[i].clone();
+        }
+    }
+
+    /**
+     * Obtiene la condición climática de la solución base.
+     *
+     * @return Condición climática.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene la matriz de siguientes nodos de la solución base.
+     * Uso interno del paquete: no debe modificarse.
+     *
+     * @return Matriz de siguientes nodos.
+     */
+    int[][] getBaseNext() {
+        return baseNext;
+    }
+
+    /**
+     * Obtiene la copia dispersa del grafo sobre la que se evalúan los escenarios.
+     *
+     * @return Grafo disperso de la condición climática evaluada.
+     */
+    SparseGraph getBaseGraph() {
+        return baseGraph;
+    }
+
+    /**
+     * Evalúa un escenario.
+     *
+     * @param scenario Cambios hipotéticos sobre el grafo.
+     * @return Distancias, rutas e impacto del escenario.
+     * @throws IllegalArgumentException si el escenario es de otra condición climática.
+     */
+    public ScenarioResult evaluate(EdgeOverlay scenario) {
+        if (scenario.getWeatherCondition() != weatherCondition) {
+            throw new IllegalArgumentException("El escenario no corresponde a la condición climática evaluada");
+        }
+        int count = scenario.getChangeCount();
+        int[] from = new int[count];
+        int[] to = new int[count];
+        double[] weight = new double[count];
+        scenario.exportChanges(from, to, weight);
+        return evaluate(from, to, weight, count);
+    }
+
+    /**
+     * Evalúa varios escenarios en paralelo.
+     *
+     * @param scenarios Escenarios a evaluar.
+     * @return Resultados en el mismo orden que los escenarios.
+     */
+    public List<ScenarioResult> evaluateAll(List<EdgeOverlay> scenarios) {
+        return scenarios.parallelStream()
+            .map(this::evaluate)
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Evalúa un escenario dado como arreglos paralelos de cambios.
+     */
+    ScenarioResult evaluate(int[] from, int[] to, double[] weight, int count) {
+        double[] oldWeight = new double[count];
+        for (int c = 0; c < count; c++) {
+            oldWeight[c] = baseGraph.weight(from[c], to[c]);
+        }
+        SparseGraph changed = baseGraph.withChanges(from, to, weight, count);
+
+        double[][] distance = baseDistance.clone();
+        int[][] next = baseNext.clone();
+        boolean[] owned = repair(distance, next, changed, from, to, oldWeight, weight, count);
+        return new ScenarioResult(graph, baseDistance, distance, next, owned);
+    }
+
+    /**
+     * Repara una solución de todos los pares tras cambiar algunas aristas.
+     *
+     * Los arreglos distance y next son copias superficiales de la solución anterior: sus
+     * filas pueden estar compartidas y nunca se escriben; una fila que cambia se reemplaza
+     * por una copia propia. Primero se recalculan con Dijkstra sobre el grafo ya modificado
+     * las filas en las que alguna arista que empeora era ajustada (formaba parte de una ruta
+     * más corta); después se propagan las aristas que mejoran.
+     *
+     * @param distance Filas de distancias (se reemplazan las que cambian).
+     * @param next Filas de siguientes nodos (se reemplazan junto con las de distancia).
+     * @param changed Grafo disperso con los cambios aplicados.
+     * @param from Orígenes de las aristas modificadas.
+     * @param to Destinos de las aristas modificadas.
+     * @param oldWeight Pesos anteriores (infinito si la arista no existía).
+     * @param newWeight Pesos nuevos (infinito si la arista se cierra).
+     * @param count Número de cambios.
+     * @return Filas reemplazadas por copias propias.
+     */
+    static boolean[] repair(double[][] distance, int[][] next, SparseGraph changed,
+                            int[] from, int[] to, double[] oldWeight, double[] newWeight, int count) {
+        int n = distance.length;
+        boolean[] owned = new boolean[n];
+
+        int increases = 0;
+        for (int c = 0; c < count; c++) {
+            if (newWeight[c] > oldWeight[c]) {
+                increases++;
+            }
+        }
+        if (increases > 0) {
+            NodeHeap heap = new NodeHeap(64);
+            for (int i = 0; i < n; i++) {
+                if (usesIncreasedEdge(distance[i], from, to, oldWeight, newWeight, count)) {
+                    double[] row = new double[n];
+                    int[] hop = new int[n];
+                    changed.shortestPaths(i, false, row, hop, heap);
+                    hop[i] = -1;
+                    distance[i] = row;
+                    next[i] = hop;
+                    owned[i] = true;
+                }
+            }
+        }
+
+        for (int c = 0; c < count; c++) {
+            if (newWeight[c] < oldWeight[c]) {
+                relaxDecrease(distance, next, owned, from[c], to[c], newWeight[c]);
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * Indica si alguna arista que empeora es ajustada en la fila, es decir, si
+     * d(i,u) + w(u,v) coincide con d(i,v). Se usa una tolerancia relativa para no
+     * perder filas por redondeo; incluir una fila de más solo cuesta un Dijkstra.
+     */
+    static boolean usesIncreasedEdge(double[] row, int[] from, int[] to,
+                                     double[] oldWeight, double[] newWeight, int count) {
+        for (int c = 0; c < count; c++) {
+            if (newWeight[c] <= oldWeight[c] || oldWeight[c] == INFINITY) {
+                continue;
+            }
+            double du = row[from[c]];
+            double dv = row[to[c]];
+            if (du != INFINITY && du + oldWeight[c] <= dv + 1e-9 * Math.max(1.0, dv)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Propaga una arista u→v que mejora: d(i,j) = min(d(i,j), d(i,u) + w + d(v,j)).
+     */
+    private static void relaxDecrease(double[][] distance, int[][] next, boolean[] owned,
+                                      int u, int v, double weight) {
+        int n = distance.length;
+        double[] rowV = distance[v];
+        for (int i = 0; i < n; i++) {
+            double du = distance[i][u];
+            if (du == INFINITY || i == v) {
+                continue;
+            }
+            double throughEdge = du + weight;
+            int hop = (i == u) ? v : next[i][u];
+            double[] rowI = distance[i];
+            int[] nextI = next[i];
+            for (int j = 0; j < n; j++) {
+                double dvj = rowV[j];
+                if (dvj == INFINITY) {
+                    continue;
+                }
+                double candidate = throughEdge + dvj;
+                if (candidate < rowI[j]) {
+                    if (!owned[i]) {
+                        rowI = rowI.clone();
+                        nextI = nextI.clone();
+                        distance[i] = rowI;
+                        next[i] = nextI;
+                        owned[i] = true;
+                    }
+                    rowI[j] = candidate;
+                    nextI[j] = hop;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de evaluar un escenario hipotético: distancias y rutas más cortas con los
+ * cambios aplicados, junto con su impacto respecto a la solución base. Las filas que el
+ * escenario no modifica se comparten con la solución base y no se copian.
+ */
+public class ScenarioResult {
+    private static final double INFINITY = Double.MAX_VALUE;
+
+    private final Graph graph;
+    private final double[][] distance;
+    private final int[][] next;
+    private final int changedRows;
+    private long impactedPairs;
+    private long disconnectedPairs;
+    private double totalIncrease;
+    private double maxIncrease;
+
+    ScenarioResult(Graph graph, double[][] baseDistance, double[][] distance, int[][] next, boolean[] owned) {
+        this.graph = graph;
+        this.distance = distance;
+        this.next = next;
+
+        int rows = 0;
+        for (int i = 0; i < owned.length; i++) {
+            if (owned[i]) {
+                rows++;
+                compareRow(baseDistance[i], distance[i]);
+            }
+        }
+        this.changedRows = rows;
+    }
+
+    /**
+     * Acumula las diferencias de una fila reemplazada.
+     */
+    private void compareRow(double[] before, double[] after) {
+        for (int j = 0; j < after.length; j++) {
+            if (before[j] == after[j]) {
+                continue;
+            }
+            impactedPairs++;
+            if (after[j] == INFINITY) {
+                disconnectedPairs++;
+            } else if (before[j] != INFINITY && after[j] > before[j]) {
+                double increase = after[j] - before[j];
+                totalIncrease += increase;
+                maxIncrease = Math.max(maxIncrease, increase);
+            }
+        }
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades en el escenario.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1) {
+            return INFINITY;
+        }
+        return distance[fromIndex][toIndex];
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @return Distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(int fromIndex, int toIndex) {
+        return distance[fromIndex][toIndex];
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ciudades en el escenario.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Lista de ciudades de la ruta o lista vacía si no existe.
+     */
+    public List<String> getShortestPath(String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1 || distance[fromIndex][toIndex] == INFINITY) {
+            return Collections.emptyList();
+        }
+
+        List<String> path = new ArrayList<>();
+        int current = fromIndex;
+        path.add(graph.getCityName(current));
+        while (current != toIndex) {
+            current = next[current][toIndex];
+            if (current == -1) {
+                return Collections.emptyList();
+            }
+            path.add(graph.getCityName(current));
+        }
+        return path;
+    }
+
+    /**
+     * Obtiene el número de pares origen-destino cuya distancia cambió.
+     *
+     * @return Pares afectados.
+     */
+    public long getImpactedPairCount() {
+        return impactedPairs;
+    }
+
+    /**
+     * Obtiene el número de pares que tenían ruta y quedaron desconectados.
+     *
+     * @return Pares desconectados.
+     */
+    public long getDisconnectedPairCount() {
+        return disconnectedPairs;
+    }
+
+    /**
+     * Obtiene la suma de los aumentos de distancia de los pares que siguen conectados.
+     *
+     * @return Aumento total.
+     */
+    public double getTotalIncrease() {
+        return totalIncrease;
+    }
+
+    /**
+     * Obtiene el mayor aumento de distancia entre los pares que siguen conectados.
+     *
+     * @return Aumento máximo.
+     */
+    public double getMaxIncrease() {
+        return maxIncrease;
+    }
+
+    /**
+     * Obtiene el número de filas de la matriz que el escenario tuvo que copiar.
+     *
+     * @return Filas recalculadas.
+     */
+    public int getRecomputedRowCount() {
+        return changedRows;
+    }
+}
@@ -0,0 +1,202 @@
+package com.ejemplo;
+
+import java.util.Arrays;
+
+/**
+ * Copia compacta (formato CSR) de las aristas de una capa climática del grafo, con listas
+ * de salida y de entrada. La usan los algoritmos que solo recorren aristas existentes
+ * (Dijkstra, jerarquías de contracción, índices aproximados, escenarios) para no depender de la matriz n×n.
+ */
+class SparseGraph {
+    static final double INFINITY = Double.MAX_VALUE;
+
+    final int numCities;
+    final int[] outOffsets;
+    final int[] outTarget;
+    final double[] outWeight;
+    final int[] inOffsets;
+    final int[] inSource;
+    final double[] inWeight;
+
+    SparseGraph(int numCities, int[] edgeFrom, int[] edgeTo, double[] edgeWeight, int edgeCount) {
+        this.numCities = numCities;
+        this.outOffsets = new int[numCities + 1];
+        this.inOffsets = new int[numCities + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            outOffsets[edgeFrom[e] + 1]++;
+            inOffsets[edgeTo[e] + 1]++;
+        }
+        for (int i = 0; i < numCities; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+
+        this.outTarget = new int[edgeCount];
+        this.outWeight = new double[edgeCount];
+        this.inSource = new int[edgeCount];
+        this.inWeight = new double[edgeCount];
+        int[] outFill = Arrays.copyOf(outOffsets, numCities);
+        int[] inFill = Arrays.copyOf(inOffsets, numCities);
+        for (int e = 0; e < edgeCount; e++) {
+            int o = outFill[edgeFrom[e]]++;
+            outTarget[o] = edgeTo[e];
+            outWeight[o] = edgeWeight[e];
+            int p = inFill[edgeTo[e]]++;
+            inSource[p] = edgeFrom[e];
+            inWeight[p] = edgeWeight[e];
+        }
+    }
+
+    /**
+     * Crea la copia compacta de una capa climática del grafo.
+     *
+     * @param graph El grafo de origen.
+     * @param weatherCondition Condición climática.
+     * @return Grafo disperso con las aristas de esa capa.
+     */
+    static SparseGraph of(Graph graph, int weatherCondition) {
+        // La copia se hace con el grafo bloqueado: un solo estado aunque otro hilo lo modifique
+        synchronized (graph) {
+            int n = graph.getNumCities();
+            int[][] adjacency = graph.getAdjacencyLists(weatherCondition);
+            int edgeCount = 0;
+            for (int[] targets : adjacency) {
+                edgeCount += targets.length;
+            }
+
+            int[] from = new int[edgeCount];
+            int[] to = new int[edgeCount];
+            double[] weight = new double[edgeCount];
+            int e = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j : adjacency[i]) {
+                    from[e] = i;
+                    to[e] = j;
+                    weight[e] = graph.getEdgeWeight(i, j, weatherCondition);
+                    e++;
+                }
+            }
+            return new SparseGraph(n, from, to, weight, edgeCount);
+        }
+    }
+
+    /**
+     * Crea una copia con algunas aristas reemplazadas, agregadas o eliminadas
+     * (peso infinito). No modifica esta instancia.
+     *
+     * @param from Orígenes de las aristas modificadas.
+     * @param to Destinos de las aristas modificadas.
+     * @param weight Nuevos pesos (infinito para eliminar la arista).
+     * @param count Número de modificaciones.
+     * @return Nuevo grafo disperso con las modificaciones aplicadas.
+     */
+    SparseGraph withChanges(int[] from, int[] to, double[] weight, int count) {
+        boolean[] replaced = new boolean[outTarget.length];
+        for (int c = 0; c < count; c++) {
+            int edge = findEdge(from[c], to[c]);
+            if (edge != -1) {
+                replaced[edge] = true;
+            }
+        }
+
+        int capacity = outTarget.length + count;
+        int[] newFrom = new int[capacity];
+        int[] newTo = new int[capacity];
+        double[] newWeight = new double[capacity];
+        int e = 0;
+        for (int i = 0; i < numCities; i++) {
+            for (int o = outOffsets[i]; o < outOffsets[i + 1]; o++) {
+                if (!replaced[o]) {
+                    newFrom[e] = i;
+                    newTo[e] = outTarget[o];
+                    newWeight[e] = outWeight[o];
+                    e++;
+                }
+            }
+        }
+        for (int c = 0; c < count; c++) {
+            if (weight[c] != INFINITY && from[c] != to[c]) {
+                newFrom[e] = from[c];
+                newTo[e] = to[c];
+                newWeight[e] = weight[c];
+                e++;
+            }
+        }
+        return new SparseGraph(numCities, newFrom, newTo, newWeight, e);
+    }
+
+    /**
+     * Busca la arista from→to en las listas de salida.
+     *
+     * @return Posición de la arista o -1 si no existe.
+     */
+    int findEdge(int from, int to) {
+        for (int o = outOffsets[from]; o < outOffsets[from + 1]; o++) {
+            if (outTarget[o] == to) {
+                return o;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Obtiene el peso de la arista from→to.
+     *
+     * @return Peso de la arista o infinito si no existe.
+     */
+    double weight(int from, int to) {
+        int edge = findEdge(from, to);
+        return (edge == -1) ? INFINITY : outWeight[edge];
+    }
+
+    int edgeCount() {
+        return outTarget.length;
+    }
+
+    /**
+     * Dijkstra desde (o hacia, si reverse es true) un nodo.
+     *
+     * En modo directo, hop[v] es el primer nodo después de source en la ruta source→v
+     * (equivale a la fila source de la matriz next de Floyd). En modo inverso, dist[v]
+     * es la distancia v→source y hop[v] el siguiente nodo desde v hacia source
+     * (equivale a la columna source de next). Los nodos inalcanzables quedan con
+     * distancia infinita y hop -1.
+     *
+     * @param source Nodo de inicio.
+     * @param reverse true para recorrer las aristas en sentido inverso.
+     * @param dist Arreglo de salida de distancias (tamaño numCities).
+     * @param hop Arreglo de salida de saltos (puede ser null).
+     * @param heap Montículo de trabajo reutilizable.
+     */
+    void shortestPaths(int source, boolean reverse, double[] dist, int[] hop, NodeHeap heap) {
+        Arrays.fill(dist, INFINITY);
+        if (hop != null) {
+            Arrays.fill(hop, -1);
+        }
+        int[] offsets = reverse ? inOffsets : outOffsets;
+        int[] nodes = reverse ? inSource : outTarget;
+        double[] weights = reverse ? inWeight : outWeight;
+
+        heap.clear();
+        dist[source] = 0;
+        heap.push(source, 0);
+        while (!heap.isEmpty()) {
+            double d = heap.peekKey();
+            int node = heap.pop();
+            if (d > dist[node]) {
+                continue;
+            }
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int next = nodes[e];
+                double candidate = d + weights[e];
+                if (candidate < dist[next]) {
+                    dist[next] = candidate;
+                    if (hop != null) {
+                        hop[next] = reverse ? node : (node == source ? next : hop[node]);
+                    }
+                    heap.push(next, candidate);
+                }
+            }
+        }
+    }
+}
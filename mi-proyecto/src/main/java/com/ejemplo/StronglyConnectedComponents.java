@@ -0,0 +1,142 @@
+package com.ejemplo;
+
+import java.util.Arrays;
+
+/**
+ * Descomposición de un grafo dirigido en componentes fuertemente conexas (algoritmo de Tarjan,
+ * versión iterativa para no depender de la pila de llamadas en grafos grandes).
+ *
+ * Las componentes se numeran en el orden en que Tarjan las completa, que es un orden
+ * topológico inverso del grafo condensado: toda arista entre componentes distintas va de
+ * una componente con número mayor a una con número menor.
+ */
+public class StronglyConnectedComponents {
+    private final int[] componentOf;
+    private final int[][] members;
+
+    /**
+     * Constructor que calcula las componentes a partir de listas de adyacencia.
+     *
+     * @param adjacency Listas de adyacencia (índices de destino por nodo).
+     */
+    public StronglyConnectedComponents(int[][] adjacency) {
+        int n = adjacency.length;
+        this.componentOf = new int[n];
+        Arrays.fill(componentOf, -1);
+
+        int[] discovery = new int[n];
+        int[] lowLink = new int[n];
+        Arrays.fill(discovery, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int counter = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (discovery[root] != -1) {
+                continue;
+            }
+
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = 0;
+            discovery[root] = lowLink[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int node = callNode[depth];
+                int[] neighbors = adjacency[node];
+
+                if (callEdge[depth] < neighbors.length) {
+                    int neighbor = neighbors[callEdge[depth]++];
+                    if (discovery[neighbor] == -1) {
+                        discovery[neighbor] = lowLink[neighbor] = counter++;
+                        stack[stackSize++] = neighbor;
+                        onStack[neighbor] = true;
+                        depth++;
+                        callNode[depth] = neighbor;
+                        callEdge[depth] = 0;
+                    } else if (onStack[neighbor]) {
+                        lowLink[node] = Math.min(lowLink[node], discovery[neighbor]);
+                    }
+                    continue;
+                }
+
+                // Todos los vecinos procesados: cerrar la componente si el nodo es raíz
+                if (lowLink[node] == discovery[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        componentOf[member] = components;
+                    } while (member != node);
+                    components++;
+                }
+
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+            }
+        }
+
+        // Agrupa los nodos de cada componente
+        int[] sizes = new int[components];
+        for (int i = 0; i < n; i++) {
+            sizes[componentOf[i]]++;
+        }
+        this.members = new int[components][];
+        for (int c = 0; c < components; c++) {
+            members[c] = new int[sizes[c]];
+            sizes[c] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            int c = componentOf[i];
+            members[c][sizes[c]++] = i;
+        }
+    }
+
+    /**
+     * Constructor que calcula las componentes del grafo para una condición climática.
+     *
+     * @param graph El grafo a descomponer.
+     * @param weatherCondition Condición climática.
+     */
+    public StronglyConnectedComponents(Graph graph, int weatherCondition) {
+        this(graph.getAdjacencyLists(weatherCondition));
+    }
+
+    /**
+     * Obtiene el número de componentes.
+     *
+     * @return Número de componentes fuertemente conexas.
+     */
+    public int getComponentCount() {
+        return members.length;
+    }
+
+    /**
+     * Obtiene la componente a la que pertenece un nodo.
+     *
+     * @param node Índice del nodo.
+     * @return Número de componente.
+     */
+    public int getComponent(int node) {
+        return componentOf[node];
+    }
+
+    /**
+     * Obtiene los nodos de una componente (no debe modificarse el arreglo).
+     *
+     * @param component Número de componente.
+     * @return Índices de los nodos de la componente, en orden ascendente.
+     */
+    public int[] getMembers(int component) {
+        return members[component];
+    }
+}
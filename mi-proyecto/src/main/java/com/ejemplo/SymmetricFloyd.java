@@ -0,0 +1,238 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Variante del algoritmo de Floyd para grafos no dirigidos.
+ *
+ * Como d(i, j) == d(j, i), las distancias se guardan en el triángulo inferior empaquetado
+ * (igual que las capas de {@link Graph} en modo no dirigido) y en cada iteración solo se
+ * relajan las celdas con j ≤ i: la mitad de la memoria y de las operaciones de {@link Floyd}.
+ * En lugar de la matriz de siguiente nodo, que no es simétrica, se guarda el nodo intermedio
+ * de cada ruta, que sí lo es; con él la ruta se reconstruye en cualquiera de los dos sentidos.
+ */
+public class SymmetricFloyd {
+    private static final double INFINITY = Double.MAX_VALUE;
+    private static final int DIRECT = -1;
+    private static final int PATH_BUFFER = 16;
+
+    private final Graph graph;
+    private final int numCities;
+    private double[] distance; // triángulo inferior: celda (i, j) en Graph.triangleIndex(i, j)
+    private int[] via;         // nodo intermedio de la ruta o DIRECT si es una arista
+    private int weatherCondition;
+    private final ThreadLocal<int[]> stacks; // Pila de la reconstrucción, reutilizada por hilo
+
+    /**
+     * Constructor que inicializa el algoritmo con un grafo no dirigido.
+     *
+     * @param graph El grafo sobre el cual se ejecutará el algoritmo.
+     * @throws IllegalArgumentException si el grafo es dirigido.
+     */
+    public SymmetricFloyd(Graph graph) {
+        if (!graph.isUndirected()) {
+            throw new IllegalArgumentException("SymmetricFloyd requiere un grafo no dirigido");
+        }
+        this.graph = graph;
+        this.numCities = graph.getNumCities();
+        this.weatherCondition = -1;
+        this.stacks = ThreadLocal.withInitial(() -> new int[numCities + 1]);
+    }
+
+    /**
+     * Ejecuta el algoritmo para una condición climática específica.
+     *
+     * @param weatherCondition Condición climática para la cual se calcularán las rutas.
+     */
+    public void executeFloyd(int weatherCondition) {
+        this.weatherCondition = weatherCondition;
+        double[] dist = graph.getPackedLayer(weatherCondition);
+        int[] mid = new int[dist.length];
+        Arrays.fill(mid, DIRECT);
+        double[] rowK = new double[numCities];
+
+        for (int k = 0; k < numCities; k++) {
+            // La fila k no cambia durante la iteración k: se copia a un arreglo contiguo
+            for (int j = 0; j < numCities; j++) {
+                rowK[j] = dist[Graph.triangleIndex(k, j)];
+            }
+            for (int i = 0; i < numCities; i++) {
+                double dik = rowK[i];
+                if (dik == INFINITY) {
+                    continue;
+                }
+                int base = i * (i + 1) / 2;
+                for (int j = 0; j <= i; j++) {
+                    double dkj = rowK[j];
+                    if (dkj != INFINITY) {
+                        double newDistance = dik + dkj;
+                        if (newDistance < dist[base + j]) {
+                            dist[base + j] = newDistance;
+                            mid[base + j] = k;
+                        }
+                    }
+                }
+            }
+        }
+
+        this.distance = dist;
+        this.via = mid;
+    }
+
+    /**
+     * Obtiene la condición climática para la cual se resolvieron las distancias.
+     *
+     * @return Condición climática o -1 si el algoritmo aún no se ha ejecutado.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return La distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1) {
+            return INFINITY;
+        }
+        return getShortestDistance(fromIndex, toIndex);
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades dadas por índice.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @return La distancia más corta o infinito si no existe ruta.
+     */
+    public double getShortestDistance(int fromIndex, int toIndex) {
+        return distance[Graph.triangleIndex(fromIndex, toIndex)];
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @return Lista de nombres de ciudades que forman la ruta más corta.
+     */
+    public List<String> getShortestPath(String fromCity, String toCity) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1) {
+            return Collections.emptyList();
+        }
+
+        // Búfer pequeño; solo las rutas más largas se reconstruyen otra vez a su medida
+        int[] buffer = new int[PATH_BUFFER];
+        int length = getShortestPath(fromIndex, toIndex, buffer);
+        if (length > buffer.length) {
+            buffer = new int[length];
+            getShortestPath(fromIndex, toIndex, buffer);
+        }
+        List<String> path = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            path.add(graph.getCityName(buffer[i]));
+        }
+        return path;
+    }
+
+    /**
+     * Escribe la ruta más corta entre dos ciudades (por índice) en un búfer proporcionado.
+     * La ruta se expande desde los nodos intermedios con una pila explícita; igual que en
+     * {@link Floyd#getShortestPath(int, int, int[])}, si el búfer es más corto solo se
+     * escriben las primeras posiciones y el valor devuelto es la longitud completa.
+     *
+     * @param fromIndex Índice de la ciudad de origen.
+     * @param toIndex Índice de la ciudad destino.
+     * @param buffer Búfer donde se escribirán los índices de las ciudades de la ruta.
+     * @return Número de ciudades de la ruta (incluyendo origen y destino) o 0 si no existe.
+     */
+    public int getShortestPath(int fromIndex, int toIndex, int[] buffer) {
+        if (distance[Graph.triangleIndex(fromIndex, toIndex)] == INFINITY) {
+            return 0;
+        }
+
+        // La pila guarda los extremos pendientes; el extremo izquierdo es siempre el último
+        // nodo escrito, así que cada segmento (current, top) se divide o se cierra
+        int[] stack = stacks.get();
+        int size = 0;
+        stack[size++] = toIndex;
+        int current = fromIndex;
+        int count = 0;
+        if (count < buffer.length) {
+            buffer[count] = current;
+        }
+        count++;
+
+        while (size > 0) {
+            int target = stack[size - 1];
+            if (current == target) {
+                size--;
+                continue;
+            }
+            int middle = via[Graph.triangleIndex(current, target)];
+            if (middle == DIRECT) {
+                size--;
+                current = target;
+                if (count < buffer.length) {
+                    buffer[count] = current;
+                }
+                count++;
+                if (count > numCities) {
+                    return 0; // Rutas inconsistentes (solo posible con ciclos de peso cero)
+                }
+            } else {
+                if (size == stack.length) {
+                    return 0;
+                }
+                stack[size++] = middle;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Calcula el centro del grafo.
+     * El centro es el vértice que minimiza la distancia máxima a cualquier otro vértice.
+     *
+     * @return Nombre de la ciudad que es el centro del grafo o null si el grafo está vacío.
+     */
+    public String calculateGraphCenter() {
+        if (numCities == 0) {
+            return null;
+        }
+
+        // Cada celda del triángulo cuenta para la excentricidad de sus dos extremos
+        double[] eccentricity = new double[numCities];
+        for (int i = 0; i < numCities; i++) {
+            int base = i * (i + 1) / 2;
+            for (int j = 0; j < i; j++) {
+                double d = distance[base + j];
+                if (d != INFINITY) {
+                    eccentricity[i] = Math.max(eccentricity[i], d);
+                    eccentricity[j] = Math.max(eccentricity[j], d);
+                }
+            }
+        }
+
+        double minMaxDistance = INFINITY;
+        String centerCity = null;
+        for (int i = 0; i < numCities; i++) {
+            if (eccentricity[i] < minMaxDistance) {
+                minMaxDistance = eccentricity[i];
+                centerCity = graph.getCityName(i);
+            }
+        }
+        return centerCity;
+    }
+}
@@ -0,0 +1,291 @@
+package com.ejemplo;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ingesta de actualizaciones climáticas por lotes.
+ *
+ * Cada archivo (o flujo) de registros "ciudad1 ciudad2 condición tiempo" forma un lote. Los
+ * registros se leen línea a línea como en {@link FileHandler}, las actualizaciones repetidas
+ * de la misma arista y condición se reducen a la última, el lote se aplica al grafo de forma
+ * atómica y después cada capa climática afectada con un Floyd registrado se recalcula una
+ * sola vez: de forma incremental o completa, lo que el modelo de costo estime más barato.
+ * La condición puede darse por índice (0-3) o por nombre (normal, lluvia, nieve, tormenta).
+ *
+ * La reparación incremental solo es válida si el Floyd registrado corresponde al grafo tal
+ * como estaba justo antes del lote; por eso se guarda la versión del grafo con la que se
+ * resolvió cada capa y, si el grafo cambió por fuera de la ingesta, la capa se recalcula
+ * completa.
+ */
+public class WeatherFeed {
+    private static final String[][] CONDITION_NAMES = {
+        {"normal"}, {"lluvia", "rain"}, {"nieve", "snow"}, {"tormenta", "storm"}
+    };
+
+    private final Graph graph;
+    private final Floyd[] solvers;
+    private final long[] solvedVersions; // Versión del grafo que refleja cada Floyd registrado
+
+    /**
+     * Constructor que asocia la ingesta a un grafo.
+     *
+     * @param graph El grafo que recibe las actualizaciones.
+     */
+    public WeatherFeed(Graph graph) {
+        this.graph = graph;
+        this.solvers = new Floyd[Graph.NUM_WEATHER_CONDITIONS];
+        this.solvedVersions = new long[Graph.NUM_WEATHER_CONDITIONS];
+    }
+
+    /**
+     * Registra un Floyd ya ejecutado para mantenerlo actualizado tras cada lote. Se
+     * supone que resolvió el grafo en su estado actual.
+     *
+     * @param floyd Floyd ejecutado para alguna condición climática.
+     * @throws IllegalStateException si Floyd no se ha ejecutado.
+     */
+    public void registerSolver(Floyd floyd) {
+        if (floyd.getWeatherCondition() < 0) {
+            throw new IllegalStateException("Floyd debe ejecutarse antes de registrarse");
+        }
+        synchronized (graph) {
+            solvers[floyd.getWeatherCondition()] = floyd;
+            solvedVersions[floyd.getWeatherCondition()] = graph.getVersion();
+        }
+    }
+
+    /**
+     * Lee un archivo de actualizaciones y lo aplica como un lote.
+     *
+     * @param filename Archivo de actualizaciones.
+     * @return Resumen del lote.
+     * @throws IOException Si ocurre un error al leer el archivo.
+     */
+    public BatchReport ingestFile(String filename) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            return ingest(reader);
+        }
+    }
+
+    /**
+     * Lee un flujo de actualizaciones hasta su final y lo aplica como un lote.
+     *
+     * @param reader Flujo de registros, uno por línea.
+     * @return Resumen del lote.
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public BatchReport ingest(BufferedReader reader) throws IOException {
+        long start = System.nanoTime();
+        Map<Long, WeatherUpdate> batch = new LinkedHashMap<>();
+        int read = 0;
+        int rejected = 0;
+        String line;
+        int lineNumber = 0;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            read++;
+
+            String[] parts = line.split("\\s+");
+            if (parts.length != 4) {
+                System.err.println("Advertencia: Línea " + lineNumber +
+                    " tiene formato incorrecto. Se esperaban 4 valores, se encontraron " + parts.length);
+                rejected++;
+                continue;
+            }
+            int condition = parseCondition(parts[2]);
+            double time;
+            try {
+                time = Double.parseDouble(parts[3]);
+            } catch (NumberFormatException e) {
+                System.err.println("Advertencia: Línea " + lineNumber +
+                    " contiene formato numérico inválido: " + line);
+                rejected++;
+                continue;
+            }
+            if (condition == -1 || !addToBatch(batch, new WeatherUpdate(parts[0], parts[1], condition, time))) {
+                rejected++;
+            }
+        }
+
+        return apply(batch, read, rejected, start, System.nanoTime() - start);
+    }
+
+    /**
+     * Aplica un lote de actualizaciones ya leídas.
+     *
+     * @param updates Actualizaciones en orden de llegada.
+     * @return Resumen del lote.
+     */
+    public BatchReport applyBatch(List<WeatherUpdate> updates) {
+        long start = System.nanoTime();
+        Map<Long, WeatherUpdate> batch = new LinkedHashMap<>();
+        int rejected = 0;
+        for (WeatherUpdate update : updates) {
+            if (!addToBatch(batch, update)) {
+                rejected++;
+            }
+        }
+        return apply(batch, updates.size(), rejected, start, System.nanoTime() - start);
+    }
+
+    /**
+     * Agrega una actualización al lote reemplazando la anterior de la misma arista y condición.
+     *
+     * @return false si alguna ciudad no existe o la condición es inválida.
+     */
+    private boolean addToBatch(Map<Long, WeatherUpdate> batch, WeatherUpdate update) {
+        int from = graph.indexOf(update.getFromCity());
+        int to = graph.indexOf(update.getToCity());
+        int condition = update.getWeatherCondition();
+        if (from == -1 || to == -1 || from == to || condition < 0 || condition >= Graph.NUM_WEATHER_CONDITIONS) {
+            return false;
+        }
+        if (graph.isUndirected() && from > to) {
+            int swap = from; // En un grafo no dirigido (u,v) y (v,u) son la misma arista
+            from = to;
+            to = swap;
+        }
+        long key = (((long) from << 32 | to) << 2) | condition;
+        batch.put(key, update);
+        return true;
+    }
+
+    private BatchReport apply(Map<Long, WeatherUpdate> batch, int read, int rejected, long start, long parseNanos) {
+        long applyStart = System.nanoTime();
+        int layers = Graph.NUM_WEATHER_CONDITIONS;
+        int[] counts = new int[layers];
+        int capacity = graph.isUndirected() ? 2 * batch.size() : batch.size();
+        int[][] from = new int[layers][capacity];
+        int[][] to = new int[layers][capacity];
+        double[][] oldWeight = new double[layers][capacity];
+        double[][] newWeight = new double[layers][capacity];
+        int applied;
+        int n;
+        long versionBefore;
+        long versionAfter;
+
+        synchronized (graph) {
+            n = graph.getNumCities();
+            versionBefore = graph.getVersion();
+            for (WeatherUpdate update : batch.values()) {
+                int k = update.getWeatherCondition();
+                int u = graph.indexOf(update.getFromCity());
+                int v = graph.indexOf(update.getToCity());
+                double previous = graph.getEdgeWeight(u, v, k);
+                if (previous == update.getTime()) {
+                    continue; // No cambia nada en la capa
+                }
+                int c = counts[k]++;
+                from[k][c] = u;
+                to[k][c] = v;
+                oldWeight[k][c] = previous;
+                newWeight[k][c] = update.getTime();
+                if (graph.isUndirected()) {
+                    c = counts[k]++; // La capa también cambia en el sentido inverso
+                    from[k][c] = v;
+                    to[k][c] = u;
+                    oldWeight[k][c] = previous;
+                    newWeight[k][c] = update.getTime();
+                }
+            }
+            applied = graph.updateWeatherConditions(new ArrayList<>(batch.values()));
+            versionAfter = graph.getVersion();
+        }
+        long applyNanos = System.nanoTime() - applyStart;
+
+        String[] strategies = new String[layers];
+        long[] layerNanos = new long[layers];
+        for (int k = 0; k < layers; k++) {
+            long layerStart = System.nanoTime();
+            strategies[k] = recompute(k, n, versionBefore, versionAfter,
+                from[k], to[k], oldWeight[k], newWeight[k], counts[k]);
+            layerNanos[k] = System.nanoTime() - layerStart;
+        }
+
+        return new BatchReport(read, rejected, batch.size(), applied, strategies, layerNanos,
+            parseNanos, applyNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * Recalcula una capa tras el lote eligiendo la estrategia más barata.
+     *
+     * El costo incremental se estima como O(n²) por cada arista que mejora más un Dijkstra
+     * (O((m + n)·log n)) por cada fila que usaba una arista que empeora; el completo es n³.
+     * Si el Floyd no correspondía al grafo de antes del lote se recalcula completo aunque
+     * el lote no toque la capa.
+     */
+    private String recompute(int weatherCondition, int n, long versionBefore, long versionAfter,
+                             int[] from, int[] to, double[] oldWeight, double[] newWeight, int count) {
+        Floyd floyd = solvers[weatherCondition];
+        boolean current = floyd != null && solvedVersions[weatherCondition] == versionBefore
+            && floyd.getWeatherCondition() == weatherCondition && floyd.getDistanceMatrix().length == n;
+        if (floyd != null) {
+            solvedVersions[weatherCondition] = versionAfter;
+        }
+        if (count == 0 && (floyd == null || current)) {
+            return BatchReport.UNCHANGED;
+        }
+        if (floyd == null) {
+            return BatchReport.NO_SOLVER;
+        }
+        if (!current) {
+            floyd.executeFloyd(weatherCondition);
+            return BatchReport.FULL;
+        }
+
+        SparseGraph sparse = SparseGraph.of(graph, weatherCondition);
+        int decreases = 0;
+        for (int c = 0; c < count; c++) {
+            if (newWeight[c] < oldWeight[c]) {
+                decreases++;
+            }
+        }
+        long rows = floyd.countRowsUsingIncreasedEdges(from, to, oldWeight, newWeight, count);
+        double log = Math.log(n + 1) / Math.log(2);
+        double incrementalCost = (double) decreases * n * n
+            + rows * (sparse.edgeCount() + (double) n) * log
+            + (double) (count - decreases) * n;
+        double fullCost = (double) n * n * n;
+
+        if (incrementalCost < fullCost) {
+            floyd.repairEdgeChanges(sparse, Arrays.copyOf(from, count), Arrays.copyOf(to, count),
+                Arrays.copyOf(oldWeight, count), Arrays.copyOf(newWeight, count), count);
+            return BatchReport.INCREMENTAL;
+        }
+        floyd.executeFloyd(weatherCondition);
+        return BatchReport.FULL;
+    }
+
+    /**
+     * Interpreta una condición climática por índice o por nombre.
+     *
+     * @param token Texto de la condición.
+     * @return Condición climática o -1 si no es válida.
+     */
+    static int parseCondition(String token) {
+        String lower = token.toLowerCase();
+        for (int k = 0; k < CONDITION_NAMES.length; k++) {
+            if (lower.equals(String.valueOf(k))) {
+                return k;
+            }
+            for (String name : CONDITION_NAMES[k]) {
+                if (lower.equals(name)) {
+                    return k;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,179 @@
+package com.ejemplo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Soluciones de Floyd de las cuatro condiciones climáticas, con las capas poco consultadas
+ * guardadas en formato comprimido ({@link CompressedMatrix}).
+ *
+ * Las consultas cuentan los accesos por capa; cada cierto número de consultas las capas con
+ * al menos una cuarta parte de los accesos recientes se guardan descomprimidas y el resto
+ * se comprime. Los contadores se reducen a la mitad en cada revisión para que el reparto
+ * siga a la carga reciente. Al crear el almacén solo la capa normal queda descomprimida.
+ * Es una instantánea: {@link #isCurrent()} indica si el grafo cambió después.
+ */
+public class WeatherLayerStore {
+    private static final double INFINITY = Double.MAX_VALUE;
+    private static final int REBALANCE_INTERVAL = 256;
+    private static final double HOT_SHARE = 0.25;
+    private static final int CACHE_ROWS = 32;
+
+    private final Graph graph;
+    private final long graphVersion;
+    private final int numCities;
+    private final double[][][] distance; // Capas descomprimidas (null si está comprimida)
+    private final int[][][] next;
+    private final CompressedMatrix[] compressed;
+    private final long[] accessCounts;
+    private int queriesSinceRebalance;
+
+    /**
+     * Constructor que resuelve todas las condiciones climáticas del grafo.
+     *
+     * @param graph El grafo consultado.
+     */
+    public WeatherLayerStore(Graph graph) {
+        this.graph = graph;
+        this.graphVersion = graph.getVersion();
+        this.numCities = graph.getNumCities();
+        int layers = Graph.NUM_WEATHER_CONDITIONS;
+        this.distance = new double[layers][][];
+        this.next = new int[layers][][];
+        this.compressed = new CompressedMatrix[layers];
+        this.accessCounts = new long[layers];
+
+        for (int k = 0; k < layers; k++) {
+            Floyd floyd = new Floyd(graph);
+            floyd.executeFloyd(k);
+            if (k == Graph.NORMAL) {
+                distance[k] = floyd.getDistanceMatrix();
+                next[k] = floyd.getNextMatrix();
+            } else {
+                compressed[k] = new CompressedMatrix(floyd.getDistanceMatrix(), floyd.getNextMatrix(), CACHE_ROWS);
+            }
+        }
+    }
+
+    /**
+     * Obtiene la distancia más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return La distancia más corta o infinito si no existe ruta.
+     */
+    public synchronized double getShortestDistance(String fromCity, String toCity, int weatherCondition) {
+        int fromIndex = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        if (fromIndex == -1 || toIndex == -1 || fromIndex >= numCities || toIndex >= numCities) {
+            return INFINITY;
+        }
+        recordAccess(weatherCondition);
+        if (distance[weatherCondition] != null) {
+            return distance[weatherCondition][fromIndex][toIndex];
+        }
+        return compressed[weatherCondition].row(fromIndex).distance[toIndex];
+    }
+
+    /**
+     * Obtiene la ruta más corta entre dos ciudades.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @return Lista de nombres de ciudades que forman la ruta más corta (vacía si no existe).
+     */
+    public synchronized List<String> getShortestPath(String fromCity, String toCity, int weatherCondition) {
+        if (getShortestDistance(fromCity, toCity, weatherCondition) == INFINITY) {
+            return Collections.emptyList();
+        }
+        int current = graph.indexOf(fromCity);
+        int toIndex = graph.indexOf(toCity);
+        List<String> path = new ArrayList<>();
+        path.add(graph.getCityName(current));
+        while (current != toIndex) {
+            current = (next[weatherCondition] != null)
+                ? next[weatherCondition][current][toIndex]
+                : compressed[weatherCondition].row(current).next[toIndex];
+            if (current == -1) {
+                return Collections.emptyList();
+            }
+            path.add(graph.getCityName(current));
+        }
+        return path;
+    }
+
+    /**
+     * Indica si una capa está guardada en formato comprimido.
+     *
+     * @param weatherCondition Condición climática.
+     * @return true si la capa está comprimida.
+     */
+    public synchronized boolean isCompressed(int weatherCondition) {
+        return compressed[weatherCondition] != null;
+    }
+
+    /**
+     * Estima la memoria ocupada por las matrices de todas las capas.
+     *
+     * @return Bytes aproximados (sin contar la caché de filas decodificadas).
+     */
+    public synchronized long getMemoryBytes() {
+        long bytes = 0;
+        for (int k = 0; k < compressed.length; k++) {
+            bytes += (compressed[k] != null)
+                ? compressed[k].getCompressedBytes()
+                : (long) numCities * numCities * (Double.BYTES + Integer.BYTES);
+        }
+        return bytes;
+    }
+
+    /**
+     * Indica si el grafo no ha cambiado desde que se resolvieron las capas.
+     *
+     * @return true si las soluciones corresponden al grafo actual.
+     */
+    public boolean isCurrent() {
+        return graph.getVersion() == graphVersion;
+    }
+
+    private void recordAccess(int weatherCondition) {
+        accessCounts[weatherCondition]++;
+        if (++queriesSinceRebalance >= REBALANCE_INTERVAL) {
+            rebalance();
+        }
+    }
+
+    /**
+     * Descomprime las capas con suficientes accesos recientes y comprime las demás.
+     */
+    private void rebalance() {
+        long total = 0;
+        for (long count : accessCounts) {
+            total += count;
+        }
+        for (int k = 0; k < accessCounts.length; k++) {
+            boolean hot = accessCounts[k] >= total * HOT_SHARE;
+            if (hot && compressed[k] != null) {
+                double[][] rowsDistance = new double[numCities][];
+                int[][] rowsNext = new int[numCities][];
+                for (int i = 0; i < numCities; i++) {
+                    CompressedMatrix.DecodedRow row = compressed[k].decode(i);
+                    rowsDistance[i] = row.distance;
+                    rowsNext[i] = row.next;
+                }
+                distance[k] = rowsDistance;
+                next[k] = rowsNext;
+                compressed[k] = null;
+            } else if (!hot && compressed[k] == null) {
+                compressed[k] = new CompressedMatrix(distance[k], next[k], CACHE_ROWS);
+                distance[k] = null;
+                next[k] = null;
+            }
+            accessCounts[k] /= 2;
+        }
+        queriesSinceRebalance = 0;
+    }
+}
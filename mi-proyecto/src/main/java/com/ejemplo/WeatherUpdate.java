@@ -0,0 +1,67 @@
+package com.ejemplo;
+
+/**
+ * Actualización climática de una conexión: nuevo tiempo de viaje para una condición.
+ */
+public class WeatherUpdate {
+    private final String fromCity;
+    private final String toCity;
+    private final int weatherCondition;
+    private final double time;
+
+    /**
+     * Constructor que crea una actualización.
+     *
+     * @param fromCity Ciudad de origen.
+     * @param toCity Ciudad destino.
+     * @param weatherCondition Condición climática.
+     * @param time Nuevo tiempo de viaje.
+     */
+    public WeatherUpdate(String fromCity, String toCity, int weatherCondition, double time) {
+        this.fromCity = fromCity;
+        this.toCity = toCity;
+        this.weatherCondition = weatherCondition;
+        this.time = time;
+    }
+
+    /**
+     * Obtiene la ciudad de origen.
+     *
+     * @return Ciudad de origen.
+     */
+    public String getFromCity() {
+        return fromCity;
+    }
+
+    /**
+     * Obtiene la ciudad destino.
+     *
+     * @return Ciudad destino.
+     */
+    public String getToCity() {
+        return toCity;
+    }
+
+    /**
+     * Obtiene la condición climática actualizada.
+     *
+     * @return Condición climática.
+     */
+    public int getWeatherCondition() {
+        return weatherCondition;
+    }
+
+    /**
+     * Obtiene el nuevo tiempo de viaje.
+     *
+     * @return Tiempo de viaje.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public String toString() {
+        return fromCity + " " + toCity + " " + weatherCondition + " " + time;
+    }
+}
@@ -1,12 +1,34 @@
 package com.ejemplo;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -43,6 +65,64 @@ public class Tests {
         floyd = new Floyd(graph);
         floyd.executeFloyd(Graph.NORMAL);
     }
+
+    /**
+     * Crea una red dirigida aleatoria con las ciudades C0 .. C(n-1) y m aristas sin lazos.
+     */
+    private static Graph randomGraph(long seed, int n, int m) {
+        return randomGraph(new Graph(n), new Random(seed), n, m);
+    }
+
+    /**
+     * Agrega a un grafo las ciudades C0 .. C(n-1) y m aristas aleatorias sin lazos; una
+     * arista repetida reemplaza a la anterior. El tiempo normal es un entero entre 1 y 20 y
+     * cada condición más severa le suma una unidad.
+     */
+    private static Graph randomGraph(Graph target, Random random, int n, int m) {
+        for (int i = 0; i < n; i++) {
+            target.addCity("C" + i);
+        }
+        for (int e = 0; e < m; e++) {
+            int i = random.nextInt(n);
+            int j = (i + 1 + random.nextInt(n - 1)) % n;
+            double time = 1 + random.nextInt(20);
+            target.addEdge("C" + i, "C" + j, time, time + 1, time + 2, time + 3);
+        }
+        return target;
+    }
+
+    /**
+     * Compara una solución con Floyd completo sobre el grafo: las distancias de todos los
+     * pares deben coincidir y, si se da {@code path}, cada ruta debe ir del origen al
+     * destino y medir esa distancia en el grafo (o estar vacía si no hay ruta).
+     */
+    private static void assertMatchesFloyd(Graph graph, int weatherCondition,
+                                           BiFunction<String, String, Double> distance,
+                                           BiFunction<String, String, List<String>> path) {
+        Floyd expected = new Floyd(graph);
+        expected.executeFloyd(weatherCondition);
+        for (String from : graph.getCities()) {
+            for (String to : graph.getCities()) {
+                double exact = expected.getShortestDistance(from, to);
+                assertEquals(exact, distance.apply(from, to), 1e-9, from + " -> " + to);
+                if (path == null) {
+                    continue;
+                }
+                List<String> route = path.apply(from, to);
+                if (exact == Double.MAX_VALUE) {
+                    assertTrue(route.isEmpty(), from + " -> " + to);
+                    continue;
+                }
+                assertEquals(from, route.get(0));
+                assertEquals(to, route.get(route.size() - 1));
+                double total = 0;
+                for (int i = 0; i + 1 < route.size(); i++) {
+                    total += graph.getEdgeWeight(route.get(i), route.get(i + 1), weatherCondition);
+                }
+                assertEquals(exact, total, 1e-9, from + " -> " + to);
+            }
+        }
+    }
     
     /**
      * Prueba para agregar ciudades al grafo.
@@ -264,4 +344,1338 @@ public class Tests {
         assertEquals("OnlyCity", singleFloyd.calculateGraphCenter());
         assertEquals(0.0, singleFloyd.getShortestDistance("OnlyCity", "OnlyCity"));
     }
+
+    /**
+     * Prueba para las k rutas más cortas (Yen).
+     */
+    @Test
+    @DisplayName("Test k shortest loopless paths")
+    void testKShortestPaths() {
+        KShortestPaths kShortest = new KShortestPaths(graph, floyd);
+        List<Route> routes = kShortest.findKShortestPaths("A", "D", 5);
+
+        // A->C->D = 10, A->B->D = 11, A->B->C->D = 14
+        assertEquals(3, routes.size());
+        assertEquals(10.0, routes.get(0).getCost());
+        assertEquals(11.0, routes.get(1).getCost());
+        assertEquals(14.0, routes.get(2).getCost());
+        assertEquals(floyd.getShortestPath("A", "D"), routes.get(0).getCities());
+        assertEquals(3, routes.get(0).getCities().size());
+        assertTrue(kShortest.findKShortestPaths("D", "A", 3).isEmpty());
+
+        // En una cuadrícula de 400 ciudades k = 5 cierra pocos nodos y responde en milisegundos
+        Graph grid = new Graph(400);
+        Random random = new Random(26);
+        for (int r = 0; r < 20; r++) {
+            for (int c = 0; c < 20; c++) {
+                String city = "G" + r + "_" + c;
+                if (c + 1 < 20) {
+                    double time = 1 + random.nextInt(9);
+                    grid.addEdge(city, "G" + r + "_" + (c + 1), time, time, time, time);
+                    grid.addEdge("G" + r + "_" + (c + 1), city, time, time, time, time);
+                }
+                if (r + 1 < 20) {
+                    double time = 1 + random.nextInt(9);
+                    grid.addEdge(city, "G" + (r + 1) + "_" + c, time, time, time, time);
+                    grid.addEdge("G" + (r + 1) + "_" + c, city, time, time, time, time);
+                }
+            }
+        }
+        Floyd gridFloyd = new Floyd(grid);
+        gridFloyd.executeFloyd(Graph.NORMAL);
+        KShortestPaths gridPaths = new KShortestPaths(grid, gridFloyd);
+        long worstSettled = 0;
+        long begin = System.nanoTime();
+        for (int q = 0; q < 50; q++) {
+            String from = "G" + random.nextInt(20) + "_" + random.nextInt(20);
+            String to = "G" + random.nextInt(20) + "_" + random.nextInt(20);
+            List<Route> alternatives = gridPaths.findKShortestPaths(from, to, 5);
+            assertEquals(from.equals(to) ? 1 : 5, alternatives.size());
+            worstSettled = Math.max(worstSettled, gridPaths.getSettledCount());
+        }
+        long averageNanos = (System.nanoTime() - begin) / 50;
+        // Sin heurística cada búsqueda de desvío podría cerrar las 400 ciudades
+        assertTrue(worstSettled < 2 * grid.getNumCities());
+        assertTrue(averageNanos < 10_000_000L);
+    }
+
+    /**
+     * Prueba para la reconstrucción primitiva de rutas (búfer, cursor y matriz de saltos).
+     */
+    @Test
+    @DisplayName("Test primitive path reconstruction")
+    void testPrimitivePathReconstruction() {
+        int a = graph.getCityIndex("A");
+        int d = graph.getCityIndex("D");
+
+        int[] buffer = new int[graph.getNumCities()];
+        int length = floyd.getShortestPath(a, d, buffer);
+        assertEquals(floyd.getPathLength(a, d), length);
+        assertEquals(a, buffer[0]);
+        assertEquals(d, buffer[length - 1]);
+
+        // Un búfer pequeño conserva la longitud completa
+        assertEquals(length, floyd.getShortestPath(a, d, new int[1]));
+
+        floyd.computeHopCounts();
+        assertEquals(length, floyd.getPathLength(a, d));
+        assertEquals(1, floyd.getPathLength(a, a));
+        assertEquals(0, floyd.getPathLength(d, a));
+
+        PathCursor cursor = floyd.newPathCursor();
+        assertTrue(cursor.reset(a, d));
+        int visited = 0;
+        while (cursor.hasNext()) {
+            assertEquals(buffer[visited++], cursor.next());
+        }
+        assertEquals(length, visited);
+        assertFalse(cursor.reset(d, a));
+        assertEquals(-1, cursor.next());
+
+        // Las rutas más largas que el búfer inicial del adaptador se devuelven completas
+        Graph line = new Graph();
+        for (int i = 0; i + 1 < 40; i++) {
+            line.addEdge("P" + i, "P" + (i + 1), 1, 1, 1, 1);
+        }
+        Floyd lineFloyd = new Floyd(line);
+        lineFloyd.executeFloyd(Graph.NORMAL);
+        List<String> longPath = lineFloyd.getShortestPath("P0", "P39");
+        assertEquals(40, longPath.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals("P" + i, longPath.get(i));
+        }
+    }
+
+    /**
+     * Prueba para el diccionario de ciudades con direccionamiento abierto.
+     */
+    @Test
+    @DisplayName("Test open-addressing city registry")
+    void testCityRegistry() throws Exception {
+        CityRegistry registry = new CityRegistry();
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, registry.add("City" + i));
+        }
+        assertEquals(10000, registry.size());
+        assertEquals(1234, registry.indexOf("City1234"));
+        assertEquals(1234, registry.add("City1234"));
+        assertEquals(-1, registry.indexOf("Missing"));
+        assertEquals("City42", registry.nameOf(42));
+        assertNull(registry.nameOf(10000));
+
+        List<String> view = registry.names();
+        assertTrue(view.contains("City9999"));
+        registry.add("Late");
+        assertEquals("Late", view.get(10000));
+        assertThrows(UnsupportedOperationException.class, () -> view.add("X"));
+        assertThrows(IllegalArgumentException.class, () -> registry.add(null));
+        assertEquals(-1, registry.indexOf(null));
+
+        // Búsquedas concurrentes con altas que hacen crecer y reconstruir la tabla
+        CityRegistry shared = new CityRegistry(1);
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            try {
+                while (shared.size() < 20000 && !failed.get()) {
+                    int size = shared.size();
+                    for (int i = Math.max(size - 64, 0); i < size; i++) {
+                        if (shared.indexOf("City" + i) != i || !("City" + i).equals(shared.nameOf(i))) {
+                            failed.set(true);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                failed.set(true);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20000; i++) {
+            shared.add("City" + i);
+        }
+        reader.join();
+        assertFalse(failed.get());
+
+        assertTrue(graph.containsCity("A"));
+        assertFalse(graph.containsCity("Z"));
+        assertEquals(-1, graph.indexOf("Z"));
+    }
+
+    /**
+     * Prueba para Floyd por componentes fuertemente conexas frente a Floyd completo.
+     */
+    @Test
+    @DisplayName("Test SCC-decomposed Floyd matches full Floyd")
+    void testFloydBySccs() {
+        // Seis regiones de diez ciudades unidas por troncales en un solo sentido
+        Graph clustered = new Graph();
+        Random random = new Random(29);
+        for (int c = 0; c < 6; c++) {
+            for (int i = 0; i < 10; i++) {
+                String from = "R" + c + "_" + i;
+                clustered.addEdge(from, "R" + c + "_" + ((i + 1) % 10), 1 + random.nextInt(9), 2, 3, 4);
+                clustered.addEdge(from, "R" + c + "_" + ((i + 2 + random.nextInt(8)) % 10), 1 + random.nextInt(9), 2, 3, 4);
+            }
+            if (c > 0) {
+                clustered.addEdge("R" + (c - 1) + "_" + random.nextInt(10), "R" + c + "_0", 5, 5, 5, 5);
+            }
+        }
+        clustered.addEdge("R0_3", "R4_5", 7, 7, 7, 7);
+
+        Floyd decomposed = new Floyd(clustered);
+        decomposed.executeFloydBySccs(Graph.NORMAL);
+
+        assertEquals(6, new StronglyConnectedComponents(clustered, Graph.NORMAL).getComponentCount());
+        assertMatchesFloyd(clustered, Graph.NORMAL, decomposed::getShortestDistance, decomposed::getShortestPath);
+    }
+
+    /**
+     * Prueba para el índice de jerarquías de contracción: distancias, rutas y persistencia.
+     */
+    @Test
+    @DisplayName("Test contraction hierarchy queries and persistence")
+    void testContractionHierarchy() throws Exception {
+        Graph network = randomGraph(30, 80, 240);
+        ContractionHierarchy built = ContractionHierarchy.build(network, Graph.NORMAL);
+        File file = File.createTempFile("hierarchy", ".bin");
+        file.deleteOnExit();
+        FileHandler.saveContractionHierarchy(built, file.getPath());
+        ContractionHierarchy loaded = FileHandler.readContractionHierarchy(file.getPath(), network);
+        ContractionHierarchy async = ContractionHierarchy.buildAsync(network, Graph.NORMAL, Runnable::run).get();
+        ContractionHierarchy fromEdges = ContractionHierarchy.build(network, Graph.NORMAL,
+            SparseGraph.of(network, Graph.NORMAL));
+
+        for (ContractionHierarchy hierarchy : new ContractionHierarchy[] {built, loaded, async, fromEdges}) {
+            assertMatchesFloyd(network, Graph.NORMAL, hierarchy::getShortestDistance, hierarchy::getShortestPath);
+        }
+
+        // El índice guarda índices de ciudad: solo se acepta un grafo con el mismo orden
+        Graph ring = new Graph();
+        ring.addEdge("X", "Y", 1, 1, 1, 1);
+        ring.addEdge("Y", "W", 5, 1, 1, 1);
+        ring.addEdge("W", "X", 2, 1, 1, 1);
+        File ringFile = File.createTempFile("anillo", ".txt");
+        ringFile.deleteOnExit();
+        FileHandler.saveGraphToFile(ring, ringFile.getPath());
+        FileHandler.saveContractionHierarchy(ContractionHierarchy.build(ring, Graph.NORMAL), file.getPath());
+        Graph sameOrder = FileHandler.readGraphFromFile(ringFile.getPath());
+        ContractionHierarchy reloaded = FileHandler.readContractionHierarchy(file.getPath(), sameOrder);
+        assertEquals(6.0, reloaded.getShortestDistance("X", "W"));
+        assertEquals(Arrays.asList("X", "Y", "W"), reloaded.getShortestPath("X", "W"));
+
+        // Una ciudad sin conexiones cambia de posición (o se pierde) al releer el grafo
+        Graph withIsolated = new Graph();
+        withIsolated.addCity("Z");
+        withIsolated.addEdge("X", "Y", 1, 1, 1, 1);
+        withIsolated.addEdge("Y", "W", 5, 1, 1, 1);
+        withIsolated.addEdge("W", "X", 2, 1, 1, 1);
+        FileHandler.saveGraphToFile(withIsolated, ringFile.getPath());
+        FileHandler.saveContractionHierarchy(ContractionHierarchy.build(withIsolated, Graph.NORMAL), file.getPath());
+        Graph reordered = FileHandler.readGraphFromFile(ringFile.getPath());
+        assertThrows(IOException.class, () -> FileHandler.readContractionHierarchy(file.getPath(), reordered));
+
+        // Las listas de adyacencia se leen con el grafo bloqueado mientras otro hilo lo hace crecer
+        Graph growing = new Graph(2);
+        growing.addEdge("G0", "G1", 1, 1, 1, 1);
+        Thread writer = new Thread(() -> {
+            for (int i = 2; i < 300; i++) {
+                growing.addEdge("G" + (i - 1), "G" + i, 1, 1, 1, 1);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            int[][] lists = growing.getAdjacencyLists(Graph.NORMAL);
+            for (int i = 0; i + 1 < lists.length; i++) {
+                assertEquals(1, lists[i].length);
+            }
+        }
+        writer.join();
+    }
+
+    /**
+     * Prueba para el índice de alcanzabilidad con filas de bits.
+     */
+    @Test
+    @DisplayName("Test bitset reachability index")
+    void testReachabilityIndex() {
+        ReachabilityIndex reachability = new ReachabilityIndex(graph);
+        floyd.setReachabilityIndex(reachability);
+
+        for (String from : graph.getCities()) {
+            for (String to : graph.getCities()) {
+                boolean expected = floyd.getShortestDistance(from, to) != Double.MAX_VALUE;
+                assertEquals(expected, reachability.hasPath(from, to, Graph.NORMAL));
+                assertEquals(expected, floyd.hasPath(from, to));
+            }
+        }
+        assertEquals(Arrays.asList("B", "C", "D"), reachability.getReachableCities("A", Graph.STORM));
+        assertTrue(reachability.getReachableCities("D", Graph.NORMAL).isEmpty());
+
+        // El índice se reconstruye cuando cambia el grafo
+        graph.addEdge("D", "A", 1, 1, 1, 1);
+        assertTrue(reachability.hasPath("D", "C", Graph.SNOW));
+        assertEquals(3, reachability.countReachable(graph.indexOf("D"), Graph.SNOW));
+
+        // El índice responde sin volver a ejecutar Floyd, para cualquier condición
+        assertTrue(floyd.hasPath("D", "A"));
+        assertTrue(floyd.hasPath("D", "C", Graph.STORM));
+        Floyd unsolved = new Floyd(graph);
+        assertTrue(unsolved.hasPath("B", "A", Graph.SNOW));
+        assertFalse(unsolved.hasPath("A", "Desconocida", Graph.NORMAL));
+    }
+
+    /**
+     * Prueba para el oráculo aproximado de distancias con cotas garantizadas.
+     */
+    @Test
+    @DisplayName("Test landmark distance oracle bounds")
+    void testDistanceOracle() {
+        Graph network = randomGraph(32, 90, 300);
+        network.addCity("Isolated");
+        Floyd reference = new Floyd(network);
+        reference.executeFloyd(Graph.NORMAL);
+
+        DistanceOracle oracle = DistanceOracle.build(network, Graph.NORMAL, 8);
+        assertTrue(oracle.getLandmarkCount() <= 8);
+        for (String from : network.getCities()) {
+            for (String to : network.getCities()) {
+                double exact = reference.getShortestDistance(from, to);
+                DistanceEstimate estimate = oracle.estimateDistance(from, to);
+                assertTrue(estimate.getLowerBound() <= exact + 1e-9);
+                assertTrue(estimate.getEstimate() >= exact - 1e-9);
+                assertTrue(!estimate.isUnreachable() || exact == Double.MAX_VALUE);
+            }
+        }
+        assertFalse(oracle.estimateDistance("C0", "Isolated").isExact());
+        assertTrue(oracle.estimateDistance("C0", "Isolated").isUnreachable());
+        assertEquals(0.0, oracle.estimateDistance("C5", "C5").getEstimate());
+        assertEquals(Double.MAX_VALUE, oracle.getMaxStretch());
+        assertEquals(0, oracle.getExactQueryCount());
+
+        // Con estiramiento máximo ninguna respuesta lo supera
+        DistanceOracle bounded = DistanceOracle.build(network, Graph.NORMAL, 8, 2.0);
+        for (String from : network.getCities()) {
+            for (String to : network.getCities()) {
+                double exact = reference.getShortestDistance(from, to);
+                DistanceEstimate estimate = bounded.estimateDistance(from, to);
+                assertTrue(estimate.getStretchBound() <= 2.0);
+                assertTrue(estimate.getLowerBound() <= exact + 1e-9);
+                assertTrue(estimate.getEstimate() >= exact - 1e-9);
+                assertTrue(estimate.getEstimate() <= 2.0 * exact + 1e-9);
+            }
+        }
+        long exactQueries = bounded.getExactQueryCount();
+        assertTrue(exactQueries > 0 && exactQueries < 91L * 91L);
+        assertThrows(IllegalArgumentException.class,
+            () -> DistanceOracle.build(network, Graph.NORMAL, 8, 0.5));
+
+        // Un par que ningún punto de referencia cubre no es "sin ruta"
+        Graph split = new Graph();
+        split.addEdge("X1", "X2", 1, 1, 1, 1);
+        split.addEdge("X2", "X1", 1, 1, 1, 1);
+        split.addEdge("Y1", "Y2", 2, 1, 1, 1);
+        split.addEdge("Y2", "Y1", 2, 1, 1, 1);
+        DistanceOracle single = DistanceOracle.build(split, Graph.NORMAL, 1);
+        DistanceEstimate x = single.estimateDistance("X1", "X2");
+        DistanceEstimate y = single.estimateDistance("Y1", "Y2");
+        assertFalse(x.isUnreachable() || y.isUnreachable());
+        assertTrue(x.getEstimate() == Double.MAX_VALUE || y.getEstimate() == Double.MAX_VALUE);
+        assertTrue(single.estimateDistance("X1", "Y1").isUnreachable());
+    }
+
+    /**
+     * Prueba para las ciudades más cercanas y el depósito más cercano de cada ciudad.
+     */
+    @Test
+    @DisplayName("Test nearest cities and nearest depots")
+    void testNearestQueries() {
+        int a = graph.getCityIndex("A");
+        int[] cities = new int[2];
+        double[] distances = new double[2];
+
+        // Desde A: C = 3, B = 5, D = 10
+        assertEquals(2, floyd.getNearestCities(a, 2, cities, distances));
+        assertEquals("C", graph.getCityName(cities[0]));
+        assertEquals(3.0, distances[0]);
+        assertEquals("B", graph.getCityName(cities[1]));
+        assertEquals(5.0, distances[1]);
+        assertEquals(0, floyd.getNearestCities(graph.getCityIndex("D"), 2, cities, distances));
+
+        int n = graph.getNumCities();
+        int[] depot = new int[n];
+        double[] depotDistance = new double[n];
+        int b = graph.getCityIndex("B");
+        floyd.getNearestDepots(new int[] {a, b}, depot, depotDistance);
+        assertEquals(b, depot[graph.getCityIndex("C")]);
+        assertEquals(2.0, depotDistance[graph.getCityIndex("C")]);
+        assertEquals(b, depot[graph.getCityIndex("D")]);
+        assertEquals(0.0, depotDistance[a]);
+    }
+
+    /**
+     * Prueba para la evaluación de escenarios sin modificar el grafo real.
+     */
+    @Test
+    @DisplayName("Test what-if scenarios over an edge overlay")
+    void testScenarioEvaluation() {
+        ScenarioEvaluator evaluator = new ScenarioEvaluator(graph, floyd);
+        EdgeOverlay closure = new EdgeOverlay(graph, Graph.NORMAL).closeEdge("A", "C");
+        EdgeOverlay shortcut = new EdgeOverlay(graph, Graph.NORMAL).setEdgeWeight("A", "D", 4);
+        List<ScenarioResult> results = evaluator.evaluateAll(Arrays.asList(closure, shortcut));
+
+        ScenarioResult closed = results.get(0);
+        assertEquals(7.0, closed.getShortestDistance("A", "C"));
+        assertEquals(11.0, closed.getShortestDistance("A", "D"));
+        assertEquals(Arrays.asList("A", "B", "D"), closed.getShortestPath("A", "D"));
+        assertEquals(2, closed.getImpactedPairCount());
+        assertEquals(5.0, closed.getTotalIncrease());
+        assertEquals(4.0, results.get(1).getShortestDistance("A", "D"));
+
+        // El grafo y la solución base no cambian
+        assertEquals(3.0, graph.getEdgeWeight(graph.getCityIndex("A"), graph.getCityIndex("C"), Graph.NORMAL));
+        assertEquals(10.0, floyd.getShortestDistance("A", "D"));
+
+        // Volver a ejecutar Floyd sobre otra condición no cambia el evaluador ni los resultados
+        floyd.executeFloyd(Graph.STORM);
+        assertEquals(7.0, closed.getShortestDistance("A", "C"));
+        assertEquals(6.0, closed.getShortestDistance("B", "D"));
+        assertEquals(7.0, evaluator.evaluate(closure).getShortestDistance("A", "C"));
+        floyd.executeFloyd(Graph.NORMAL);
+
+        // Comparación con Floyd completo sobre una copia modificada
+        Random random = new Random(34);
+        Graph network = randomGraph(new Graph(), random, 25, 120);
+        Floyd base = new Floyd(network);
+        base.executeFloyd(Graph.NORMAL);
+        EdgeOverlay scenario = new EdgeOverlay(network, Graph.NORMAL);
+        Graph modified = new Graph();
+        for (String city : network.getCities()) {
+            modified.addCity(city);
+        }
+        for (int i = 0; i < network.getNumCities(); i++) {
+            for (int j = 0; j < network.getNumCities(); j++) {
+                double weight = network.getEdgeWeight(i, j, Graph.NORMAL);
+                if (i != j && weight != Double.MAX_VALUE) {
+                    double changed = (random.nextInt(4) == 0) ? weight * 3 : weight;
+                    if (random.nextInt(10) == 0) {
+                        scenario.closeEdge(network.getCityName(i), network.getCityName(j));
+                        continue;
+                    }
+                    if (changed != weight) {
+                        scenario.setEdgeWeight(i, j, changed);
+                    }
+                    modified.addEdge(network.getCityName(i), network.getCityName(j), changed, 1, 1, 1);
+                }
+            }
+        }
+        scenario.setEdgeWeight("C0", "C24", 1).setEdgeWeight("C7", "C3", 2);
+        modified.addEdge("C0", "C24", 1, 1, 1, 1);
+        modified.addEdge("C7", "C3", 2, 1, 1, 1);
+
+        ScenarioResult result = new ScenarioEvaluator(network, base).evaluate(scenario);
+        assertMatchesFloyd(modified, Graph.NORMAL, result::getShortestDistance, result::getShortestPath);
+
+        // En un grafo no dirigido el cierre y el cambio aplican en ambos sentidos
+        Graph undirected = new Graph(4, true);
+        undirected.addEdge("A", "B", 5, 1, 1, 1);
+        undirected.addEdge("A", "C", 3, 1, 1, 1);
+        undirected.addEdge("B", "C", 2, 1, 1, 1);
+        Floyd undirectedBase = new Floyd(undirected);
+        undirectedBase.executeFloyd(Graph.NORMAL);
+        EdgeOverlay undirectedClosure = new EdgeOverlay(undirected, Graph.NORMAL).closeEdge("A", "C");
+        assertEquals(2, undirectedClosure.getChangeCount());
+        assertEquals(Double.MAX_VALUE, undirectedClosure.getEdgeWeight(undirected.indexOf("C"), undirected.indexOf("A")));
+        ScenarioResult undirectedClosed = new ScenarioEvaluator(undirected, undirectedBase).evaluate(undirectedClosure);
+        assertEquals(7.0, undirectedClosed.getShortestDistance("C", "A"));
+        assertEquals(Arrays.asList("C", "B", "A"), undirectedClosed.getShortestPath("C", "A"));
+        ScenarioResult undirectedShortcut = new ScenarioEvaluator(undirected, undirectedBase)
+            .evaluate(new EdgeOverlay(undirected, Graph.NORMAL).setEdgeWeight("B", "A", 1));
+        assertEquals(1.0, undirectedShortcut.getShortestDistance("A", "B"));
+        assertEquals(3.0, undirectedShortcut.getShortestDistance("C", "A"));
+    }
+
+    /**
+     * Prueba para la clasificación de conexiones críticas.
+     */
+    @Test
+    @DisplayName("Test most vital edge ranking")
+    void testCriticalityRanking() {
+        CriticalityAnalysis analysis = new CriticalityAnalysis(graph, floyd);
+        floyd.executeFloyd(Graph.STORM); // El análisis usa su propia copia de la solución
+        List<EdgeImpact> ranking = analysis.rankEdges();
+        assertEquals(5, ranking.size());
+        // Cerrar C→D deja a C sin salida y alarga A→D
+        assertEquals("C", ranking.get(0).getFromCity());
+        assertEquals("D", ranking.get(0).getToCity());
+        assertEquals(1, ranking.get(0).getDisconnectedPairCount());
+        assertEquals(1.0, ranking.get(0).getTotalIncrease());
+        EdgeImpact aToC = ranking.get(3);
+        assertEquals("A", aToC.getFromCity());
+        assertEquals(5.0, aToC.getTotalIncrease());
+        assertEquals(4.0, aToC.getMaxIncrease());
+
+        // Comparación con cerrar cada arista y ejecutar Floyd completo
+        Graph network = randomGraph(35, 20, 80);
+        CriticalityAnalysis networkAnalysis = CriticalityAnalysis.forWeatherCondition(network, Graph.NORMAL);
+        List<EdgeImpact> networkRanking = networkAnalysis.rankEdges(EdgeImpact.BY_MAX_INCREASE);
+        assertTrue(networkAnalysis.getSkippedEdgeCount() > 0);
+        Floyd base = new Floyd(network);
+        base.executeFloyd(Graph.NORMAL);
+        for (EdgeImpact impact : networkRanking) {
+            double weight = network.getEdgeWeight(impact.getFromCity(), impact.getToCity(), Graph.NORMAL);
+            network.removeEdge(impact.getFromCity(), impact.getToCity());
+            Floyd closed = new Floyd(network);
+            closed.executeFloyd(Graph.NORMAL);
+            double total = 0;
+            for (String from : network.getCities()) {
+                for (String to : network.getCities()) {
+                    double before = base.getShortestDistance(from, to);
+                    double after = closed.getShortestDistance(from, to);
+                    if (after != Double.MAX_VALUE && after > before) {
+                        total += after - before;
+                    }
+                }
+            }
+            assertEquals(total, impact.getTotalIncrease(), 1e-6);
+            network.addEdge(impact.getFromCity(), impact.getToCity(), weight, 1, 1, 1);
+        }
+    }
+
+    /**
+     * Prueba para la contracción de cadenas de ciudades de grado uno o dos.
+     */
+    @Test
+    @DisplayName("Test degree-2 chain contraction stays exact")
+    void testChainContraction() {
+        Graph network = new Graph();
+        Random random = new Random(36);
+        // Núcleo de 6 ciudades bien conectadas
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < 6; j++) {
+                if (i != j && random.nextInt(3) == 0) {
+                    network.addEdge("H" + i, "H" + j, 5 + random.nextInt(20), 1, 1, 1);
+                }
+            }
+        }
+        // Carreteras entre núcleos (algunas de un solo sentido), lazos y ramales sin salida
+        for (int c = 0; c < 10; c++) {
+            String previous = "H" + random.nextInt(6);
+            String last = (c % 4 == 3) ? previous : "H" + random.nextInt(6);
+            int length = 1 + random.nextInt(5);
+            for (int t = 0; t <= length; t++) {
+                String town = (t == length) ? last : "T" + c + "_" + t;
+                if (t == length && c % 5 == 4) {
+                    break; // Ramal sin salida
+                }
+                network.addEdge(previous, town, 1 + random.nextInt(9), 1, 1, 1);
+                if (c % 3 != 0) {
+                    network.addEdge(town, previous, 1 + random.nextInt(9), 1, 1, 1);
+                }
+                previous = town;
+            }
+        }
+        // Ciclo aislado y ciudad sin conexiones
+        network.addEdge("R0", "R1", 2, 1, 1, 1);
+        network.addEdge("R1", "R2", 3, 1, 1, 1);
+        network.addEdge("R2", "R0", 4, 1, 1, 1);
+        network.addCity("Isolated");
+
+        ChainContraction contraction = ChainContraction.build(network, Graph.NORMAL);
+        assertTrue(contraction.getContractedCount() > 0);
+        assertEquals(network.getNumCities(), contraction.getCoreSize() + contraction.getContractedCount());
+        assertMatchesFloyd(network, Graph.NORMAL, contraction::getShortestDistance, contraction::getShortestPath);
+    }
+
+    /**
+     * Prueba para la bitácora de cambios: reproducción, registro dañado al final y compactación.
+     */
+    @Test
+    @DisplayName("Test mutation journal replay and compaction")
+    void testMutationJournal() throws Exception {
+        File journalFile = File.createTempFile("journal", ".bin");
+        File snapshotFile = File.createTempFile("snapshot", ".txt");
+        journalFile.delete();
+        snapshotFile.deleteOnExit();
+        journalFile.deleteOnExit();
+
+        MutationJournal journal = new MutationJournal(journalFile.getPath(), 5);
+        graph.addListener(journal);
+        graph.addEdge("D", "E", 1.25, 2, 3, 4);
+        graph.removeEdge("A", "C");
+        graph.updateWeatherCondition("B", "D", Graph.SNOW, 11.5);
+        graph.addCity("F");
+        journal.sync();
+        assertEquals(4, journal.getAppendedCount());
+
+        // Registro incompleto al final, como tras una caída durante la escritura
+        try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+            out.write(new byte[] {0, 0, 0, 40, 1, 2});
+        }
+        Graph recovered = copyOfSetUpGraph();
+        assertEquals(4, MutationJournal.replay(journalFile.getPath(), recovered));
+        assertEquals(1.25, recovered.getEdgeWeight("D", "E", Graph.NORMAL));
+        assertEquals(Double.MAX_VALUE, recovered.getEdgeWeight("A", "C", Graph.NORMAL));
+        assertEquals(11.5, recovered.getEdgeWeight("B", "D", Graph.SNOW));
+        assertTrue(recovered.containsCity("F"));
+
+        // La compactación deja una instantánea exacta (incluidas las ciudades sin conexiones)
+        // y la bitácora vacía
+        graph.addEdge("G", "H", 1, 1, 1, 1);
+        graph.removeEdge("G", "H");
+        journal.compact(graph, snapshotFile.getPath());
+        graph.updateWeatherCondition("D", "E", Graph.RAIN, 2.75);
+        journal.close();
+        Graph restored = FileHandler.readGraphFromFile(snapshotFile.getPath());
+        assertEquals(1, MutationJournal.replay(journalFile.getPath(), restored));
+        assertEquals(graph.getNumCities(), restored.getNumCities());
+        assertTrue(restored.containsCity("F"));
+        assertTrue(restored.containsCity("G") && restored.containsCity("H"));
+        for (String from : graph.getCities()) {
+            for (String to : graph.getCities()) {
+                for (int k = 0; k < Graph.NUM_WEATHER_CONDITIONS; k++) {
+                    assertEquals(graph.getEdgeWeight(from, to, k), restored.getEdgeWeight(from, to, k));
+                }
+            }
+        }
+        assertEquals(2.75, restored.getEdgeWeight("D", "E", Graph.RAIN));
+    }
+
+    private Graph copyOfSetUpGraph() {
+        Graph copy = new Graph();
+        copy.addEdge("A", "B", 5, 7, 9, 15);
+        copy.addEdge("A", "C", 3, 4, 6, 10);
+        copy.addEdge("B", "C", 2, 3, 4, 8);
+        copy.addEdge("B", "D", 6, 8, 10, 20);
+        copy.addEdge("C", "D", 7, 9, 12, 25);
+        return copy;
+    }
+
+    /**
+     * Prueba para la construcción en bloque y para grafos de más de 100 ciudades.
+     */
+    @Test
+    @DisplayName("Test bulk graph builder and growable storage")
+    void testGraphBuilder() {
+        int n = 150;
+        GraphBuilder builder = new GraphBuilder(n, 2 * n);
+        Graph incremental = new Graph();
+        int[] from = new int[n];
+        int[] to = new int[n];
+        double[] times = new double[n];
+        for (int i = 0; i < n; i++) {
+            builder.addCity("C" + i);
+        }
+        for (int i = 0; i < n; i++) {
+            from[i] = i;
+            to[i] = (i + 1) % n;
+            times[i] = i + 1;
+            incremental.addEdge("C" + i, "C" + ((i + 1) % n), i + 1, i + 1, i + 1, i + 1);
+        }
+        builder.addEdges(from, to, times, times, times, times, n);
+        builder.addEdge("C0", "C75", 9, 9, 9, 9).addEdge("C0", "C75", 4, 5, 6, 7); // La última gana
+        incremental.addEdge("C0", "C75", 4, 5, 6, 7);
+        assertThrows(IllegalArgumentException.class, () -> builder.addEdge(0, n, 1, 1, 1, 1));
+
+        Graph bulk = builder.build();
+        assertEquals(n, bulk.getNumCities());
+        assertEquals(n, incremental.getNumCities());
+        for (int k = 0; k < Graph.NUM_WEATHER_CONDITIONS; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    String a = "C" + i;
+                    String b = "C" + j;
+                    assertEquals(incremental.getEdgeWeight(a, b, k), bulk.getEdgeWeight(a, b, k));
+                }
+            }
+        }
+        assertEquals(5.0, bulk.getEdgeWeight("C0", "C75", Graph.RAIN));
+
+        // El grafo construido sigue creciendo con el API normal
+        bulk.addEdge("C149", "Nueva", 2, 2, 2, 2);
+        assertEquals(2.0, bulk.getEdgeWeight("C149", "Nueva", Graph.NORMAL));
+        assertEquals(150.0, bulk.getEdgeWeight("C149", "C0", Graph.NORMAL));
+        Floyd bulkFloyd = new Floyd(bulk);
+        bulkFloyd.executeFloyd(Graph.NORMAL);
+        assertEquals(4.0 + 76 + 77, bulkFloyd.getShortestDistance("C0", "C77"));
+    }
+
+    /**
+     * Prueba para la ingesta de lotes de actualizaciones climáticas.
+     */
+    @Test
+    @DisplayName("Test weather feed batches with dedupe and layer recompute")
+    void testWeatherFeed() throws Exception {
+        Random random = new Random(39);
+        Graph network = randomGraph(new Graph(), random, 30, 150);
+        Floyd normal = new Floyd(network);
+        normal.executeFloyd(Graph.NORMAL);
+        Floyd rain = new Floyd(network);
+        rain.executeFloyd(Graph.RAIN);
+        WeatherFeed feed = new WeatherFeed(network);
+        feed.registerSolver(normal);
+        feed.registerSolver(rain);
+
+        StringBuilder text = new StringBuilder();
+        List<String> cities = network.getCities();
+        for (int r = 0; r < 12; r++) {
+            int i = random.nextInt(30);
+            int j = (i + 1 + random.nextInt(29)) % 30;
+            String condition = (r % 2 == 0) ? "normal" : "1";
+            text.append(cities.get(i)).append(' ').append(cities.get(j)).append(' ')
+                .append(condition).append(' ').append(1 + random.nextInt(40)).append('\n');
+        }
+        text.append("C0 C1 lluvia 99\nC0 C1 lluvia 3\n"); // Repetida: gana la última
+        text.append("C0 Desconocida 0 5\nC0 C1 granizo 5\nsin formato\n");
+        BatchReport report = feed.ingest(new BufferedReader(new StringReader(text.toString())));
+
+        assertEquals(17, report.getRecordsRead());
+        assertEquals(3, report.getRejectedRecords());
+        assertEquals(3.0, network.getEdgeWeight("C0", "C1", Graph.RAIN));
+        assertEquals(BatchReport.INCREMENTAL, report.getStrategy(Graph.NORMAL));
+        assertEquals(BatchReport.UNCHANGED, report.getStrategy(Graph.SNOW));
+        assertTrue(report.getTotalNanos() >= report.getApplyNanos());
+
+        assertMatchesFloyd(network, Graph.NORMAL, normal::getShortestDistance, normal::getShortestPath);
+        assertMatchesFloyd(network, Graph.RAIN, rain::getShortestDistance, rain::getShortestPath);
+
+        // Sin Floyd registrado la capa solo se actualiza en el grafo
+        BatchReport snow = feed.applyBatch(Arrays.asList(new WeatherUpdate("C0", "C1", Graph.SNOW, 1)));
+        assertEquals(BatchReport.NO_SOLVER, snow.getStrategy(Graph.SNOW));
+
+        // Un cambio hecho por fuera de la ingesta obliga a recalcular completo
+        Graph chain = new Graph();
+        chain.addEdge("A", "B", 1, 1, 1, 1);
+        chain.addEdge("B", "C", 1, 1, 1, 1);
+        Floyd solver = new Floyd(chain);
+        solver.executeFloyd(Graph.NORMAL);
+        WeatherFeed chainFeed = new WeatherFeed(chain);
+        chainFeed.registerSolver(solver);
+        chain.removeEdge("B", "C");
+        BatchReport outside = chainFeed.applyBatch(Arrays.asList(new WeatherUpdate("A", "C", Graph.NORMAL, 9)));
+        assertEquals(BatchReport.FULL, outside.getStrategy(Graph.NORMAL));
+        assertEquals(9.0, solver.getShortestDistance("A", "C"));
+        chain.removeEdge("A", "B");
+        outside = chainFeed.applyBatch(Arrays.asList(new WeatherUpdate("A", "C", Graph.RAIN, 4)));
+        assertEquals(BatchReport.FULL, outside.getStrategy(Graph.NORMAL));
+        assertEquals(Double.MAX_VALUE, solver.getShortestDistance("A", "B"));
+        outside = chainFeed.applyBatch(Arrays.asList(new WeatherUpdate("A", "C", Graph.NORMAL, 8)));
+        assertEquals(BatchReport.INCREMENTAL, outside.getStrategy(Graph.NORMAL));
+        assertEquals(8.0, solver.getShortestDistance("A", "C"));
+
+        // En un grafo no dirigido cada actualización cambia ambos sentidos
+        Graph undirected = randomGraph(new Graph(8, true), random, 30, 80);
+        Floyd undirectedSolver = new Floyd(undirected);
+        undirectedSolver.executeFloyd(Graph.NORMAL);
+        WeatherFeed undirectedFeed = new WeatherFeed(undirected);
+        undirectedFeed.registerSolver(undirectedSolver);
+        List<WeatherUpdate> updates = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            int i = random.nextInt(30);
+            int j = (i + 1 + random.nextInt(29)) % 30;
+            updates.add(new WeatherUpdate("C" + i, "C" + j, Graph.NORMAL, 1 + random.nextInt(40)));
+        }
+        updates.add(new WeatherUpdate("C3", "C1", Graph.NORMAL, 1));
+        updates.add(new WeatherUpdate("C1", "C3", Graph.NORMAL, 2)); // Misma arista: gana la última
+        BatchReport undirectedReport = undirectedFeed.applyBatch(updates);
+        assertEquals(BatchReport.INCREMENTAL, undirectedReport.getStrategy(Graph.NORMAL));
+        assertEquals(2.0, undirected.getEdgeWeight("C3", "C1", Graph.NORMAL));
+        assertMatchesFloyd(undirected, Graph.NORMAL, undirectedSolver::getShortestDistance, undirectedSolver::getShortestPath);
+    }
+
+    /**
+     * Prueba el cálculo de Floyd en segundo plano del programa principal y la búsqueda de
+     * un solo par mientras no termina.
+     */
+    @Test
+    @DisplayName("Test background solve cancellation and on-demand fallback")
+    void testBackgroundSolve() {
+        Main main;
+        CompletableFuture<Floyd> queued;
+        CompletableFuture<Floyd> latest;
+        synchronized (graph) {
+            // Con el grafo bloqueado el primer cálculo no puede copiar la matriz
+            main = new Main(graph);
+            Route route = main.findRouteOnDemand("A", "D");
+            assertEquals(floyd.getShortestDistance("A", "D"), route.getCost());
+            assertEquals("A", route.getCities().get(0));
+            assertEquals("D", route.getCities().get(route.getCities().size() - 1));
+            assertNull(main.findRouteOnDemand("D", "A"));
+
+            graph.addEdge("A", "D", 1, 1, 1, 1);
+            queued = main.solveInBackground();
+            graph.addEdge("D", "A", 2, 2, 2, 2);
+            latest = main.solveInBackground();
+            assertTrue(queued.isCancelled());
+            assertFalse(latest.isDone());
+
+            // La copia dispersa sigue al grafo
+            assertEquals(1.0, main.findRouteOnDemand("A", "D").getCost());
+            assertEquals(2.0, main.findRouteOnDemand("D", "A").getCost());
+        }
+        Floyd solved = main.awaitFloyd();
+        assertSame(latest.join(), solved);
+        assertEquals(1.0, solved.getShortestDistance("A", "D"));
+        assertEquals(2.0, solved.getShortestDistance("D", "A"));
+    }
+
+    /**
+     * Prueba para el modo no dirigido y la variante simétrica de Floyd.
+     */
+    @Test
+    @DisplayName("Test undirected graph storage and symmetric Floyd")
+    void testSymmetricFloyd() throws Exception {
+        int n = 60;
+        Graph undirected = randomGraph(new Graph(8, true), new Random(41), n, 140); // Crece varias veces
+        undirected.removeEdge("C1", "C0");
+        assertTrue(undirected.isUndirected());
+        assertEquals(Double.MAX_VALUE, undirected.getEdgeWeight("C0", "C1", Graph.NORMAL));
+        assertEquals(undirected.getEdgeWeight("C5", "C9", Graph.RAIN), undirected.getEdgeWeight("C9", "C5", Graph.RAIN));
+
+        SymmetricFloyd symmetric = new SymmetricFloyd(undirected);
+        symmetric.executeFloyd(Graph.NORMAL);
+        assertMatchesFloyd(undirected, Graph.NORMAL, symmetric::getShortestDistance, symmetric::getShortestPath);
+        Floyd reference = new Floyd(undirected);
+        reference.executeFloyd(Graph.NORMAL);
+        assertEquals(reference.calculateGraphCenter(), symmetric.calculateGraphCenter());
+        assertThrows(IllegalArgumentException.class, () -> new SymmetricFloyd(graph));
+
+        // Rutas más largas que el búfer inicial, en ambos sentidos y con la pila reutilizada
+        Graph line = new Graph(8, true);
+        for (int i = 0; i + 1 < 40; i++) {
+            line.addEdge("P" + i, "P" + (i + 1), 1, 1, 1, 1);
+        }
+        SymmetricFloyd lineFloyd = new SymmetricFloyd(line);
+        lineFloyd.executeFloyd(Graph.NORMAL);
+        for (int round = 0; round < 2; round++) {
+            List<String> forward = lineFloyd.getShortestPath("P0", "P39");
+            List<String> backward = lineFloyd.getShortestPath("P39", "P0");
+            assertEquals(40, forward.size());
+            for (int i = 0; i < 40; i++) {
+                assertEquals("P" + i, forward.get(i));
+                assertEquals("P" + (39 - i), backward.get(i));
+            }
+        }
+
+        // Cada conexión se guarda una sola vez y se relee en ambos sentidos
+        File file = File.createTempFile("no_dirigido", ".txt");
+        try {
+            FileHandler.writeGraph(undirected, file.getPath());
+            Graph reloaded = FileHandler.readGraphFromFile(file.getPath(), true);
+            assertTrue(reloaded.isUndirected());
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    assertEquals(undirected.getEdgeWeight("C" + i, "C" + j, Graph.STORM),
+                        reloaded.getEdgeWeight("C" + i, "C" + j, Graph.STORM));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Prueba para la fachada que elige la estrategia de cálculo con un modelo de costo.
+     */
+    @Test
+    @DisplayName("Test route engine strategy selection and decision log")
+    void testRouteEngine() {
+        int n = 40;
+        Graph network = randomGraph(42, n, 120);
+        Floyd dijkstra = new Floyd(network);
+        dijkstra.executeDijkstra(Graph.NORMAL);
+        assertMatchesFloyd(network, Graph.NORMAL, dijkstra::getShortestDistance, dijkstra::getShortestPath);
+        RouteEngine engine = new RouteEngine(network);
+
+        // Pocas consultas puntuales: no conviene resolver todos los pares
+        Floyd reference = new Floyd(network);
+        reference.executeFloyd(Graph.NORMAL);
+        assertEquals(reference.getShortestDistance("C0", "C7"), engine.getShortestDistance("C0", "C7", Graph.NORMAL));
+        assertEquals(RouteEngine.ON_DEMAND, engine.getStrategy(Graph.NORMAL));
+        Route route = engine.findRoute("C3", "C11", Graph.NORMAL);
+        assertNotNull(route);
+        assertEquals(reference.getShortestDistance("C3", "C11"), route.getCost());
+        assertEquals("C11", route.getCities().get(route.getCities().size() - 1));
+
+        // El centro necesita todos los pares
+        assertEquals(reference.calculateGraphCenter(), engine.calculateGraphCenter(Graph.NORMAL));
+        assertNotEquals(RouteEngine.ON_DEMAND, engine.getStrategy(Graph.NORMAL));
+
+        // Una mejora después de una solución completa se repara en O(n²)
+        List<String> used = reference.getShortestPath("C0", "C" + (n - 1));
+        assertTrue(used.size() >= 2);
+        network.updateWeatherCondition(used.get(0), used.get(1), Graph.NORMAL, 0.5);
+        Floyd updated = new Floyd(network);
+        updated.executeFloyd(Graph.NORMAL);
+        assertEquals(updated.calculateGraphCenter(), engine.calculateGraphCenter(Graph.NORMAL));
+        assertEquals(RouteEngine.INCREMENTAL, engine.getStrategy(Graph.NORMAL));
+        assertMatchesFloyd(network, Graph.NORMAL, (a, b) -> engine.getShortestDistance(a, b, Graph.NORMAL), null);
+
+        // Muchas consultas puntuales terminan por justificar una solución completa
+        for (int q = 0; q < 10 * n; q++) {
+            engine.getShortestDistance("C" + (q % n), "C" + ((q * 7) % n), Graph.RAIN);
+        }
+        assertNotEquals(RouteEngine.ON_DEMAND, engine.getStrategy(Graph.RAIN));
+
+        List<EngineDecision> log = engine.getDecisionLog();
+        assertTrue(log.size() >= 4);
+        for (EngineDecision decision : log) {
+            for (String strategy : RouteEngine.STRATEGIES) {
+                assertTrue(decision.getEstimatedCost(decision.getStrategy()) <= decision.getEstimatedCost(strategy));
+            }
+        }
+        assertEquals(1, log.get(2).getPendingEdits());
+        long decided = 0;
+        for (String strategy : RouteEngine.STRATEGIES) {
+            decided += engine.getDecisionCount(strategy);
+        }
+        assertEquals(log.size(), decided);
+        assertTrue(engine.getDecisionCount(RouteEngine.INCREMENTAL) >= 1);
+        engine.close();
+    }
+
+    /**
+     * Prueba para el motor de rutas con ediciones concurrentes y registro de decisiones.
+     */
+    @Test
+    @DisplayName("Test route engine solves outside the graph lock under concurrent edits")
+    void testRouteEngineConcurrentEdits() throws Exception {
+        int n = 60;
+        Graph network = randomGraph(44, n, 200);
+        RouteEngine engine = new RouteEngine(network);
+        Logger logger = Logger.getLogger(RouteEngine.class.getName());
+        List<String> messages = new CopyOnWriteArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Level previousLevel = logger.getLevel();
+        logger.addHandler(handler);
+        logger.setLevel(Level.FINE);
+        try {
+            Thread writer = new Thread(() -> {
+                Random random = new Random(44);
+                for (int e = 0; e < 300; e++) {
+                    int i = random.nextInt(n);
+                    int j = (i + 1 + random.nextInt(n - 1)) % n;
+                    network.updateWeatherCondition("C" + i, "C" + j, Graph.NORMAL, 1 + random.nextInt(20));
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                assertNotNull(engine.calculateGraphCenter(Graph.NORMAL));
+                engine.getShortestDistance("C0", "C" + (n - 1), Graph.NORMAL);
+            }
+            writer.join();
+
+            // Con el grafo quieto la solución vigente corresponde al estado final
+            Floyd reference = new Floyd(network);
+            reference.executeFloyd(Graph.NORMAL);
+            assertEquals(reference.calculateGraphCenter(), engine.calculateGraphCenter(Graph.NORMAL));
+            assertMatchesFloyd(network, Graph.NORMAL, (a, b) -> engine.getShortestDistance(a, b, Graph.NORMAL),
+                (a, b) -> {
+                    Route route = engine.findRoute(a, b, Graph.NORMAL);
+                    return route == null ? new ArrayList<String>() : route.getCities();
+                });
+
+            long discarded = 0;
+            for (EngineDecision decision : engine.getDecisionLog()) {
+                discarded += decision.isPublished() ? 0 : 1;
+            }
+            assertTrue(engine.getDecisionLog().size() == 256 || discarded == engine.getDiscardedSolutionCount());
+            assertFalse(messages.isEmpty());
+            assertTrue(messages.get(messages.size() - 1).contains("clima 0"));
+        } finally {
+            logger.removeHandler(handler);
+            logger.setLevel(previousLevel);
+            engine.close();
+        }
+    }
+
+    /**
+     * Prueba para las franjas de pronóstico que comparten filas entre sí.
+     */
+    @Test
+    @DisplayName("Test forecast timeline slices repaired incrementally")
+    void testForecastTimeline() {
+        int n = 30;
+        Random random = new Random(43);
+        Graph network = randomGraph(new Graph(n), random, n, 110);
+        Graph hourly = randomGraph(new Graph(n), new Random(43), n, 110); // Recibe los mismos cambios
+        Floyd floyd = new Floyd(network);
+        floyd.executeFloyd(Graph.RAIN);
+        ForecastTimeline timeline = new ForecastTimeline(network, floyd);
+        assertThrows(IllegalArgumentException.class, () -> timeline.addSlice(new EdgeOverlay(network, Graph.SNOW)));
+
+        List<Floyd> expected = new ArrayList<>();
+        Floyd initial = new Floyd(network);
+        initial.executeFloyd(Graph.RAIN);
+        expected.add(initial);
+        int ownedRows = 0;
+        for (int hour = 1; hour < 24; hour++) {
+            EdgeOverlay changes = new EdgeOverlay(network, Graph.RAIN);
+            for (int c = 0; c < 3; c++) {
+                int i = random.nextInt(n);
+                int j = (i + 1 + random.nextInt(n - 1)) % n;
+                double time = (c == 0) ? Double.MAX_VALUE : 1 + random.nextInt(25);
+                changes.setEdgeWeight("C" + i, "C" + j, time);
+                hourly.updateWeatherCondition("C" + i, "C" + j, Graph.RAIN, time);
+            }
+            int slice = timeline.addSlice(changes);
+            assertEquals(hour, slice);
+            ownedRows += timeline.getOwnedRowCount(hour);
+            assertMatchesFloyd(hourly, Graph.RAIN, (a, b) -> timeline.getShortestDistance(slice, a, b),
+                (a, b) -> timeline.getShortestPath(slice, a, b));
+            Floyd solved = new Floyd(hourly);
+            solved.executeFloyd(Graph.RAIN);
+            expected.add(solved);
+        }
+        floyd.executeFloyd(Graph.NORMAL); // La franja 0 no depende de Floyd después de creada
+
+        // Las franjas nuevas no alteran las filas que comparten con las anteriores
+        assertEquals(24, timeline.getSliceCount());
+        assertTrue(ownedRows < 23 * n);
+        for (int hour = 0; hour < 24; hour++) {
+            for (String a : network.getCities()) {
+                for (String b : network.getCities()) {
+                    assertEquals(expected.get(hour).getShortestDistance(a, b), timeline.getShortestDistance(hour, a, b), 1e-9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prueba para Floyd repartido entre procesos trabajadores.
+     */
+    @Test
+    @DisplayName("Test row-partitioned Floyd across two worker processes")
+    void testDistributedFloyd() throws Exception {
+        int n = 25;
+        Graph network = randomGraph(44, n, 80);
+
+        try (DistributedFloyd distributed = new DistributedFloyd(network, 2)) {
+            assertEquals(-1, distributed.getWeatherCondition());
+            distributed.executeFloyd(Graph.RAIN);
+            assertEquals(Graph.RAIN, distributed.getWeatherCondition());
+            assertEquals(0, distributed.getOwner(0));
+            assertEquals(1, distributed.getOwner(n - 1));
+            // Las consultas remotas declaran IOException; el comparador solo acepta funciones simples
+            assertMatchesFloyd(network, Graph.RAIN, (a, b) -> {
+                try {
+                    return distributed.getShortestDistance(a, b);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, (a, b) -> {
+                try {
+                    return distributed.getShortestPath(a, b);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            assertEquals(Double.MAX_VALUE, distributed.getShortestDistance("C0", "Desconocida"));
+
+            // Un trabajador que no responde produce un error en lugar de bloquear
+            distributed.setTimeoutMillis(200);
+            assertThrows(IOException.class, () -> distributed.expect(1, "ok"));
+            assertThrows(IllegalArgumentException.class, () -> distributed.setTimeoutMillis(0));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new DistributedFloyd(network, 0));
+
+        // Desde el archivo de aristas, sin construir el grafo denso en el coordinador
+        network.addCity("Aislada");
+        File edges = File.createTempFile("aristas", ".txt");
+        try {
+            FileHandler.writeGraph(network, edges.getPath());
+            try (DistributedFloyd distributed = DistributedFloyd.fromEdgeFile(edges.getPath(), 3)) {
+                distributed.executeFloyd(Graph.STORM);
+                assertMatchesFloyd(network, Graph.STORM, (a, b) -> {
+                    try {
+                        return distributed.getShortestDistance(a, b);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, null);
+            }
+        } finally {
+            edges.delete();
+        }
+    }
+
+    /**
+     * Prueba para la compresión de capas climáticas poco consultadas.
+     */
+    @Test
+    @DisplayName("Test compressed cold weather layers")
+    void testWeatherLayerStore() {
+        int n = 40;
+        Graph network = randomGraph(45, n, 130);
+        // Nieve con decimales y tormenta en tercios (sin escala exacta: parches o filas en crudo)
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double time = network.getEdgeWeight(i, j, Graph.NORMAL);
+                if (i != j && time != Double.MAX_VALUE) {
+                    network.updateWeatherCondition("C" + i, "C" + j, Graph.SNOW, time + 0.25);
+                    network.updateWeatherCondition("C" + i, "C" + j, Graph.STORM, time / 3);
+                }
+            }
+        }
+        WeatherLayerStore store = new WeatherLayerStore(network);
+        assertFalse(store.isCompressed(Graph.NORMAL));
+        assertTrue(store.isCompressed(Graph.SNOW));
+        assertTrue(store.getMemoryBytes() < 4L * n * n * (Double.BYTES + Integer.BYTES));
+
+        for (int k = 0; k < Graph.NUM_WEATHER_CONDITIONS; k++) {
+            Floyd floyd = new Floyd(network);
+            floyd.executeFloyd(k);
+            CompressedMatrix matrix = new CompressedMatrix(floyd.getDistanceMatrix(), floyd.getNextMatrix(), 4);
+            if (k != Graph.STORM) {
+                assertTrue(matrix.getCompressedBytes() * 3 < (long) n * n * (Double.BYTES + Integer.BYTES));
+            }
+            for (int i = 0; i < n; i++) {
+                CompressedMatrix.DecodedRow row = matrix.row(i);
+                assertTrue(Arrays.equals(floyd.getDistanceMatrix()[i], row.distance));
+                assertTrue(Arrays.equals(floyd.getNextMatrix()[i], row.next));
+            }
+            int condition = k;
+            assertMatchesFloyd(network, condition, (a, b) -> store.getShortestDistance(a, b, condition),
+                (a, b) -> store.getShortestPath(a, b, condition));
+        }
+
+        // Datos con un decimal: las sumas casi nunca son exactas, pero se cuantizan con parches
+        int large = 200;
+        Random random = new Random(45);
+        Graph decimals = new Graph(large);
+        for (int i = 0; i < large; i++) {
+            decimals.addCity("D" + i);
+        }
+        for (int e = 0; e < 4 * large; e++) {
+            int i = random.nextInt(large);
+            int j = (i + 1 + random.nextInt(large - 1)) % large;
+            double time = 1 + random.nextInt(200) / 10.0;
+            decimals.addEdge("D" + i, "D" + j, time, time, time, time);
+        }
+        Floyd decimalFloyd = new Floyd(decimals);
+        decimalFloyd.executeFloyd(Graph.NORMAL);
+        CompressedMatrix decimalMatrix = new CompressedMatrix(decimalFloyd.getDistanceMatrix(),
+            decimalFloyd.getNextMatrix(), 4);
+        assertTrue(decimalMatrix.getCompressedBytes() * 4 < (long) large * large * (Double.BYTES + Integer.BYTES));
+        for (int i = 0; i < large; i++) {
+            assertTrue(Arrays.equals(decimalFloyd.getDistanceMatrix()[i], decimalMatrix.decode(i).distance));
+        }
+
+        // Con consultas solo de tormenta, la tormenta se descomprime y la normal se comprime
+        for (int q = 0; q < 2000; q++) {
+            store.getShortestDistance("C" + (q % n), "C" + ((q * 3) % n), Graph.STORM);
+        }
+        assertFalse(store.isCompressed(Graph.STORM));
+        assertTrue(store.isCompressed(Graph.NORMAL));
+        assertTrue(store.isCurrent());
+        network.removeEdge("C0", "C1");
+        assertFalse(store.isCurrent());
+    }
+
+    /**
+     * Prueba para la caché de rutas con invalidación por capa.
+     */
+    @Test
+    @DisplayName("Test route cache hits, eviction and per-layer invalidation")
+    void testRouteCache() {
+        RouteEngine engine = new RouteEngine(graph);
+        RouteCache cache = new RouteCache(graph, engine, 32);
+
+        Route first = cache.findRoute("A", "D", Graph.NORMAL);
+        assertNotNull(first);
+        assertEquals(floyd.getShortestDistance("A", "D"), first.getCost());
+        assertSame(first, cache.findRoute("A", "D", Graph.NORMAL)); // Resultado ya construido
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertNull(cache.findRoute("A", "Desconocida", Graph.NORMAL));
+
+        // Un cambio de lluvia no invalida la capa normal
+        Route rain = cache.findRoute("A", "D", Graph.RAIN);
+        graph.updateWeatherCondition("A", "B", Graph.RAIN, 1000);
+        assertSame(first, cache.findRoute("A", "D", Graph.NORMAL));
+        assertNotSame(rain, cache.findRoute("A", "D", Graph.RAIN));
+        graph.addCity("Aislada");
+        assertSame(first, cache.findRoute("A", "D", Graph.NORMAL));
+
+        // Una arista nueva invalida todas las capas
+        graph.addEdge("A", "D", 0.5, 0.5, 0.5, 0.5);
+        Route direct = cache.findRoute("A", "D", Graph.NORMAL);
+        assertEquals(0.5, direct.getCost());
+        assertEquals(Arrays.asList("A", "D"), direct.getCities());
+
+        // Sin ruta también se guarda
+        assertEquals(Double.MAX_VALUE, cache.getShortestDistance("Aislada", "A", Graph.NORMAL));
+        long missesBefore = cache.getMissCount();
+        assertNull(cache.findRoute("Aislada", "A", Graph.NORMAL));
+        assertEquals(missesBefore, cache.getMissCount());
+
+        // Más pares que capacidad: se desaloja sin perder resultados correctos
+        List<String> cities = graph.getCities();
+        for (int round = 0; round < 3; round++) {
+            for (String from : cities) {
+                for (String to : cities) {
+                    for (int k = 0; k < Graph.NUM_WEATHER_CONDITIONS; k++) {
+                        assertEquals(engine.getShortestDistance(from, to, k), cache.getShortestDistance(from, to, k));
+                    }
+                }
+            }
+        }
+        assertTrue(cache.getEvictionCount() > 0);
+        assertTrue(cache.size() <= 32);
+        assertTrue(cache.getHitRate() > 0 && cache.getHitRate() < 1);
+        cache.close();
+        engine.close();
+    }
+
+    /**
+     * Prueba la exportación de matrices a CSV y binario y la vista por ventanas.
+     */
+    @Test
+    @DisplayName("Test matrix export to CSV, binary and windowed display")
+    void testMatrixExporter() throws Exception {
+        graph.addEdge("C", "A", 2.25, 4, 6, 10);
+        graph.addCity("Aislada");
+        floyd = new Floyd(graph);
+        floyd.executeFloyd(Graph.NORMAL);
+        MatrixExporter distances = MatrixExporter.forDistances(graph, floyd);
+        MatrixExporter adjacency = MatrixExporter.forAdjacency(graph, Graph.NORMAL);
+        List<String> cities = graph.getCities();
+        int n = cities.size();
+
+        // CSV: encabezado, valores exactos e "inf" para infinito
+        File csv = File.createTempFile("distancias", ".csv");
+        csv.deleteOnExit();
+        distances.writeCsv(csv.getPath());
+        List<String> lines = Files.readAllLines(csv.toPath());
+        assertEquals(n + 1, lines.size());
+        assertEquals("ciudad," + String.join(",", cities), lines.get(0));
+        for (int i = 0; i < n; i++) {
+            String[] cells = lines.get(i + 1).split(",");
+            assertEquals(cities.get(i), cells[0]);
+            for (int j = 0; j < n; j++) {
+                double expected = floyd.getShortestDistance(cities.get(i), cities.get(j));
+                assertEquals(expected, cells[j + 1].equals("inf") ? Double.MAX_VALUE : Double.parseDouble(cells[j + 1]));
+            }
+        }
+        assertTrue(lines.get(1).contains(",5,") || lines.get(1).endsWith(",5"));
+
+        // Binario: ida y vuelta exacta
+        File bin = File.createTempFile("adyacencia", ".bin");
+        bin.deleteOnExit();
+        adjacency.writeBinary(bin.getPath());
+        double[][] read = MatrixExporter.readBinary(bin.getPath());
+        assertEquals(n, read.length);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(graph.getEdgeWeight(i, j, Graph.NORMAL), read[i][j]);
+            }
+        }
+
+        // Ventana: solo las filas y columnas pedidas, con un decimal
+        StringWriter out = new StringWriter();
+        distances.writeWindow(out, 1, 3, 0, 2);
+        String[] window = out.toString().split("\n");
+        assertEquals(3, window.length);
+        assertEquals(String.format("\t\t%-12s%-12s", "A", "B"), window[0]);
+        assertEquals(String.format("%-12s%-12.1f%-12.1f", "B", 
+            floyd.getShortestDistance("B", "A"), floyd.getShortestDistance("B", "B")), window[1]);
+        assertEquals(String.format("%-12s%-12.1f%-12.1f", "C", 2.25, 7.25), window[2]);
+        out = new StringWriter();
+        distances.writeWindow(out, n - 1, n + 10, n - 1, n + 10);
+        assertEquals(2, out.toString().split("\n").length);
+    }
+
+    /**
+     * Prueba el generador de redes sintéticas y la prueba de carga.
+     */
+    @Test
+    @DisplayName("Test network generator and load test")
+    void testLoadTest() throws Exception {
+        // Misma semilla, misma red; cada región queda conectada
+        Graph network = new NetworkGenerator(7).generate(60, 4);
+        Graph again = new NetworkGenerator(7).generate(60, 4);
+        assertEquals(60, network.getNumCities());
+        for (int i = 0; i < 60; i++) {
+            for (int j = 0; j < 60; j++) {
+                for (int k = 0; k < Graph.NUM_WEATHER_CONDITIONS; k++) {
+                    assertEquals(network.getEdgeWeight(i, j, k), again.getEdgeWeight(i, j, k));
+                }
+                double normal = network.getEdgeWeight(i, j, Graph.NORMAL);
+                if (normal != Double.MAX_VALUE) {
+                    assertTrue(network.getEdgeWeight(i, j, Graph.RAIN) >= normal);
+                    assertTrue(network.getEdgeWeight(i, j, Graph.SNOW) >= normal);
+                }
+            }
+        }
+        Floyd solution = new Floyd(network);
+        solution.executeFloyd(Graph.NORMAL);
+        for (String city : network.getCities()) {
+            assertNotEquals(Double.MAX_VALUE, solution.getShortestDistance("R0_0", city));
+        }
+
+        // La red se guarda en el formato de lectura
+        File file = File.createTempFile("red", ".txt");
+        file.deleteOnExit();
+        new NetworkGenerator(7).generateFile(60, 4, file.getPath());
+        Graph read = FileHandler.readGraphFromFile(file.getPath());
+        assertEquals(60, read.getNumCities());
+        assertEquals(network.getEdgeWeight(network.indexOf("R1_3"), network.indexOf("R1_0"), Graph.NORMAL),
+            read.getEdgeWeight("R1_3", "R1_0", Graph.NORMAL));
+
+        // Todas las operaciones se ejecutan y se cuentan
+        LoadTest test = new LoadTest(network, Graph.NORMAL, new int[] {60, 20, 10, 10});
+        test.run(3, 400, 1);
+        int total = 0;
+        for (int op = LoadTest.ROUTE; op <= LoadTest.WEATHER; op++) {
+            assertTrue(test.getOperationCount(op) > 0);
+            assertTrue(test.getLatencyPercentile(op, 50) <= test.getLatencyPercentile(op, 99));
+            total += test.getOperationCount(op);
+        }
+        assertEquals(400, total);
+        // Las consultas pasan por el motor y la caché: el centro obliga a calcular soluciones
+        // y los cambios no recalculan por su cuenta
+        long decisions = 0;
+        for (String strategy : RouteEngine.STRATEGIES) {
+            decisions += test.getDecisionCount(strategy);
+        }
+        assertTrue(test.getRecomputeCount() > 0);
+        assertEquals(decisions - test.getDecisionCount(RouteEngine.ON_DEMAND), test.getRecomputeCount());
+        assertTrue(test.getRecomputeCount() <= test.getOperationCount(LoadTest.ROUTE) + test.getOperationCount(LoadTest.CENTER));
+        assertTrue(test.getDiscardedSolutionCount() <= test.getRecomputeCount());
+        assertTrue(test.getCacheHitRate() >= 0 && test.getCacheHitRate() <= 1);
+        assertTrue(test.getThroughput() > 0);
+        assertTrue(test.getPeakHeapBytes() > 0);
+        assertThrows(IllegalArgumentException.class, () -> new LoadTest(network, Graph.NORMAL, new int[] {0, 0, 0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> new LoadTest(network, Graph.NUM_WEATHER_CONDITIONS, new int[] {1, 1, 1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> new LoadTest(network, -1, new int[] {1, 1, 1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> test.run(0, 10, 1));
+
+        // Un grafo sin aristas se rechaza antes de empezar
+        Graph empty = new Graph();
+        empty.addCity("A");
+        assertThrows(IllegalArgumentException.class, () -> new LoadTest(empty, Graph.NORMAL, new int[] {1, 1, 1, 1}));
+
+        // El fallo de un hilo hace fallar la ejecución en lugar de dejar latencias vacías
+        Graph failing = new Graph() {
+            @Override
+            public String getCityName(int index) {
+                throw new IllegalStateException("fallo simulado");
+            }
+        };
+        failing.addEdge("A", "B", 1, 1, 1, 1);
+        LoadTest broken = new LoadTest(failing, Graph.NORMAL, new int[] {1, 0, 0, 0});
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> broken.run(2, 10, 1));
+        assertEquals("fallo simulado", failure.getCause().getMessage());
+    }
 }